@@ -0,0 +1,804 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A three-dimensional data structure that holds items in a positional
+ * relationship to each other. Each cell in the data structure can hold multiple
+ * items. A brick cube tiles each altitude layer into bricks of 32 x 32 cells.
+ * A brick is only allocated when its first cell is occupied, and it stores its
+ * cells in flat arrays: a sorted array of the occupied cells while the brick is
+ * sparse, or an array of all its 1024 cells once it becomes dense.
+ *
+ * Memory Usage: O(n + b) (n is the number of aircraft, b is the number of
+ * bricks of the layers that hold at least one aircraft)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> The type of element held in the data structure.
+ *
+ */
+public class BrickCube<T> implements Cube<T> {
+
+	private static final int BRICK_BITS = 5;
+	private static final int BRICK_SIDE = 1 << BRICK_BITS;
+	private static final int BRICK_MASK = BRICK_SIDE - 1;
+	private static final int BRICK_CELLS = BRICK_SIDE * BRICK_SIDE;
+	// A sparse brick becomes dense above DENSE_LIMIT occupied cells, and a dense
+	// brick becomes sparse again below SPARSE_LIMIT, so a brick whose occupancy
+	// hovers around one limit does not keep switching
+	static final int DENSE_LIMIT = 64;
+	static final int SPARSE_LIMIT = 32;
+
+	private Brick<T>[][] bricks;	// Bricks of each layer, row by row, created on first use
+	private OccupancyBitmap[] occupancy;	// Occupied (x, y) cells of each layer, created on first use
+	private CubeCounters counters;
+	private int bricksPerRow;
+	private int bricksPerColumn;
+	private int length;
+	private int breadth;
+	private int height;
+
+	/**
+	 * BrickCube constructor
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not
+	 *                                  positive.
+	 */
+	@SuppressWarnings("unchecked")
+	public BrickCube(int length, int breadth, int height) throws IllegalArgumentException {
+		// Validate the arguments
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
+
+		bricksPerRow = (length >> BRICK_BITS) + 1;
+		bricksPerColumn = (breadth >> BRICK_BITS) + 1;
+		bricks = (Brick<T>[][]) new Brick<?>[height + 1][];
+		occupancy = new OccupancyBitmap[height + 1];
+		counters = new CubeCounters(height);
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'x' dimension.
+	 */
+	@Override
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'y' dimension.
+	 */
+	@Override
+	public int getBreadth() {
+		return breadth;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'z' dimension.
+	 */
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time-complexity O(1) in a dense brick, O(d) in a sparse brick (d is the
+	 * dense limit)
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x       X Coordinate of the position of the element.
+	 * @param y       Y Coordinate of the position of the element.
+	 * @param z       Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		TraversableQueue<T> queue = cellForAdd(x, y, z);
+		queue.enqueue(element);
+		counters.update(z, queue.size() - 1, queue.size());
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time-complexity O(1) in a dense brick, O(log d) in a sparse brick (d is the
+	 * dense limit)
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the
+	 *         indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		IterableQueue<T> queue = cell(x, y, z);
+		// If there is no element there, return null
+		if (queue == null || queue.size() == 0) {
+			return null;
+		}
+		return queue.iterator().next();
+	}
+
+	/**
+	 * Return all the elements at the indicated position. The queue is a copy, so
+	 * changing it does not change the cube.
+	 *
+	 * Time-complexity O(k) in a dense brick, O(k + log d) in a sparse brick (k is
+	 * the number of aircraft in the cell, d is the dense limit)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no
+	 *         elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		TraversableQueue<T> queue = cell(x, y, z);
+		if (queue == null || queue.size() == 0) {
+			return null;
+		}
+		TraversableQueue<T> copy = new TraversableQueue<T>();
+		queue.forEach(copy::enqueue);
+		return copy;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time-complexity O(1) in a dense brick, O(log d) in a sparse brick (d is the
+	 * dense limit)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		IterableQueue<T> queue = cell(x, y, z);
+		return (queue != null && queue.size() > 1);
+	}
+
+	/**
+	 * Removes the specified element at the indicated position.
+	 *
+	 * Time-complexity O(k + d) (k is the number of aircraft in the cell, d is the
+	 * dense limit)
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x       X Coordinate of the position.
+	 * @param y       Y Coordinate of the position.
+	 * @param z       Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false
+	 *         otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		TraversableQueue<T> queue = cell(x, y, z);
+		if (queue == null) {
+			return false;
+		}
+
+		// Unlink all the items that equal the given element
+		int removed = queue.removeEvery(element);
+		counters.update(z, queue.size() + removed, queue.size());
+		if (queue.size() == 0) {
+			removeCell(x, y, z);
+		}
+
+		// Return true if the size is reduced
+		return (removed > 0);
+	}
+
+	/**
+	 * Moves the specified element from one position to another. The node of the
+	 * element is relinked in place, so nothing is allocated when the destination
+	 * cell already exists.
+	 *
+	 * Time-complexity O(k + d) (k is the number of aircraft in the current cell, d
+	 * is the dense limit)
+	 *
+	 * @param fromX   X Coordinate of the current position of the element.
+	 * @param fromY   Y Coordinate of the current position of the element.
+	 * @param fromZ   Z Coordinate of the current position of the element.
+	 * @param toX     X Coordinate of the new position of the element.
+	 * @param toY     Y Coordinate of the new position of the element.
+	 * @param toZ     Z Coordinate of the new position of the element.
+	 * @param element The element to be moved.
+	 * @return true if the element was at the current position and has been moved,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If any of the coordinates are out of
+	 *                                   bounds.
+	 *
+	 */
+	@Override
+	public boolean move(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, T element)
+			throws IndexOutOfBoundsException {
+		checkOutOfBound(fromX, fromY, fromZ);
+		checkOutOfBound(toX, toY, toZ);
+		TraversableQueue<T> source = cell(fromX, fromY, fromZ);
+		if (source == null || !source.contains(element)) {
+			return false;
+		}
+		if (fromX == toX && fromY == toY && fromZ == toZ) {
+			// Requeue the element at the end of its own cell, the counters do not change
+			source.transferTo(element, source);
+			return true;
+		}
+		TraversableQueue<T> destination = cellForAdd(toX, toY, toZ);
+		source.transferTo(element, destination);
+		counters.update(fromZ, source.size() + 1, source.size());
+		counters.update(toZ, destination.size() - 1, destination.size());
+		if (source.size() == 0) {
+			removeCell(fromX, fromY, fromZ);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time-complexity O(d) (d is the dense limit)
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		TraversableQueue<T> queue = cell(x, y, z);
+		if (queue != null) {
+			counters.update(z, queue.size(), 0);
+			removeCell(x, y, z);
+		}
+	}
+
+	/**
+	 * Removes all elements stored in the cube.
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 *
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void clear() {
+		bricks = (Brick<T>[][]) new Brick<?>[height + 1][];
+		occupancy = new OccupancyBitmap[height + 1];
+		counters.clear();
+	}
+
+	/**
+	 * Return all the elements inside a box, the box includes its corners.
+	 *
+	 * Time-complexity O(k + b) (k is the number of aircraft in the box, b is the
+	 * number of bricks the box overlaps)
+	 *
+	 * @param x0 Lower X coordinate of the box.
+	 * @param y0 Lower Y coordinate of the box.
+	 * @param z0 Lower Z coordinate of the box.
+	 * @param x1 Upper X coordinate of the box.
+	 * @param y1 Upper Y coordinate of the box.
+	 * @param z1 Upper Z coordinate of the box.
+	 * @return An IterableQueue of all elements inside the box, empty if there are
+	 *         none.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public IterableQueue<T> queryBox(int x0, int y0, int z0, int x1, int y1, int z1)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		TraversableQueue<T> result = new TraversableQueue<T>();
+		forEachInBox(x0, y0, z0, x1, y1, z1, result::enqueue);
+		return result;
+	}
+
+	/**
+	 * Perform an action on every element inside a box, the box includes its
+	 * corners. No queue is created for the visited elements. The bricks that the
+	 * box overlaps are visited brick by brick, and only the part of each brick
+	 * inside the box is read.
+	 *
+	 * Time-complexity O(k + b) (k is the number of aircraft in the box, b is the
+	 * number of bricks the box overlaps)
+	 *
+	 * @param x0     Lower X coordinate of the box.
+	 * @param y0     Lower Y coordinate of the box.
+	 * @param z0     Lower Z coordinate of the box.
+	 * @param x1     Upper X coordinate of the box.
+	 * @param y1     Upper Y coordinate of the box.
+	 * @param z1     Upper Z coordinate of the box.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public void forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1, Consumer<? super T> action)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkOutOfBound(x0, y0, z0);
+		checkOutOfBound(x1, y1, z1);
+		if (x0 > x1 || y0 > y1 || z0 > z1) {
+			throw new IllegalArgumentException();
+		}
+		for (int z = z0; z <= z1; z++) {
+			if (bricks[z] == null) {
+				continue;
+			}
+			for (int by = y0 >> BRICK_BITS; by <= y1 >> BRICK_BITS; by++) {
+				for (int bx = x0 >> BRICK_BITS; bx <= x1 >> BRICK_BITS; bx++) {
+					Brick<T> brick = bricks[z][by * bricksPerRow + bx];
+					if (brick != null) {
+						// Clip the box to the brick
+						brick.forEachInRectangle(Math.max(x0 - (bx << BRICK_BITS), 0),
+								Math.max(y0 - (by << BRICK_BITS), 0), Math.min(x1 - (bx << BRICK_BITS), BRICK_MASK),
+								Math.min(y1 - (by << BRICK_BITS), BRICK_MASK), action);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Perform an action on every element in the indicated cell and in its 26
+	 * neighbouring cells. Neighbouring cells that are outside of the cube are
+	 * ignored.
+	 *
+	 * Time-complexity O(k) (k is the number of aircraft in the 27 cells)
+	 *
+	 * @param x      X Coordinate of the centre cell.
+	 * @param y      Y Coordinate of the centre cell.
+	 * @param z      Z Coordinate of the centre cell.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachNeighbour(int x, int y, int z, Consumer<? super T> action) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		forEachInBox(Math.max(x - 1, 0), Math.max(y - 1, 0), Math.max(z - 1, 0), Math.min(x + 1, length),
+				Math.min(y + 1, breadth), Math.min(z + 1, height), action);
+	}
+
+	/**
+	 * Indicates whether an altitude layer holds no elements.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return true if no cell of the layer holds an element, false otherwise.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isLayerEmpty(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		return occupancy[z] == null || occupancy[z].isEmpty();
+	}
+
+	/**
+	 * Count the occupied cells inside a rectangle of an altitude layer, the
+	 * rectangle includes its corners, from the occupancy bitmap of the layer.
+	 *
+	 * Time-complexity O(r (log k + w)) (r is the number of rows of the rectangle,
+	 * k is the number of bitmap containers of the layer, w is the number of words
+	 * in a row)
+	 *
+	 * @param x0 Lower X coordinate of the rectangle.
+	 * @param y0 Lower Y coordinate of the rectangle.
+	 * @param x1 Upper X coordinate of the rectangle.
+	 * @param y1 Upper Y coordinate of the rectangle.
+	 * @param z  Z Coordinate of the layer.
+	 * @return Number of cells in the rectangle that hold at least one element.
+	 * @throws IndexOutOfBoundsException If a corner of the rectangle is out of
+	 *                                   bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public int countOccupiedCells(int x0, int y0, int x1, int y1, int z)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkOutOfBound(x0, y0, z);
+		checkOutOfBound(x1, y1, z);
+		if (x0 > x1 || y0 > y1) {
+			throw new IllegalArgumentException();
+		}
+		return (occupancy[z] == null) ? 0 : occupancy[z].count(x0, y0, x1, y1);
+	}
+
+	/**
+	 * Visit every occupied cell of an altitude layer, in order of y and then x,
+	 * from the occupancy bitmap of the layer.
+	 *
+	 * Time-complexity O(k + c) (k is the number of occupied cells of the layer, c
+	 * is the number of bitmap containers of the layer)
+	 *
+	 * @param z       Z Coordinate of the layer.
+	 * @param visitor Called with the position of every occupied cell of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachOccupiedCell(int z, CellVisitor visitor) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		if (occupancy[z] != null) {
+			occupancy[z].forEach(z, visitor);
+		}
+	}
+
+	/**
+	 * Return the number of elements in the cube, from the running counters.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of elements in the cube.
+	 *
+	 */
+	@Override
+	public int size() {
+		return counters.size();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold at least one element.
+	 *
+	 */
+	@Override
+	public int occupiedCells() {
+		return counters.occupiedCells();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold more than one element.
+	 *
+	 */
+	@Override
+	public int multiOccupiedCells() {
+		return counters.multiOccupiedCells();
+	}
+
+	/**
+	 * Return the number of elements in an altitude layer.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return Number of elements in the cells of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public int layerSize(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		return counters.layerSize(z);
+	}
+
+	/**
+	 * Create a new cursor owned by the caller. The cursor looks up each cell like
+	 * get does, and its getAll returns the queue of the cell itself, without
+	 * copying it.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return A cursor that is not positioned on any cell yet.
+	 *
+	 */
+	@Override
+	public CubeCursor<T> cursor() {
+		return new CubeCursor<T>() {
+			private TraversableQueue<T> cell = null;
+
+			@Override
+			public boolean seek(int x, int y, int z) throws IndexOutOfBoundsException {
+				checkOutOfBound(x, y, z);
+				cell = cell(x, y, z);
+				return (cell != null && cell.size() > 0);
+			}
+
+			@Override
+			public T get() {
+				return (cell == null || cell.size() == 0) ? null : cell.iterator().next();
+			}
+
+			@Override
+			public IterableQueue<T> getAll() {
+				return cell;
+			}
+		};
+	}
+
+	/**
+	 * Time-complexity O(h b) (h is the height, b is the number of bricks in a
+	 * layer)
+	 *
+	 * @return Number of allocated bricks, and of those that are dense.
+	 */
+	int[] countBricks() {
+		int[] count = new int[2];
+		for (Brick<T>[] layer : bricks) {
+			if (layer != null) {
+				for (Brick<T> brick : layer) {
+					if (brick != null) {
+						count[0]++;
+						count[1] += (brick.cells != null) ? 1 : 0;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	// Return the brick of a cell, or null if the brick has not been allocated
+	private Brick<T> brick(int x, int y, int z) {
+		Brick<T>[] layer = bricks[z];
+		return (layer == null) ? null : layer[(y >> BRICK_BITS) * bricksPerRow + (x >> BRICK_BITS)];
+	}
+
+	// Return the queue of a cell, or null if the cell is empty
+	private TraversableQueue<T> cell(int x, int y, int z) {
+		Brick<T> brick = brick(x, y, z);
+		return (brick == null) ? null : brick.get(offset(x, y));
+	}
+
+	// Return the queue of a cell, allocating the brick and the queue if missing
+	@SuppressWarnings("unchecked")
+	private TraversableQueue<T> cellForAdd(int x, int y, int z) {
+		Brick<T>[] layer = bricks[z];
+		if (layer == null) {
+			layer = (Brick<T>[]) new Brick<?>[bricksPerRow * bricksPerColumn];
+			bricks[z] = layer;
+		}
+		int index = (y >> BRICK_BITS) * bricksPerRow + (x >> BRICK_BITS);
+		Brick<T> brick = layer[index];
+		if (brick == null) {
+			brick = new Brick<T>();
+			layer[index] = brick;
+		}
+		TraversableQueue<T> queue = brick.getOrCreate(offset(x, y));
+		// A queue that has just been created is still empty
+		if (queue.size() == 0) {
+			layer(z).add(x, y);
+		}
+		return queue;
+	}
+
+	// Remove an empty cell, and its brick if it was the last cell of the brick
+	private void removeCell(int x, int y, int z) {
+		int index = (y >> BRICK_BITS) * bricksPerRow + (x >> BRICK_BITS);
+		Brick<T> brick = bricks[z][index];
+		brick.remove(offset(x, y));
+		if (brick.occupied == 0) {
+			bricks[z][index] = null;
+		}
+		occupancy[z].remove(x, y);
+	}
+
+	// Position of a cell inside its brick, row by row
+	private static int offset(int x, int y) {
+		return ((y & BRICK_MASK) << BRICK_BITS) | (x & BRICK_MASK);
+	}
+
+	// Occupancy bitmap of a layer, created when the first cell of the layer is
+	// occupied so that tall cubes do not allocate a bitmap for every layer
+	private OccupancyBitmap layer(int z) {
+		if (occupancy[z] == null) {
+			occupancy[z] = new OccupancyBitmap(length + 1);
+		}
+		return occupancy[z];
+	}
+
+	// Check the given coordinate is valid or not
+	private void checkOutOfBound(int x, int y, int z) {
+		if ((x < 0 || y < 0 || z < 0) || (x > this.length || y > this.breadth || z > this.height)) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * The occupied cells of a brick, stored either as sorted offsets with the
+	 * queues of their cells (offsets, queues) while the brick is sparse, or as the
+	 * queues of all the cells of the brick (cells) once it is dense.
+	 */
+	private static class Brick<T> {
+		private char[] offsets;
+		private TraversableQueue<T>[] queues;
+		private TraversableQueue<T>[] cells;
+		private int occupied = 0;
+
+		@SuppressWarnings("unchecked")
+		Brick() {
+			offsets = new char[4];
+			queues = (TraversableQueue<T>[]) new TraversableQueue<?>[4];
+		}
+
+		TraversableQueue<T> get(int offset) {
+			if (cells != null) {
+				return cells[offset];
+			}
+			int position = search(offset);
+			return (position >= 0) ? queues[position] : null;
+		}
+
+		// Return the queue of a cell, creating an empty queue if the cell is new,
+		// with a single search of the sparse offsets
+		TraversableQueue<T> getOrCreate(int offset) {
+			if (cells != null) {
+				TraversableQueue<T> queue = cells[offset];
+				if (queue == null) {
+					queue = new TraversableQueue<T>();
+					cells[offset] = queue;
+					occupied++;
+				}
+				return queue;
+			}
+			int position = search(offset);
+			if (position >= 0) {
+				return queues[position];
+			}
+			if (occupied == DENSE_LIMIT) {
+				toDense();
+				return getOrCreate(offset);
+			}
+			TraversableQueue<T> queue = new TraversableQueue<T>();
+			insert(-(position + 1), offset, queue);
+			return queue;
+		}
+
+		// Insert a new cell at its position in the sorted offsets
+		private void insert(int position, int offset, TraversableQueue<T> queue) {
+			if (occupied == offsets.length) {
+				offsets = Arrays.copyOf(offsets, occupied * 2);
+				queues = Arrays.copyOf(queues, occupied * 2);
+			}
+			System.arraycopy(offsets, position, offsets, position + 1, occupied - position);
+			System.arraycopy(queues, position, queues, position + 1, occupied - position);
+			offsets[position] = (char) offset;
+			queues[position] = queue;
+			occupied++;
+		}
+
+		// Remove an occupied cell of the brick
+		void remove(int offset) {
+			if (cells != null) {
+				cells[offset] = null;
+				occupied--;
+				if (occupied < SPARSE_LIMIT) {
+					toSparse();
+				}
+				return;
+			}
+			int position = search(offset);
+			System.arraycopy(offsets, position + 1, offsets, position, occupied - position - 1);
+			System.arraycopy(queues, position + 1, queues, position, occupied - position - 1);
+			occupied--;
+			queues[occupied] = null;
+		}
+
+		// Perform the action on the elements of the cells inside a rectangle of the brick
+		void forEachInRectangle(int x0, int y0, int x1, int y1, Consumer<? super T> action) {
+			if (cells != null) {
+				for (int y = y0; y <= y1; y++) {
+					for (int offset = (y << BRICK_BITS) | x0; offset <= ((y << BRICK_BITS) | x1); offset++) {
+						if (cells[offset] != null) {
+							cells[offset].forEach(action);
+						}
+					}
+				}
+				return;
+			}
+			for (int i = 0; i < occupied; i++) {
+				int x = offsets[i] & BRICK_MASK;
+				int y = offsets[i] >>> BRICK_BITS;
+				if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+					queues[i].forEach(action);
+				}
+			}
+		}
+
+		private int search(int offset) {
+			return Arrays.binarySearch(offsets, 0, occupied, (char) offset);
+		}
+
+		@SuppressWarnings("unchecked")
+		private void toDense() {
+			cells = (TraversableQueue<T>[]) new TraversableQueue<?>[BRICK_CELLS];
+			for (int i = 0; i < occupied; i++) {
+				cells[offsets[i]] = queues[i];
+			}
+			offsets = null;
+			queues = null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void toSparse() {
+			offsets = new char[DENSE_LIMIT];
+			queues = (TraversableQueue<T>[]) new TraversableQueue<?>[DENSE_LIMIT];
+			int position = 0;
+			for (int offset = 0; offset < BRICK_CELLS; offset++) {
+				if (cells[offset] != null) {
+					offsets[position] = (char) offset;
+					queues[position++] = cells[offset];
+				}
+			}
+			cells = null;
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * A full array of the air space would need 638 million cells, and the hashed
+ * and linked cubes pay a hash lookup or a list walk for every cell they touch,
+ * even around the airports where the traffic is dense. Tiling each layer into
+ * bricks of 32 x 32 cells [1] keeps the cost of an empty region to one null
+ * reference in the brick directory of its layer (18 thousand entries for a
+ * layer of the air space), and gives the busy terminal areas plain array
+ * access.
+ *
+ * A brick picks its storage from the number of its occupied cells, like the
+ * containers of the occupancy bitmaps. A sparse brick keeps its occupied cells
+ * in a sorted array of 16-bit offsets, so a brick with a few aircraft costs a
+ * few dozen bytes and a lookup is a short binary search. Above 64 occupied
+ * cells the insertions into the sorted array become the main cost, and the
+ * brick switches to an array of its 1024 cells, which is indexed directly. A
+ * dense brick only switches back below 32 occupied cells, so a brick whose
+ * traffic hovers around the limit does not keep converting.
+ *
+ * Box queries visit the bricks that overlap the box and clip the box to each
+ * brick, so a neighbourhood query reads at most 8 bricks of a layer instead of
+ * probing each of the 27 cells in a hash table.
+ *
+ * REFERENCE
+ * [1] K. Museth, VDB: High-resolution sparse volumes with dynamic topology.
+ * ACM Transactions on Graphics, 2013.
+ *
+ */
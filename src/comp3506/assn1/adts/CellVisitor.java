@@ -0,0 +1,20 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * Receives the position of each occupied cell of a cube that is visited.
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+@FunctionalInterface
+public interface CellVisitor {
+
+	/**
+	 * @param x X Coordinate of the occupied cell.
+	 * @param y Y Coordinate of the occupied cell.
+	 * @param z Z Coordinate of the occupied cell.
+	 */
+	void visit(int x, int y, int z);
+
+}
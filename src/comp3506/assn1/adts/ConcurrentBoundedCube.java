@@ -0,0 +1,596 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.Consumer;
+
+/**
+ * A bounded cube that can be used by multiple threads at the same time. The
+ * cube is split into one stripe per altitude layer, and each stripe is a
+ * BoundedCube of a single layer guarded by its own lock. Threads working on
+ * different layers never contend with each other.
+ *
+ * The cursors of a BoundedCube move on reads as well as on writes, so readers
+ * take the lock of the layer too. The queue returned by getAll is a copy of the
+ * cell, so that it can be iterated after the lock has been released.
+ *
+ * Memory Usage: O(n + h) (n is the number of aircraft, h is the height)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> The type of element held in the data structure.
+ *
+ */
+public class ConcurrentBoundedCube<T> implements Cube<T> {
+
+	private BoundedCube<T>[] layers;
+	private ReentrantLock[] locks;
+	// Totals of the counters of all layers, each change of a layer adds to them
+	private AtomicInteger size = new AtomicInteger();
+	private AtomicInteger occupiedCells = new AtomicInteger();
+	private AtomicInteger multiOccupiedCells = new AtomicInteger();
+	private int length;
+	private int breadth;
+	private int height;
+
+	/**
+	 * ConcurrentBoundedCube constructor
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not
+	 *                                  positive.
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentBoundedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		// Validate the arguments
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
+
+		// Each layer is stored at z = 0 of its own stripe
+		layers = (BoundedCube<T>[]) new BoundedCube<?>[height + 1];
+		locks = new ReentrantLock[height + 1];
+		for (int z = 0; z <= height; z++) {
+			layers[z] = new BoundedCube<>(length, breadth, 1);
+			locks[z] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'x' dimension.
+	 */
+	@Override
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'y' dimension.
+	 */
+	@Override
+	public int getBreadth() {
+		return breadth;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'z' dimension.
+	 */
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft in the layer)
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x       X Coordinate of the position of the element.
+	 * @param y       Y Coordinate of the position of the element.
+	 * @param z       Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		locks[z].lock();
+		try {
+			counted(z, () -> {
+				layers[z].add(x, y, 0, element);
+				return null;
+			});
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft in the layer)
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the
+	 *         indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		locks[z].lock();
+		try {
+			return layers[z].get(x, y, 0);
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Return a copy of all the elements at the indicated position.
+	 *
+	 * Time-complexity O(n + k) (n is the number of aircraft in the layer, k is the
+	 * number of aircraft in the cell)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no
+	 *         elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		locks[z].lock();
+		try {
+			// The layer already returns a copy of the cell
+			return layers[z].getAll(x, y, 0);
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft in the layer)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		locks[z].lock();
+		try {
+			return layers[z].isMultipleElementsAt(x, y, 0);
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Removes the specified element at the indicated position.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft in the layer)
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x       X Coordinate of the position.
+	 * @param y       Y Coordinate of the position.
+	 * @param z       Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false
+	 *         otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		locks[z].lock();
+		try {
+			return counted(z, () -> layers[z].remove(x, y, 0, element));
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Moves the specified element from one position to another. The locks of both
+	 * layers are held during the move, always taken from the lowest layer up.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft in the two layers)
+	 *
+	 * @param fromX   X Coordinate of the current position of the element.
+	 * @param fromY   Y Coordinate of the current position of the element.
+	 * @param fromZ   Z Coordinate of the current position of the element.
+	 * @param toX     X Coordinate of the new position of the element.
+	 * @param toY     Y Coordinate of the new position of the element.
+	 * @param toZ     Z Coordinate of the new position of the element.
+	 * @param element The element to be moved.
+	 * @return true if the element was at the current position and has been moved,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If any of the coordinates are out of
+	 *                                   bounds.
+	 *
+	 */
+	@Override
+	public boolean move(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, T element)
+			throws IndexOutOfBoundsException {
+		checkOutOfBound(fromX, fromY, fromZ);
+		checkOutOfBound(toX, toY, toZ);
+		ReentrantLock first = locks[Math.min(fromZ, toZ)];
+		ReentrantLock second = locks[Math.max(fromZ, toZ)];
+		first.lock();
+		second.lock();
+		try {
+			if (fromZ == toZ) {
+				return counted(fromZ, () -> layers[fromZ].moveTo(fromX, fromY, 0, layers[toZ], toX, toY, 0, element));
+			}
+			return counted(fromZ, () -> counted(toZ, 
+					() -> layers[fromZ].moveTo(fromX, fromY, 0, layers[toZ], toX, toY, 0, element)));
+		} finally {
+			second.unlock();
+			first.unlock();
+		}
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft in the layer)
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		locks[z].lock();
+		try {
+			if (layers[z].get(x, y, 0) != null) {
+				counted(z, () -> {
+					layers[z].removeAll(x, y, 0);
+					return null;
+				});
+			}
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Removes all elements stored in the cube. The layers are cleared one after
+	 * the other, so elements added to a layer that has already been cleared by a
+	 * concurrent thread are kept.
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 *
+	 */
+	@Override
+	public void clear() {
+		for (int z = 0; z <= height; z++) {
+			locks[z].lock();
+			try {
+				final int layer = z;
+				counted(layer, () -> {
+					layers[layer].clear();
+					return null;
+				});
+			} finally {
+				locks[z].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Return all the elements inside a box, the box includes its corners. Each
+	 * layer is read under its own lock, so the result is consistent per layer.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft)
+	 *
+	 * @param x0 Lower X coordinate of the box.
+	 * @param y0 Lower Y coordinate of the box.
+	 * @param z0 Lower Z coordinate of the box.
+	 * @param x1 Upper X coordinate of the box.
+	 * @param y1 Upper Y coordinate of the box.
+	 * @param z1 Upper Z coordinate of the box.
+	 * @return An IterableQueue of all elements inside the box, empty if there are
+	 *         none.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public IterableQueue<T> queryBox(int x0, int y0, int z0, int x1, int y1, int z1)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		TraversableQueue<T> result = new TraversableQueue<T>();
+		forEachInBox(x0, y0, z0, x1, y1, z1, result::enqueue);
+		return result;
+	}
+
+	/**
+	 * Perform an action on every element inside a box, the box includes its
+	 * corners. The elements of each layer are copied while its lock is held, and
+	 * the action is called once the lock is released, so the action may change
+	 * the cube. It sees each layer as it was when the layer was copied.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft)
+	 *
+	 * @param x0     Lower X coordinate of the box.
+	 * @param y0     Lower Y coordinate of the box.
+	 * @param z0     Lower Z coordinate of the box.
+	 * @param x1     Upper X coordinate of the box.
+	 * @param y1     Upper Y coordinate of the box.
+	 * @param z1     Upper Z coordinate of the box.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public void forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1, Consumer<? super T> action)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkOutOfBound(x0, y0, z0);
+		checkOutOfBound(x1, y1, z1);
+		if (x0 > x1 || y0 > y1 || z0 > z1) {
+			throw new IllegalArgumentException();
+		}
+		TraversableQueue<T> copy = new TraversableQueue<T>();
+		for (int z = z0; z <= z1; z++) {
+			locks[z].lock();
+			try {
+				layers[z].forEachInBox(x0, y0, 0, x1, y1, 0, copy::enqueue);
+			} finally {
+				locks[z].unlock();
+			}
+			while (copy.size() > 0) {
+				action.accept(copy.dequeue());
+			}
+		}
+	}
+
+	/**
+	 * Perform an action on every element in the indicated cell and in its 26
+	 * neighbouring cells. Neighbouring cells that are outside of the cube are
+	 * ignored. As for forEachInBox, the action is called without holding any lock.
+	 *
+	 * Time-complexity O(n) (n is the number of aircraft in the three layers)
+	 *
+	 * @param x      X Coordinate of the centre cell.
+	 * @param y      Y Coordinate of the centre cell.
+	 * @param z      Z Coordinate of the centre cell.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachNeighbour(int x, int y, int z, Consumer<? super T> action) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		forEachInBox(Math.max(x - 1, 0), Math.max(y - 1, 0), Math.max(z - 1, 0), Math.min(x + 1, length),
+				Math.min(y + 1, breadth), Math.min(z + 1, height), action);
+	}
+
+	/**
+	 * Indicates whether an altitude layer holds no elements.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return true if no cell of the layer holds an element, false otherwise.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isLayerEmpty(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		locks[z].lock();
+		try {
+			return layers[z].isLayerEmpty(0);
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Count the occupied cells inside a rectangle of an altitude layer, the
+	 * rectangle includes its corners, from the occupancy bitmap of the layer.
+	 *
+	 * Time-complexity O(r (log k + w)) (r is the number of rows of the rectangle,
+	 * k is the number of bitmap containers of the layer, w is the number of words
+	 * in a row)
+	 *
+	 * @param x0 Lower X coordinate of the rectangle.
+	 * @param y0 Lower Y coordinate of the rectangle.
+	 * @param x1 Upper X coordinate of the rectangle.
+	 * @param y1 Upper Y coordinate of the rectangle.
+	 * @param z  Z Coordinate of the layer.
+	 * @return Number of cells in the rectangle that hold at least one element.
+	 * @throws IndexOutOfBoundsException If a corner of the rectangle is out of
+	 *                                   bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public int countOccupiedCells(int x0, int y0, int x1, int y1, int z)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkOutOfBound(x0, y0, z);
+		checkOutOfBound(x1, y1, z);
+		locks[z].lock();
+		try {
+			return layers[z].countOccupiedCells(x0, y0, x1, y1, 0);
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	/**
+	 * Visit every occupied cell of an altitude layer, in order of y and then x.
+	 * The positions of the cells are copied while the lock of the layer is held,
+	 * and the visitor runs once the lock is released, so it may change the cube.
+	 *
+	 * Time-complexity O(k + c) (k is the number of occupied cells of the layer, c
+	 * is the number of bitmap containers of the layer)
+	 *
+	 * @param z       Z Coordinate of the layer.
+	 * @param visitor Called with the position of every occupied cell of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachOccupiedCell(int z, CellVisitor visitor) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		int[][] cells = { new int[16] };	// x and y of each occupied cell, in pairs
+		int[] count = { 0 };
+		locks[z].lock();
+		try {
+			layers[z].forEachOccupiedCell(0, (x, y, layer) -> {
+				if (count[0] == cells[0].length) {
+					cells[0] = Arrays.copyOf(cells[0], count[0] * 2);
+				}
+				cells[0][count[0]++] = x;
+				cells[0][count[0]++] = y;
+			});
+		} finally {
+			locks[z].unlock();
+		}
+		for (int i = 0; i < count[0]; i += 2) {
+			visitor.visit(cells[0][i], cells[0][i + 1], z);
+		}
+	}
+
+	/**
+	 * Return the number of elements in the cube, from the totals of the counters
+	 * of the layers. The totals are read without taking any lock, so a change
+	 * that is in progress on another thread may not be counted yet.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of elements in the cube.
+	 *
+	 */
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold at least one element.
+	 *
+	 */
+	@Override
+	public int occupiedCells() {
+		return occupiedCells.get();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold more than one element.
+	 *
+	 */
+	@Override
+	public int multiOccupiedCells() {
+		return multiOccupiedCells.get();
+	}
+
+	/**
+	 * Return the number of elements in an altitude layer, read under the lock of
+	 * the layer.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return Number of elements in the cells of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public int layerSize(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		locks[z].lock();
+		try {
+			return layers[z].size();
+		} finally {
+			locks[z].unlock();
+		}
+	}
+
+	// Run a change of a layer whose lock is held, and add the change of the
+	// counters of the layer to the totals
+	private <R> R counted(int z, Supplier<R> change) {
+		BoundedCube<T> layer = layers[z];
+		int layerSize = layer.size();
+		int layerCells = layer.occupiedCells();
+		int layerMultiCells = layer.multiOccupiedCells();
+		try {
+			return change.get();
+		} finally {
+			size.addAndGet(layer.size() - layerSize);
+			occupiedCells.addAndGet(layer.occupiedCells() - layerCells);
+			multiOccupiedCells.addAndGet(layer.multiOccupiedCells() - layerMultiCells);
+		}
+	}
+
+	// Check the given coordinate is valid or not
+	private void checkOutOfBound(int x, int y, int z) {
+		if ((x < 0 || y < 0 || z < 0) || (x > this.length || y > this.breadth || z > this.height)) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * A single lock around a BoundedCube would make every radar thread wait for all
+ * the others. Aircraft are spread over 36 altitude layers, so striping the
+ * locks by layer [1] lets writers on different layers work in parallel while
+ * keeping the cursor of each layer's lists owned by one thread at a time.
+ * Striping by altitude also keeps the 26-cell neighbourhood of a cell within
+ * three stripes, which are locked one after the other and never together. A
+ * move holds two stripes, which are always locked from the lowest layer up, so
+ * the locks cannot deadlock.
+ *
+ * A read/write lock was not used because the reads of BoundedCube move the
+ * cursors of its lists, so two readers of the same layer would corrupt them.
+ *
+ * REFERENCE
+ * [1] B. Goetz et al., Java Concurrency in Practice. Addison-Wesley, 2006.
+ *
+ */
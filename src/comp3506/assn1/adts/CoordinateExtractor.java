@@ -0,0 +1,32 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * Provides the position in a cube of an element, so that elements can be added
+ * to a cube in bulk.
+ * 
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> Type of the elements whose position is extracted.
+ */
+public interface CoordinateExtractor<T> {
+	
+	/**
+	 * @param element The element to be positioned.
+	 * @return X Coordinate of the position of the element.
+	 */
+	int x(T element);
+	
+	/**
+	 * @param element The element to be positioned.
+	 * @return Y Coordinate of the position of the element.
+	 */
+	int y(T element);
+	
+	/**
+	 * @param element The element to be positioned.
+	 * @return Z Coordinate of the position of the element.
+	 */
+	int z(T element);
+	
+}
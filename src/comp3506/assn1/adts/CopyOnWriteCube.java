@@ -0,0 +1,704 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A bounded cube with a read path that takes no locks. Each altitude layer is
+ * an immutable snapshot of its occupied cells, sorted by their position in the
+ * layer. Readers only read the current snapshot of a layer, so they never block
+ * and are never blocked. A writer copies the snapshot of its layer, changes the
+ * copy and publishes it, so a writer never waits for a reader either. Writers of
+ * the same layer are serialised by the lock of that layer.
+ *
+ * Memory Usage: O(n + h) (n is the number of aircraft, h is the height)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> The type of element held in the data structure.
+ *
+ */
+public class CopyOnWriteCube<T> implements Cube<T> {
+
+	private AtomicReferenceArray<Layer> layers;
+	private ReentrantLock[] writeLocks;
+	// Totals of the counts of all layers, each published snapshot adds its change to them
+	private AtomicInteger size = new AtomicInteger();
+	private AtomicInteger occupiedCells = new AtomicInteger();
+	private AtomicInteger multiOccupiedCells = new AtomicInteger();
+	private int length;
+	private int breadth;
+	private int height;
+
+	/**
+	 * CopyOnWriteCube constructor
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not
+	 *                                  positive.
+	 */
+	public CopyOnWriteCube(int length, int breadth, int height) throws IllegalArgumentException {
+		// Validate the arguments
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
+
+		layers = new AtomicReferenceArray<>(height + 1);
+		writeLocks = new ReentrantLock[height + 1];
+		for (int z = 0; z <= height; z++) {
+			layers.set(z, Layer.EMPTY);
+			writeLocks[z] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'x' dimension.
+	 */
+	@Override
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'y' dimension.
+	 */
+	@Override
+	public int getBreadth() {
+		return breadth;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'z' dimension.
+	 */
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time-complexity O(m) (m is the number of occupied cells in the layer)
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x       X Coordinate of the position of the element.
+	 * @param y       Y Coordinate of the position of the element.
+	 * @param z       Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		long key = key(x, y);
+		writeLocks[z].lock();
+		try {
+			Layer layer = layers.get(z);
+			int position = layer.search(key);
+			if (position >= 0) {
+				Object[] cell = layer.cells[position];
+				Object[] newCell = Arrays.copyOf(cell, cell.length + 1);
+				newCell[cell.length] = element;
+				publish(z, layer.replace(position, newCell));
+			} else {
+				publish(z, layer.insert(-(position + 1), key, new Object[] { element }));
+			}
+		} finally {
+			writeLocks[z].unlock();
+		}
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time-complexity O(log m) (m is the number of occupied cells in the layer)
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the
+	 *         indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		Object[] cell = cell(x, y, z);
+		return (cell == null) ? null : (T) cell[0];
+	}
+
+	/**
+	 * Return a copy of all the elements at the indicated position.
+	 *
+	 * Time-complexity O(log m + k) (m is the number of occupied cells in the layer,
+	 * k is the number of aircraft in the cell)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no
+	 *         elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		Object[] cell = cell(x, y, z);
+		if (cell == null) {
+			return null;
+		}
+		TraversableQueue<T> queue = new TraversableQueue<T>();
+		for (Object element : cell) {
+			queue.enqueue((T) element);
+		}
+		return queue;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time-complexity O(log m) (m is the number of occupied cells in the layer)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		Object[] cell = cell(x, y, z);
+		return (cell != null && cell.length > 1);
+	}
+
+	/**
+	 * Removes the specified element at the indicated position.
+	 *
+	 * Time-complexity O(m) (m is the number of occupied cells in the layer)
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x       X Coordinate of the position.
+	 * @param y       Y Coordinate of the position.
+	 * @param z       Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false
+	 *         otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		writeLocks[z].lock();
+		try {
+			Layer layer = layers.get(z);
+			int position = layer.search(key(x, y));
+			if (position < 0) {
+				return false;
+			}
+			// Keep all the items of the cell except the given element
+			Object[] cell = layer.cells[position];
+			Object[] newCell = new Object[cell.length];
+			int size = 0;
+			for (Object e : cell) {
+				if (!e.equals(element)) {
+					newCell[size++] = e;
+				}
+			}
+			if (size == cell.length) {
+				return false;
+			}
+			if (size == 0) {
+				publish(z, layer.delete(position));
+			} else {
+				publish(z, layer.replace(position, Arrays.copyOf(newCell, size)));
+			}
+			return true;
+		} finally {
+			writeLocks[z].unlock();
+		}
+	}
+
+	/**
+	 * Moves the specified element from one position to another. When both positions
+	 * are in the same layer the move is published as a single snapshot. Otherwise
+	 * the destination layer is published first, so a concurrent reader may see the
+	 * element at both positions for a moment, but never at neither.
+	 *
+	 * Time-complexity O(m) (m is the number of occupied cells in the two layers)
+	 *
+	 * @param fromX   X Coordinate of the current position of the element.
+	 * @param fromY   Y Coordinate of the current position of the element.
+	 * @param fromZ   Z Coordinate of the current position of the element.
+	 * @param toX     X Coordinate of the new position of the element.
+	 * @param toY     Y Coordinate of the new position of the element.
+	 * @param toZ     Z Coordinate of the new position of the element.
+	 * @param element The element to be moved.
+	 * @return true if the element was at the current position and has been moved,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If any of the coordinates are out of
+	 *                                   bounds.
+	 *
+	 */
+	@Override
+	public boolean move(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, T element)
+			throws IndexOutOfBoundsException {
+		checkOutOfBound(fromX, fromY, fromZ);
+		checkOutOfBound(toX, toY, toZ);
+		long fromKey = key(fromX, fromY);
+		long toKey = key(toX, toY);
+		ReentrantLock first = writeLocks[Math.min(fromZ, toZ)];
+		ReentrantLock second = writeLocks[Math.max(fromZ, toZ)];
+		first.lock();
+		second.lock();
+		try {
+			Layer source = layers.get(fromZ);
+			int position = source.search(fromKey);
+			if (position < 0) {
+				return false;
+			}
+			// Remove the first occurrence of the element from its cell
+			Object[] cell = source.cells[position];
+			int found = 0;
+			while (found < cell.length && !cell[found].equals(element)) {
+				found++;
+			}
+			if (found == cell.length) {
+				return false;
+			}
+			Object moved = cell[found];
+			Layer newSource;
+			if (cell.length == 1) {
+				newSource = source.delete(position);
+			} else {
+				Object[] newCell = new Object[cell.length - 1];
+				System.arraycopy(cell, 0, newCell, 0, found);
+				System.arraycopy(cell, found + 1, newCell, found, cell.length - found - 1);
+				newSource = source.replace(position, newCell);
+			}
+			// Add the element at the end of the destination cell, which may be the cell it left
+			Layer destination = (fromZ == toZ) ? newSource : layers.get(toZ);
+			int toPosition = destination.search(toKey);
+			if (toPosition >= 0) {
+				Object[] toCell = destination.cells[toPosition];
+				Object[] newCell = Arrays.copyOf(toCell, toCell.length + 1);
+				newCell[toCell.length] = moved;
+				destination = destination.replace(toPosition, newCell);
+			} else {
+				destination = destination.insert(-(toPosition + 1), toKey, new Object[] { moved });
+			}
+			publish(toZ, destination);
+			if (fromZ != toZ) {
+				publish(fromZ, newSource);
+			}
+			return true;
+		} finally {
+			second.unlock();
+			first.unlock();
+		}
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time-complexity O(m) (m is the number of occupied cells in the layer)
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		writeLocks[z].lock();
+		try {
+			Layer layer = layers.get(z);
+			int position = layer.search(key(x, y));
+			if (position >= 0) {
+				publish(z, layer.delete(position));
+			}
+		} finally {
+			writeLocks[z].unlock();
+		}
+	}
+
+	/**
+	 * Removes all elements stored in the cube. The layers are cleared one after
+	 * the other.
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 *
+	 */
+	@Override
+	public void clear() {
+		for (int z = 0; z <= height; z++) {
+			writeLocks[z].lock();
+			try {
+				publish(z, Layer.EMPTY);
+			} finally {
+				writeLocks[z].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Return all the elements inside a box, the box includes its corners. Each
+	 * layer is read from a single snapshot.
+	 *
+	 * Time-complexity O(h log m + k) (h is the height of the box, m is the number
+	 * of occupied cells in a layer and k is the number of cells visited)
+	 *
+	 * @param x0 Lower X coordinate of the box.
+	 * @param y0 Lower Y coordinate of the box.
+	 * @param z0 Lower Z coordinate of the box.
+	 * @param x1 Upper X coordinate of the box.
+	 * @param y1 Upper Y coordinate of the box.
+	 * @param z1 Upper Z coordinate of the box.
+	 * @return An IterableQueue of all elements inside the box, empty if there are
+	 *         none.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public IterableQueue<T> queryBox(int x0, int y0, int z0, int x1, int y1, int z1)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		TraversableQueue<T> result = new TraversableQueue<T>();
+		forEachInBox(x0, y0, z0, x1, y1, z1, result::enqueue);
+		return result;
+	}
+
+	/**
+	 * Perform an action on every element inside a box, the box includes its
+	 * corners. Each layer is read from a single snapshot.
+	 *
+	 * Time-complexity O(h log m + k) (h is the height of the box, m is the number
+	 * of occupied cells in a layer and k is the number of cells visited)
+	 *
+	 * @param x0     Lower X coordinate of the box.
+	 * @param y0     Lower Y coordinate of the box.
+	 * @param z0     Lower Z coordinate of the box.
+	 * @param x1     Upper X coordinate of the box.
+	 * @param y1     Upper Y coordinate of the box.
+	 * @param z1     Upper Z coordinate of the box.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1, Consumer<? super T> action)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkOutOfBound(x0, y0, z0);
+		checkOutOfBound(x1, y1, z1);
+		if (x0 > x1 || y0 > y1 || z0 > z1) {
+			throw new IllegalArgumentException();
+		}
+		long last = key(x1, y1);
+		for (int z = z0; z <= z1; z++) {
+			Layer layer = layers.get(z);
+			int position = layer.search(key(x0, y0));
+			// The cells of a layer are sorted by row, then by column
+			for (position = (position >= 0) ? position : -(position + 1); position < layer.keys.length
+					&& layer.keys[position] <= last; position++) {
+				long x = layer.keys[position] % (length + 1);
+				if (x >= x0 && x <= x1) {
+					for (Object element : layer.cells[position]) {
+						action.accept((T) element);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Perform an action on every element in the indicated cell and in its 26
+	 * neighbouring cells. Neighbouring cells that are outside of the cube are
+	 * ignored.
+	 *
+	 * Time-complexity O(log m + k) (m is the number of occupied cells in a layer
+	 * and k is the number of cells visited)
+	 *
+	 * @param x      X Coordinate of the centre cell.
+	 * @param y      Y Coordinate of the centre cell.
+	 * @param z      Z Coordinate of the centre cell.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachNeighbour(int x, int y, int z, Consumer<? super T> action) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		forEachInBox(Math.max(x - 1, 0), Math.max(y - 1, 0), Math.max(z - 1, 0), Math.min(x + 1, length),
+				Math.min(y + 1, breadth), Math.min(z + 1, height), action);
+	}
+
+	/**
+	 * Indicates whether an altitude layer holds no elements.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return true if no cell of the layer holds an element, false otherwise.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isLayerEmpty(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		return layers.get(z).keys.length == 0;
+	}
+
+	/**
+	 * Count the occupied cells inside a rectangle of an altitude layer, the
+	 * rectangle includes its corners. The sorted keys of the snapshot already
+	 * form a compact index of the occupied cells, so each row of the rectangle
+	 * is counted with two binary searches.
+	 *
+	 * Time-complexity O(r log m) (r is the number of rows of the rectangle, m is
+	 * the number of occupied cells in the layer)
+	 *
+	 * @param x0 Lower X coordinate of the rectangle.
+	 * @param y0 Lower Y coordinate of the rectangle.
+	 * @param x1 Upper X coordinate of the rectangle.
+	 * @param y1 Upper Y coordinate of the rectangle.
+	 * @param z  Z Coordinate of the layer.
+	 * @return Number of cells in the rectangle that hold at least one element.
+	 * @throws IndexOutOfBoundsException If a corner of the rectangle is out of
+	 *                                   bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public int countOccupiedCells(int x0, int y0, int x1, int y1, int z)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkOutOfBound(x0, y0, z);
+		checkOutOfBound(x1, y1, z);
+		if (x0 > x1 || y0 > y1) {
+			throw new IllegalArgumentException();
+		}
+		Layer layer = layers.get(z);
+		int count = 0;
+		for (int y = y0; y <= y1 && layer.keys.length > 0; y++) {
+			int first = layer.search(key(x0, y));
+			int last = layer.search(key(x1, y));
+			// Cells from the first to the last key of the row, inclusive
+			count += ((last >= 0) ? last + 1 : -(last + 1)) - ((first >= 0) ? first : -(first + 1));
+		}
+		return count;
+	}
+
+	/**
+	 * Visit every occupied cell of an altitude layer, in order of y and then x.
+	 * The cells are read from a single snapshot of the layer.
+	 *
+	 * Time-complexity O(m) (m is the number of occupied cells in the layer)
+	 *
+	 * @param z       Z Coordinate of the layer.
+	 * @param visitor Called with the position of every occupied cell of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachOccupiedCell(int z, CellVisitor visitor) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		for (long key : layers.get(z).keys) {
+			visitor.visit((int) (key % (length + 1)), (int) (key / (length + 1)), z);
+		}
+	}
+
+	/**
+	 * Return the number of elements in the cube, from the totals of the counts of
+	 * the snapshots. The totals are updated just after a snapshot is published,
+	 * so a reader may see a new snapshot before its change is counted.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of elements in the cube.
+	 *
+	 */
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold at least one element.
+	 *
+	 */
+	@Override
+	public int occupiedCells() {
+		return occupiedCells.get();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold more than one element.
+	 *
+	 */
+	@Override
+	public int multiOccupiedCells() {
+		return multiOccupiedCells.get();
+	}
+
+	/**
+	 * Return the number of elements in an altitude layer, from the current
+	 * snapshot of the layer.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return Number of elements in the cells of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public int layerSize(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		return layers.get(z).size;
+	}
+
+	// Publish a new snapshot of a layer, whose write lock is held, and add its
+	// change to the totals
+	private void publish(int z, Layer layer) {
+		Layer old = layers.getAndSet(z, layer);
+		size.addAndGet(layer.size - old.size);
+		occupiedCells.addAndGet(layer.keys.length - old.keys.length);
+		multiOccupiedCells.addAndGet(layer.multiCells - old.multiCells);
+	}
+
+	// Find the elements of a cell in the current snapshot of its layer
+	private Object[] cell(int x, int y, int z) {
+		checkOutOfBound(x, y, z);
+		Layer layer = layers.get(z);
+		int position = layer.search(key(x, y));
+		return (position >= 0) ? layer.cells[position] : null;
+	}
+
+	// Position of a cell in its layer, row by row
+	private long key(int x, int y) {
+		return (long) y * (length + 1) + x;
+	}
+
+	// Check the given coordinate is valid or not
+	private void checkOutOfBound(int x, int y, int z) {
+		if ((x < 0 || y < 0 || z < 0) || (x > this.length || y > this.breadth || z > this.height)) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * Immutable snapshot of the occupied cells of a layer. The arrays are never
+	 * changed once the snapshot is published, every change creates a new one.
+	 */
+	private static class Layer {
+
+		static final Layer EMPTY = new Layer(new long[0], new Object[0][], 0, 0);
+
+		final long[] keys;
+		final Object[][] cells;
+		final int size;			// Number of elements in the cells
+		final int multiCells;	// Number of cells with more than one element
+
+		Layer(long[] keys, Object[][] cells, int size, int multiCells) {
+			this.keys = keys;
+			this.cells = cells;
+			this.size = size;
+			this.multiCells = multiCells;
+		}
+
+		int search(long key) {
+			return Arrays.binarySearch(keys, key);
+		}
+
+		// Copy of this layer with the cell at the position replaced
+		Layer replace(int position, Object[] cell) {
+			Object[][] newCells = cells.clone();
+			newCells[position] = cell;
+			return new Layer(keys, newCells, size - cells[position].length + cell.length,
+					multiCells - multi(cells[position]) + multi(cell));
+		}
+
+		// Copy of this layer with a new cell at the position
+		Layer insert(int position, long key, Object[] cell) {
+			long[] newKeys = new long[keys.length + 1];
+			Object[][] newCells = new Object[cells.length + 1][];
+			System.arraycopy(keys, 0, newKeys, 0, position);
+			System.arraycopy(cells, 0, newCells, 0, position);
+			newKeys[position] = key;
+			newCells[position] = cell;
+			System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+			System.arraycopy(cells, position, newCells, position + 1, cells.length - position);
+			return new Layer(newKeys, newCells, size + cell.length, multiCells + multi(cell));
+		}
+
+		// Copy of this layer without the cell at the position
+		Layer delete(int position) {
+			long[] newKeys = new long[keys.length - 1];
+			Object[][] newCells = new Object[cells.length - 1][];
+			System.arraycopy(keys, 0, newKeys, 0, position);
+			System.arraycopy(cells, 0, newCells, 0, position);
+			System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+			System.arraycopy(cells, position + 1, newCells, position, cells.length - position - 1);
+			return new Layer(newKeys, newCells, size - cells[position].length, multiCells - multi(cells[position]));
+		}
+
+		private static int multi(Object[] cell) {
+			return (cell.length > 1) ? 1 : 0;
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * Display and query clients read the air space far more often than the radar
+ * queue writes to it. With a lock per layer (ConcurrentBoundedCube) every read
+ * still takes the lock, because the reads of BoundedCube move the cursors, so
+ * readers wait for each other and for the writer.
+ *
+ * Copy-on-write [1] snapshots make reads free of locks: a reader reads the
+ * reference of the layer's snapshot once, and everything it reaches from there
+ * is immutable, so there is no validation or retry. The cost is moved to the
+ * writer, which copies the arrays of one layer (O(m) for m occupied cells in the
+ * layer) on each change. The 36 altitude layers keep those arrays short, and the
+ * cells are sorted so that a lookup is a binary search over primitive keys.
+ *
+ * An optimistic StampedLock was considered, but the reads of the underlying
+ * linked lists are not safe to run against a concurrent writer even when the
+ * result is thrown away afterwards, as a reader could follow a half-linked node.
+ *
+ * REFERENCE
+ * [1] B. Goetz et al., Java Concurrency in Practice. Addison-Wesley, 2006.
+ *
+ */
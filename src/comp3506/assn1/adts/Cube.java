@@ -1,5 +1,9 @@
 package comp3506.assn1.adts;
 
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A three-dimensional data structure that holds items in a positional relationship to each other.
@@ -11,6 +15,21 @@ package comp3506.assn1.adts;
  */
 public interface Cube<T> {
 	
+	/**
+	 * @return Maximum size in the 'x' dimension, the largest valid x coordinate.
+	 */
+	int getLength();
+	
+	/**
+	 * @return Maximum size in the 'y' dimension, the largest valid y coordinate.
+	 */
+	int getBreadth();
+	
+	/**
+	 * @return Maximum size in the 'z' dimension, the largest valid z coordinate.
+	 */
+	int getHeight();
+	
 	/**
 	 * Add an element at a fixed position.
 	 * 
@@ -34,7 +53,8 @@ public interface Cube<T> {
 	T get(int x, int y, int z) throws IndexOutOfBoundsException;
 	
 	/**
-	 * Return all the elements at the indicated position.
+	 * Return all the elements at the indicated position. The queue is a copy of the cell, so changing it
+	 * does not change the cube.
 	 * 
 	 * @param x X Coordinate of the position of the element(s).
 	 * @param y Y Coordinate of the position of the element(s).
@@ -67,6 +87,23 @@ public interface Cube<T> {
 	 */
 	boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Moves the specified element from one position to another. The element becomes the
+	 * 'newest' element at the destination, also when the destination is its current position.
+	 * 
+	 * @param fromX X Coordinate of the current position of the element.
+	 * @param fromY Y Coordinate of the current position of the element.
+	 * @param fromZ Z Coordinate of the current position of the element.
+	 * @param toX X Coordinate of the new position of the element.
+	 * @param toY Y Coordinate of the new position of the element.
+	 * @param toZ Z Coordinate of the new position of the element.
+	 * @param element The element to be moved.
+	 * @return true if the element was at the current position and has been moved, false otherwise.
+	 * @throws IndexOutOfBoundsException If any of the coordinates are out of bounds.
+	 */
+	boolean move(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, T element) 
+			throws IndexOutOfBoundsException;
+	
 	/**
 	 * Removes all elements at the indicated position.
 	 * 
@@ -82,4 +119,189 @@ public interface Cube<T> {
 	 */
 	void clear();
 	
+	/**
+	 * Return all the elements inside a box, the box includes its corners.
+	 * 
+	 * @param x0 Lower X coordinate of the box.
+	 * @param y0 Lower Y coordinate of the box.
+	 * @param z0 Lower Z coordinate of the box.
+	 * @param x1 Upper X coordinate of the box.
+	 * @param y1 Upper Y coordinate of the box.
+	 * @param z1 Upper Z coordinate of the box.
+	 * @return An IterableQueue of all elements inside the box, empty if there are none.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException If a lower coordinate is greater than the upper coordinate.
+	 */
+	IterableQueue<T> queryBox(int x0, int y0, int z0, int x1, int y1, int z1) 
+			throws IndexOutOfBoundsException, IllegalArgumentException;
+	
+	/**
+	 * Perform an action on every element inside a box, the box includes its corners.
+	 * No queue is created for the visited elements.
+	 * 
+	 * @param x0 Lower X coordinate of the box.
+	 * @param y0 Lower Y coordinate of the box.
+	 * @param z0 Lower Z coordinate of the box.
+	 * @param x1 Upper X coordinate of the box.
+	 * @param y1 Upper Y coordinate of the box.
+	 * @param z1 Upper Z coordinate of the box.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException If a lower coordinate is greater than the upper coordinate.
+	 */
+	void forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1, Consumer<? super T> action) 
+			throws IndexOutOfBoundsException, IllegalArgumentException;
+	
+	/**
+	 * Perform an action on every element in the indicated cell and in its 26 neighbouring cells.
+	 * Neighbouring cells that are outside of the cube are ignored.
+	 * 
+	 * @param x X Coordinate of the centre cell.
+	 * @param y Y Coordinate of the centre cell.
+	 * @param z Z Coordinate of the centre cell.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	void forEachNeighbour(int x, int y, int z, Consumer<? super T> action) throws IndexOutOfBoundsException;
+	
+	/**
+	 * Indicates whether an altitude layer holds no elements.
+	 * 
+	 * @param z Z Coordinate of the layer.
+	 * @return true if no cell of the layer holds an element, false otherwise.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 */
+	boolean isLayerEmpty(int z) throws IndexOutOfBoundsException;
+	
+	/**
+	 * Count the occupied cells inside a rectangle of an altitude layer, the rectangle includes its corners.
+	 * 
+	 * @param x0 Lower X coordinate of the rectangle.
+	 * @param y0 Lower Y coordinate of the rectangle.
+	 * @param x1 Upper X coordinate of the rectangle.
+	 * @param y1 Upper Y coordinate of the rectangle.
+	 * @param z Z Coordinate of the layer.
+	 * @return Number of cells in the rectangle that hold at least one element.
+	 * @throws IndexOutOfBoundsException If a corner of the rectangle is out of bounds.
+	 * @throws IllegalArgumentException If a lower coordinate is greater than the upper coordinate.
+	 */
+	int countOccupiedCells(int x0, int y0, int x1, int y1, int z) 
+			throws IndexOutOfBoundsException, IllegalArgumentException;
+	
+	/**
+	 * Visit every occupied cell of an altitude layer, in order of y and then x.
+	 * 
+	 * @param z Z Coordinate of the layer.
+	 * @param visitor Called with the position of every cell of the layer that holds at least one element.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 */
+	void forEachOccupiedCell(int z, CellVisitor visitor) throws IndexOutOfBoundsException;
+	
+	/**
+	 * Return the number of elements in the cube. The count is kept up to date by the cube as it changes,
+	 * so it is cheap to read.
+	 * 
+	 * @return Number of elements in the cube.
+	 */
+	int size();
+	
+	/**
+	 * @return Number of cells of the cube that hold at least one element.
+	 */
+	int occupiedCells();
+	
+	/**
+	 * @return Number of cells of the cube that hold more than one element.
+	 */
+	int multiOccupiedCells();
+	
+	/**
+	 * Return the number of elements in an altitude layer.
+	 * 
+	 * @param z Z Coordinate of the layer.
+	 * @return Number of elements in the cells of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 */
+	int layerSize(int z) throws IndexOutOfBoundsException;
+	
+	/**
+	 * Visit every occupied cell of the cube, in order of z, y and then x. Empty layers are skipped.
+	 * 
+	 * @param visitor Called with the position of every cell that holds at least one element.
+	 */
+	default void forEachOccupiedCell(CellVisitor visitor) {
+		for (int z = 0; z <= getHeight(); z++) {
+			if (!isLayerEmpty(z)) {
+				forEachOccupiedCell(z, visitor);
+			}
+		}
+	}
+	
+	/**
+	 * Create a spliterator over all the elements of the cube, in order of z, y and then x. It splits
+	 * along the altitude layers first and then along the y ranges of a layer. The cube must not be
+	 * changed while it is traversed.
+	 * 
+	 * @return A spliterator over all the elements of the cube.
+	 */
+	default Spliterator<T> spliterator() {
+		return new CubeSpliterator<>(this);
+	}
+	
+	/**
+	 * @return A sequential stream of all the elements of the cube, in order of z, y and then x.
+	 */
+	default Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * @return A parallel stream of all the elements of the cube, whose parts are whole layers or y ranges.
+	 */
+	default Stream<T> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Add a batch of elements, each at the position given by the extractor.
+	 * Elements that end up in the same cell keep the order of the batch.
+	 * 
+	 * @param elements The elements to be added.
+	 * @param extractor Provides the position of each element.
+	 * @throws IndexOutOfBoundsException If the position of an element is out of bounds.
+	 */
+	default void addAll(Iterable<? extends T> elements, CoordinateExtractor<? super T> extractor) 
+			throws IndexOutOfBoundsException {
+		for (T element : elements) {
+			add(extractor.x(element), extractor.y(element), extractor.z(element), element);
+		}
+	}
+	
+	/**
+	 * Create a new cursor owned by the caller. The default cursor looks up each cell with getAll.
+	 * 
+	 * @return A cursor that is not positioned on any cell yet.
+	 */
+	default CubeCursor<T> cursor() {
+		return new CubeCursor<T>() {
+			private IterableQueue<T> cell = null;
+			
+			@Override
+			public boolean seek(int x, int y, int z) throws IndexOutOfBoundsException {
+				cell = Cube.this.getAll(x, y, z);
+				return (cell != null && cell.size() > 0);
+			}
+			
+			@Override
+			public T get() {
+				return (cell == null || cell.size() == 0) ? null : cell.iterator().next();
+			}
+			
+			@Override
+			public IterableQueue<T> getAll() {
+				return cell;
+			}
+		};
+	}
+	
 }
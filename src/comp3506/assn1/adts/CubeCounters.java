@@ -0,0 +1,89 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * Running counts of the contents of a cube, kept up to date by the cube each
+ * time the number of elements of a cell changes, so they can be read in O(1)
+ * instead of walking the cube.
+ *
+ * The counters are not synchronised, they are guarded by whatever guards the
+ * cube that owns them.
+ *
+ * Memory Usage: O(h) (h is the height)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+class CubeCounters {
+
+	private int size = 0;
+	private int occupiedCells = 0;
+	private int multiOccupiedCells = 0;
+	private final int[] layerSizes;
+
+	/**
+	 * CubeCounters constructor
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 *
+	 * @param height Maximum size in the 'z' dimension of the cube.
+	 */
+	CubeCounters(int height) {
+		layerSizes = new int[height + 1];
+	}
+
+	/**
+	 * Record that the number of elements of a cell has changed.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z      Z Coordinate of the cell.
+	 * @param before Number of elements in the cell before the change.
+	 * @param after  Number of elements in the cell after the change.
+	 */
+	void update(int z, int before, int after) {
+		size += after - before;
+		layerSizes[z] += after - before;
+		if (before == 0 && after > 0) {
+			occupiedCells++;
+		} else if (before > 0 && after == 0) {
+			occupiedCells--;
+		}
+		if (before <= 1 && after > 1) {
+			multiOccupiedCells++;
+		} else if (before > 1 && after <= 1) {
+			multiOccupiedCells--;
+		}
+	}
+
+	/**
+	 * Record that the cube has been emptied.
+	 *
+	 * Time-complexity O(h) (h is the height)
+	 */
+	void clear() {
+		size = 0;
+		occupiedCells = 0;
+		multiOccupiedCells = 0;
+		for (int z = 0; z < layerSizes.length; z++) {
+			layerSizes[z] = 0;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	int occupiedCells() {
+		return occupiedCells;
+	}
+
+	int multiOccupiedCells() {
+		return multiOccupiedCells;
+	}
+
+	int layerSize(int z) {
+		return layerSizes[z];
+	}
+
+}
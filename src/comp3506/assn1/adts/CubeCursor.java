@@ -0,0 +1,41 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * A position in a cube that is owned by the caller. A cursor remembers where its
+ * last seek ended, so a sequence of seeks to nearby cells is fast, and several
+ * cursors can scan different regions of the same cube without disturbing each
+ * other's locality.
+ * 
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> The type of element held in the cube.
+ */
+public interface CubeCursor<T> {
+	
+	/**
+	 * Move the cursor to the indicated cell.
+	 * 
+	 * @param x X Coordinate of the cell.
+	 * @param y Y Coordinate of the cell.
+	 * @param z Z Coordinate of the cell.
+	 * @return true if there are elements in the cell, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	boolean seek(int x, int y, int z) throws IndexOutOfBoundsException;
+	
+	/**
+	 * @return 'Oldest' element in the cell of the last seek or null if there are no elements in the cell.
+	 */
+	T get();
+	
+	/**
+	 * The queue may be the one the cube keeps for the cell, so that a scan does not copy every cell. It must
+	 * not be changed, and must not be kept once the cube is changed.
+	 * 
+	 * @return An IterableQueue of all elements in the cell of the last seek or null if there are no
+	 *         elements in the cell.
+	 */
+	IterableQueue<T> getAll();
+	
+}
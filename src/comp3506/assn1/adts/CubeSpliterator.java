@@ -0,0 +1,174 @@
+package comp3506.assn1.adts;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over all the elements of a cube, in order of z, y, x and then the
+ * order of the elements in their cell. The rows of the cube are numbered
+ * z * (breadth + 1) + y and the spliterator covers a range of them. A range that
+ * spans several altitude layers is split at a layer boundary, and a range inside
+ * a single layer is split into two y ranges.
+ *
+ * Each layer is walked through its occupied cells, which are read with a cursor
+ * owned by the spliterator, so the parts can be traversed by different threads
+ * at the same time as long as no thread changes the cube. The parts of a layer
+ * that has been split into y ranges each walk the whole layer and skip the
+ * rows of the other parts, so layers are only split when there are fewer
+ * layers than parts.
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> Type of the elements held in the cube.
+ */
+class CubeSpliterator<T> implements Spliterator<T> {
+
+	// Ranges of fewer rows are not split further
+	private static final int MIN_ROWS = 16;
+
+	private final Cube<T> cube;
+	private final int rows;	// Number of rows in a layer
+	private long next;		// First row that has not been traversed
+	private final long end;	// Row after the last row of the range
+	private CubeCursor<T> cursor = null;
+	private TraversableQueue<T> buffer = null;
+
+	/**
+	 * Spliterator over the whole cube.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param cube The cube to be traversed.
+	 */
+	CubeSpliterator(Cube<T> cube) {
+		this(cube, 0, (long) (cube.getHeight() + 1) * (cube.getBreadth() + 1));
+	}
+
+	private CubeSpliterator(Cube<T> cube, long next, long end) {
+		this.cube = cube;
+		this.rows = cube.getBreadth() + 1;
+		this.next = next;
+		this.end = end;
+	}
+
+	/**
+	 * Perform the action on the next element. The elements of the remaining rows
+	 * of the current layer are read into a buffer when the buffer is empty.
+	 *
+	 * Time-complexity O(1) amortised over the rows of the layer
+	 *
+	 * @return false if there are no elements left, true otherwise.
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		while (buffer == null || buffer.size() == 0) {
+			if (next >= end) {
+				return false;
+			}
+			if (buffer == null) {
+				buffer = new TraversableQueue<>();
+			}
+			nextLayer(buffer::enqueue);
+		}
+		action.accept(buffer.dequeue());
+		return true;
+	}
+
+	/**
+	 * Perform the action on every remaining element, walking the occupied cells
+	 * of each layer once. Empty layers are skipped.
+	 *
+	 * Time-complexity O(n + c) (n is the number of elements in the range, c is
+	 * the number of occupied cells of the layers of the range)
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		while (buffer != null && buffer.size() > 0) {
+			action.accept(buffer.dequeue());
+		}
+		while (next < end) {
+			nextLayer(action);
+		}
+	}
+
+	/**
+	 * Split off the first half of the remaining rows. The split is at the layer
+	 * boundary nearest to the middle if the rows span several layers, and in the
+	 * middle of the y range otherwise.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return A spliterator over the first half, or null if the range is too
+	 *         small or elements have already been buffered.
+	 */
+	@Override
+	public Spliterator<T> trySplit() {
+		if (buffer != null && buffer.size() > 0) {
+			return null;
+		}
+		long middle;
+		int firstLayer = layer(next);
+		int lastLayer = layer(end - 1);
+		if (firstLayer < lastLayer) {
+			int layer = (int) (((next + end) >>> 1) / rows);
+			// Round to the nearest layer boundary that keeps both halves non-empty
+			if (((next + end) >>> 1) - (long) layer * rows > rows / 2) {
+				layer++;
+			}
+			middle = (long) Math.max(Math.min(layer, lastLayer), firstLayer + 1) * rows;
+		} else if (end - next >= 2 * MIN_ROWS) {
+			middle = (next + end) >>> 1;
+		} else {
+			return null;
+		}
+		CubeSpliterator<T> prefix = new CubeSpliterator<>(cube, next, middle);
+		next = middle;
+		return prefix;
+	}
+
+	/**
+	 * The number of elements is not known without traversal, so the estimate is
+	 * the number of remaining rows, which keeps the parts of a split balanced.
+	 *
+	 * Time-complexity O(1)
+	 */
+	@Override
+	public long estimateSize() {
+		return (end - next) + ((buffer == null) ? 0 : buffer.size());
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+	// Perform the action on the elements of the remaining rows of the current layer
+	private void nextLayer(Consumer<? super T> action) {
+		int z = layer(next);
+		long last = Math.min(end, (long) (z + 1) * rows) - 1;
+		int first = row(next);
+		int lastRow = row(last);
+		next = last + 1;
+		if (cube.isLayerEmpty(z)) {
+			return;
+		}
+		if (cursor == null) {
+			cursor = cube.cursor();
+		}
+		// Cells are visited in order of y and then x, rows outside the range are skipped
+		cube.forEachOccupiedCell(z, (x, y, layer) -> {
+			if (y >= first && y <= lastRow && cursor.seek(x, y, layer)) {
+				cursor.getAll().forEach(action);
+			}
+		});
+	}
+
+	private int layer(long row) {
+		return (int) (row / rows);
+	}
+
+	private int row(long row) {
+		return (int) (row % rows);
+	}
+
+}
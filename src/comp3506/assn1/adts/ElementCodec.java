@@ -0,0 +1,39 @@
+package comp3506.assn1.adts;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Converts elements held in a cube to and from a compact binary form, so that
+ * the contents of a cube can be written to a file and read back.
+ * 
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> Type of the elements that are encoded.
+ */
+public interface ElementCodec<T> {
+	
+	/**
+	 * @param element The element to be encoded.
+	 * @return Number of bytes that encode will write for the element.
+	 */
+	int encodedSize(T element);
+	
+	/**
+	 * Write the element at the current position of the buffer.
+	 * 
+	 * @param element The element to be encoded.
+	 * @param buffer Buffer with at least encodedSize(element) bytes remaining.
+	 */
+	void encode(T element, ByteBuffer buffer);
+	
+	/**
+	 * Read an element from the current position of the buffer.
+	 * 
+	 * @param buffer Buffer positioned at the start of an encoded element.
+	 * @return The decoded element.
+	 * @throws java.nio.BufferUnderflowException If the buffer ends before the element does.
+	 */
+	T decode(ByteBuffer buffer);
+	
+}
@@ -0,0 +1,650 @@
+package comp3506.assn1.adts;
+
+import java.util.function.Consumer;
+
+/**
+ * A three-dimensional data structure that holds items in a positional
+ * relationship to each other. Each cell in the data structure can hold multiple
+ * items. A hashed cube only stores the cells that are occupied, indexed by a
+ * single long key packed from the (x, y, z) coordinates of the cell.
+ *
+ * Memory Usage: O(n) (n is the number of aircraft)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> The type of element held in the data structure.
+ *
+ */
+public class HashedCube<T> implements Cube<T> {
+
+	private LongHashMap<TraversableQueue<T>> cells;
+	private MortonIndex index;
+	private OccupancyBitmap[] occupancy;	// Occupied (x, y) cells of each layer, created on first use
+	private CubeCounters counters;
+	private int length;
+	private int breadth;
+	private int height;
+
+	/**
+	 * HashedCube constructor
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not
+	 *                                  positive or do not fit in the packed key.
+	 */
+	public HashedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		// Validate the arguments
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+		if (length > MortonIndex.MAX_COORDINATE || breadth > MortonIndex.MAX_COORDINATE
+				|| height > MortonIndex.MAX_COORDINATE) {
+			throw new IllegalArgumentException();
+		}
+
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
+
+		cells = new LongHashMap<>();
+		index = new MortonIndex();
+		occupancy = new OccupancyBitmap[height + 1];
+		counters = new CubeCounters(height);
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'x' dimension.
+	 */
+	@Override
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'y' dimension.
+	 */
+	@Override
+	public int getBreadth() {
+		return breadth;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum size in the 'z' dimension.
+	 */
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time-complexity O(1) amortised
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x       X Coordinate of the position of the element.
+	 * @param y       Y Coordinate of the position of the element.
+	 * @param z       Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		long key = key(x, y, z);
+		TraversableQueue<T> queue = cells.get(key);
+		// If there is no queue in the cell then add a new queue to that cell
+		if (queue == null) {
+			queue = new TraversableQueue<T>();
+			cells.put(key, queue);
+			index.add(key);
+			layer(z).add(x, y);
+		}
+		queue.enqueue(element);
+		counters.update(z, queue.size() - 1, queue.size());
+	}
+
+	/**
+	 * Add a batch of elements, each at the position given by the extractor.
+	 * Elements that end up in the same cell keep the order of the batch.
+	 *
+	 * The cell table is grown once for the whole batch and the codes of the new
+	 * cells are added to the box index together, so an empty cube is built
+	 * without shifting any codes. No element is added if the position of any
+	 * element is out of bounds.
+	 *
+	 * Time-complexity O(m log m) when the cube is empty (m is the size of the
+	 * batch)
+	 *
+	 * @param elements  The elements to be added.
+	 * @param extractor Provides the position of each element.
+	 * @throws IndexOutOfBoundsException If the position of an element is out of
+	 *                                   bounds.
+	 *
+	 */
+	@Override
+	public void addAll(Iterable<? extends T> elements, CoordinateExtractor<? super T> extractor)
+			throws IndexOutOfBoundsException {
+		int count = 0;
+		for (T element : elements) {
+			checkOutOfBound(extractor.x(element), extractor.y(element), extractor.z(element));
+			count++;
+		}
+		cells.ensureCapacity(cells.size() + count);
+		long[] newCells = new long[count];
+		int created = 0;
+		for (T element : elements) {
+			int x = extractor.x(element), y = extractor.y(element), z = extractor.z(element);
+			long key = key(x, y, z);
+			TraversableQueue<T> queue = cells.get(key);
+			if (queue == null) {
+				queue = new TraversableQueue<T>();
+				cells.put(key, queue);
+				newCells[created++] = key;
+				layer(z).add(x, y);
+			}
+			queue.enqueue(element);
+			counters.update(z, queue.size() - 1, queue.size());
+		}
+		index.addAll(newCells, created);
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time-complexity O(1) expected
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the
+	 *         indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		IterableQueue<T> queue = cells.get(key(x, y, z));
+		// If there is no element there, return null
+		if (queue == null || queue.size() == 0) {
+			return null;
+		}
+		return queue.iterator().next();
+	}
+
+	/**
+	 * Return all the elements at the indicated position. The queue is a copy, so
+	 * changing it does not change the cube.
+	 *
+	 * Time-complexity O(k) expected (k is the number of aircraft in the cell)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no
+	 *         elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		TraversableQueue<T> queue = cells.get(key(x, y, z));
+		if (queue == null || queue.size() == 0) {
+			return null;
+		}
+		TraversableQueue<T> copy = new TraversableQueue<T>();
+		queue.forEach(copy::enqueue);
+		return copy;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time-complexity O(1) expected
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		IterableQueue<T> queue = cells.get(key(x, y, z));
+		return (queue != null && queue.size() > 1);
+	}
+
+	/**
+	 * Removes the specified element at the indicated position.
+	 *
+	 * Time-complexity O(k) (k is the number of aircraft in the cell)
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x       X Coordinate of the position.
+	 * @param y       Y Coordinate of the position.
+	 * @param z       Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false
+	 *         otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		long key = key(x, y, z);
+		TraversableQueue<T> queue = cells.get(key);
+		if (queue == null) {
+			return false;
+		}
+
+		// Unlink all the items that equal the given element
+		int removed = queue.removeEvery(element);
+		counters.update(z, queue.size() + removed, queue.size());
+		if (queue.size() == 0) {
+			// Drop the cell so that only occupied cells are stored
+			cells.remove(key);
+			index.remove(key);
+			occupancy[z].remove(x, y);
+		}
+
+		// Return true if the size is reduced
+		return (removed > 0);
+	}
+
+	/**
+	 * Moves the specified element from one position to another. The node of the
+	 * element is relinked in place, so nothing is allocated when the destination
+	 * cell already exists.
+	 *
+	 * Time-complexity O(k) (k is the number of aircraft in the current cell)
+	 *
+	 * @param fromX   X Coordinate of the current position of the element.
+	 * @param fromY   Y Coordinate of the current position of the element.
+	 * @param fromZ   Z Coordinate of the current position of the element.
+	 * @param toX     X Coordinate of the new position of the element.
+	 * @param toY     Y Coordinate of the new position of the element.
+	 * @param toZ     Z Coordinate of the new position of the element.
+	 * @param element The element to be moved.
+	 * @return true if the element was at the current position and has been moved,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If any of the coordinates are out of
+	 *                                   bounds.
+	 *
+	 */
+	@Override
+	public boolean move(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, T element)
+			throws IndexOutOfBoundsException {
+		checkOutOfBound(fromX, fromY, fromZ);
+		checkOutOfBound(toX, toY, toZ);
+		long fromKey = key(fromX, fromY, fromZ);
+		TraversableQueue<T> source = cells.get(fromKey);
+		if (source == null || !source.contains(element)) {
+			return false;
+		}
+		long toKey = key(toX, toY, toZ);
+		if (fromKey == toKey) {
+			// Requeue the element at the end of its own cell, the counters do not change
+			source.transferTo(element, source);
+			return true;
+		}
+		TraversableQueue<T> destination = cells.get(toKey);
+		if (destination == null) {
+			destination = new TraversableQueue<T>();
+			cells.put(toKey, destination);
+			index.add(toKey);
+			layer(toZ).add(toX, toY);
+		}
+		source.transferTo(element, destination);
+		counters.update(fromZ, source.size() + 1, source.size());
+		counters.update(toZ, destination.size() - 1, destination.size());
+		if (source.size() == 0) {
+			cells.remove(fromKey);
+			index.remove(fromKey);
+			occupancy[fromZ].remove(fromX, fromY);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time-complexity O(1) expected
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		long key = key(x, y, z);
+		TraversableQueue<T> queue = cells.remove(key);
+		if (queue != null) {
+			counters.update(z, queue.size(), 0);
+			index.remove(key);
+			occupancy[z].remove(x, y);
+		}
+	}
+
+	/**
+	 * Removes all elements stored in the cube.
+	 *
+	 * Time-complexity O(c + h) (c is the capacity of the cell table, h is the
+	 * height)
+	 *
+	 */
+	@Override
+	public void clear() {
+		cells.clear();
+		index.clear();
+		occupancy = new OccupancyBitmap[height + 1];
+		counters.clear();
+	}
+
+	/**
+	 * Return all the elements inside a box, the box includes its corners.
+	 *
+	 * Time-complexity O(k + r log n) (k is the number of aircraft in the box and r
+	 * is the number of contiguous Morton ranges the box is split into)
+	 *
+	 * @param x0 Lower X coordinate of the box.
+	 * @param y0 Lower Y coordinate of the box.
+	 * @param z0 Lower Z coordinate of the box.
+	 * @param x1 Upper X coordinate of the box.
+	 * @param y1 Upper Y coordinate of the box.
+	 * @param z1 Upper Z coordinate of the box.
+	 * @return An IterableQueue of all elements inside the box, empty if there are
+	 *         none.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public IterableQueue<T> queryBox(int x0, int y0, int z0, int x1, int y1, int z1)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkBox(x0, y0, z0, x1, y1, z1);
+		TraversableQueue<T> result = new TraversableQueue<T>();
+		forEachInBox(x0, y0, z0, x1, y1, z1, result::enqueue);
+		return result;
+	}
+
+	/**
+	 * Perform an action on every element inside a box, the box includes its
+	 * corners. No queue is created for the visited elements.
+	 *
+	 * Time-complexity O(k + r log n) (k is the number of aircraft in the box and r
+	 * is the number of contiguous Morton ranges the box is split into)
+	 *
+	 * @param x0     Lower X coordinate of the box.
+	 * @param y0     Lower Y coordinate of the box.
+	 * @param z0     Lower Z coordinate of the box.
+	 * @param x1     Upper X coordinate of the box.
+	 * @param y1     Upper Y coordinate of the box.
+	 * @param z1     Upper Z coordinate of the box.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If a corner of the box is out of bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public void forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1, Consumer<? super T> action)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkBox(x0, y0, z0, x1, y1, z1);
+		index.forEachInBox(x0, y0, z0, x1, y1, z1, code -> cells.get(code).forEach(action));
+	}
+
+	/**
+	 * Perform an action on every element in the indicated cell and in its 26
+	 * neighbouring cells. Neighbouring cells that are outside of the cube are
+	 * ignored.
+	 *
+	 * Time-complexity O(k) (k is the number of aircraft in the 27 cells)
+	 *
+	 * @param x      X Coordinate of the centre cell.
+	 * @param y      Y Coordinate of the centre cell.
+	 * @param z      Z Coordinate of the centre cell.
+	 * @param action The action to be performed on each element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachNeighbour(int x, int y, int z, Consumer<? super T> action) throws IndexOutOfBoundsException {
+		checkOutOfBound(x, y, z);
+		// A fixed 27 cells are probed directly, which is cheaper than a range scan
+		for (int k = Math.max(z - 1, 0); k <= Math.min(z + 1, height); k++) {
+			for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, breadth); j++) {
+				for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, length); i++) {
+					TraversableQueue<T> queue = cells.get(key(i, j, k));
+					if (queue != null) {
+						queue.forEach(action);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Indicates whether an altitude layer holds no elements.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return true if no cell of the layer holds an element, false otherwise.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public boolean isLayerEmpty(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		return occupancy[z] == null || occupancy[z].isEmpty();
+	}
+
+	/**
+	 * Count the occupied cells inside a rectangle of an altitude layer, the
+	 * rectangle includes its corners, from the occupancy bitmap of the layer.
+	 *
+	 * Time-complexity O(r (log k + w)) (r is the number of rows of the rectangle,
+	 * k is the number of bitmap containers of the layer, w is the number of words
+	 * in a row)
+	 *
+	 * @param x0 Lower X coordinate of the rectangle.
+	 * @param y0 Lower Y coordinate of the rectangle.
+	 * @param x1 Upper X coordinate of the rectangle.
+	 * @param y1 Upper Y coordinate of the rectangle.
+	 * @param z  Z Coordinate of the layer.
+	 * @return Number of cells in the rectangle that hold at least one element.
+	 * @throws IndexOutOfBoundsException If a corner of the rectangle is out of
+	 *                                   bounds.
+	 * @throws IllegalArgumentException  If a lower coordinate is greater than the
+	 *                                   upper coordinate.
+	 *
+	 */
+	@Override
+	public int countOccupiedCells(int x0, int y0, int x1, int y1, int z)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkBox(x0, y0, z, x1, y1, z);
+		return (occupancy[z] == null) ? 0 : occupancy[z].count(x0, y0, x1, y1);
+	}
+
+	/**
+	 * Visit every occupied cell of an altitude layer, in order of y and then x.
+	 *
+	 * Time-complexity O(k + c) (k is the number of occupied cells of the layer, c
+	 * is the number of bitmap containers of the layer)
+	 *
+	 * @param z       Z Coordinate of the layer.
+	 * @param visitor Called with the position of every occupied cell of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public void forEachOccupiedCell(int z, CellVisitor visitor) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		if (occupancy[z] != null) {
+			occupancy[z].forEach(z, visitor);
+		}
+	}
+
+	/**
+	 * Return the number of elements in the cube, from the running counters.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of elements in the cube.
+	 *
+	 */
+	@Override
+	public int size() {
+		return counters.size();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold at least one element.
+	 *
+	 */
+	@Override
+	public int occupiedCells() {
+		return counters.occupiedCells();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of cells of the cube that hold more than one element.
+	 *
+	 */
+	@Override
+	public int multiOccupiedCells() {
+		return counters.multiOccupiedCells();
+	}
+
+	/**
+	 * Return the number of elements in an altitude layer.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return Number of elements in the cells of the layer.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 *
+	 */
+	@Override
+	public int layerSize(int z) throws IndexOutOfBoundsException {
+		checkOutOfBound(0, 0, z);
+		return counters.layerSize(z);
+	}
+
+	/**
+	 * Create a new cursor owned by the caller. The cursor looks up each cell like
+	 * get does, and its getAll returns the queue of the cell itself, without
+	 * copying it.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return A cursor that is not positioned on any cell yet.
+	 *
+	 */
+	@Override
+	public CubeCursor<T> cursor() {
+		return new CubeCursor<T>() {
+			private TraversableQueue<T> cell = null;
+
+			@Override
+			public boolean seek(int x, int y, int z) throws IndexOutOfBoundsException {
+				checkOutOfBound(x, y, z);
+				cell = cells.get(key(x, y, z));
+				return (cell != null && cell.size() > 0);
+			}
+
+			@Override
+			public T get() {
+				return (cell == null || cell.size() == 0) ? null : cell.iterator().next();
+			}
+
+			@Override
+			public IterableQueue<T> getAll() {
+				return cell;
+			}
+		};
+	}
+
+	// Occupancy bitmap of a layer, created when the first cell of the layer is
+	// occupied so that tall cubes do not allocate a bitmap for every layer
+	private OccupancyBitmap layer(int z) {
+		if (occupancy[z] == null) {
+			occupancy[z] = new OccupancyBitmap(length + 1);
+		}
+		return occupancy[z];
+	}
+
+	// Pack the coordinates of a cell into a single key, the Morton code of the
+	// cell is used so that the same key is used by the box index
+	static long key(int x, int y, int z) {
+		return MortonIndex.encode(x, y, z);
+	}
+
+	// Check the given box is valid or not
+	private void checkBox(int x0, int y0, int z0, int x1, int y1, int z1) {
+		checkOutOfBound(x0, y0, z0);
+		checkOutOfBound(x1, y1, z1);
+		if (x0 > x1 || y0 > y1 || z0 > z1) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+	// Check the given coordinate is valid or not
+	private void checkOutOfBound(int x, int y, int z) {
+		if ((x < 0 || y < 0 || z < 0) || (x > this.length || y > this.breadth || z > this.height)) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * The cursor of BoundedCube only helps when consecutive accesses are close to
+ * each other. The radar sites identify aircraft at random positions, so every
+ * access of BoundedCube walks O(n) nodes of the sorted lists.
+ *
+ * A hash map of the occupied cells gives expected O(1) access regardless of the
+ * order of the accesses, and still only stores the cells that contain at least
+ * one aircraft. The coordinates are packed into one long key (21 bits each) and
+ * the map uses open addressing over primitive arrays [1 pp. 422], so a lookup
+ * does not allocate and touches only a few adjacent array slots. Removal uses
+ * backward shifting instead of tombstones so that the probe sequences do not
+ * degrade under constant traffic churn.
+ *
+ * The key of a cell is its Morton code, so the occupied cells are also kept in a
+ * MortonIndex that answers box queries with a few contiguous range scans.
+ *
+ * This data structure has the memory efficiency of O(n) where n is the number
+ * of the aircraft.
+ *
+ * REFERENCE
+ * [1] M. T. Goodrich, R. Tamassia, and M. H. Goldwasser, Data
+ * structures and algorithms in Java. John Wiley & Sons, 2014.
+ *
+ */
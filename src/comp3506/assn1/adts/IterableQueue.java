@@ -1,5 +1,7 @@
 package comp3506.assn1.adts;
 
+import java.util.Iterator;
+import java.util.function.Consumer;
 
 /**
  * Queue with ability to iterate over all the elements in the queue.
@@ -31,4 +33,42 @@ public interface IterableQueue<T> extends Iterable<T> {
 	 */
 	int size();
 	
+	/**
+	 * Remove the first element of the queue that equals the given element, wherever it is in the queue.
+	 * 
+	 * @param element The element to be removed.
+	 * @return true if an element was removed, false if the queue does not hold the element.
+	 * @throws UnsupportedOperationException The queue's iterator cannot remove elements.
+	 */
+	default boolean remove(T element) throws UnsupportedOperationException {
+		Iterator<T> it = iterator();
+		while (it.hasNext()) {
+			if (it.next().equals(element)) {
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Remove up to max elements from the head of the queue and pass them to the consumer, in queue order.
+	 * 
+	 * @param consumer Receives each element that is removed.
+	 * @param max Maximum number of elements to remove.
+	 * @return Number of elements that were removed.
+	 * @throws IllegalArgumentException If max is negative.
+	 */
+	default int drainTo(Consumer<? super T> consumer, int max) throws IllegalArgumentException {
+		if (max < 0) {
+			throw new IllegalArgumentException();
+		}
+		int drained = 0;
+		while (drained < max && size() > 0) {
+			consumer.accept(dequeue());
+			drained++;
+		}
+		return drained;
+	}
+	
 }
@@ -0,0 +1,535 @@
+package comp3506.assn1.adts;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A cube that records every change made to another cube in an append-only log
+ * file, so that the changes can be replayed after a crash. Each add, remove,
+ * removeAll, move and clear is appended to an in-memory buffer as a record
+ * with a CRC-32 checksum. The buffered records only become durable when commit
+ * is called, which writes them and forces the file to the disk with a single
+ * sync for the whole group of records.
+ *
+ * The log starts with an epoch number. A log whose epoch matches the epoch
+ * given on opening is replayed onto the cube, up to the first record that is
+ * incomplete or fails its checksum. A log of any other epoch is discarded, as
+ * it belongs to a state that has been saved elsewhere.
+ *
+ * Reads go straight to the underlying cube. The elements are written to the
+ * log by an ElementCodec, and a removed element is found again on replay by
+ * equals.
+ *
+ * Memory Usage: O(b) in addition to the underlying cube (b is the size of the
+ * buffer of records that are not committed)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> The type of element held in the data structure.
+ *
+ */
+public class JournaledCube<T> implements Cube<T>, Closeable {
+
+	private static final int MAGIC = 0x4F534A4C; // "OSJL"
+	private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+	private static final byte REMOVE_ALL = 3;
+	private static final byte MOVE = 4;
+	private static final byte CLEAR = 5;
+
+	private Cube<T> cube;
+	private ElementCodec<T> codec;
+	private FileChannel channel;
+	private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+	private CRC32 checksum = new CRC32();
+	private long epoch;
+	private int replayed;
+
+	/**
+	 * JournaledCube constructor. The records of a log of the same epoch are
+	 * replayed onto the cube first, so the cube should hold the state saved when
+	 * the epoch was started.
+	 *
+	 * Time-complexity O(r) (r is the number of records in the log)
+	 *
+	 * @param cube  The cube that holds the elements.
+	 * @param codec Writes the elements to the log and reads them back.
+	 * @param log   The log file, created if it does not exist.
+	 * @param epoch The epoch of the state held by the cube.
+	 * @throws IOException If the log cannot be read or written.
+	 */
+	public JournaledCube(Cube<T> cube, ElementCodec<T> codec, Path log, long epoch) throws IOException {
+		this.cube = cube;
+		this.codec = codec;
+		channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (readEpoch() == epoch) {
+				// Cut off a record that was only partly written before the crash
+				channel.truncate(replay());
+				channel.position(channel.size());
+				this.epoch = epoch;
+			} else {
+				reset(epoch);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return Number of records replayed from the log when it was opened.
+	 */
+	public int getReplayedRecords() {
+		return replayed;
+	}
+
+	/**
+	 * @return The cube that holds the elements.
+	 */
+	public Cube<T> getCube() {
+		return cube;
+	}
+
+	/**
+	 * @return The epoch of the log.
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Write all the buffered records to the log and force them to the disk.
+	 *
+	 * Time-complexity O(b) (b is the size of the buffered records)
+	 *
+	 * @throws IOException If the log cannot be written.
+	 */
+	public void commit() throws IOException {
+		flush();
+		channel.force(false);
+	}
+
+	/**
+	 * Empty the log and start a new epoch, once the state of the cube has been
+	 * saved elsewhere. Records that are not committed are discarded.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param epoch The epoch of the saved state.
+	 * @throws IOException If the log cannot be written.
+	 */
+	public void reset(long epoch) throws IOException {
+		pending.clear();
+		channel.truncate(0);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putLong(epoch).flip();
+		channel.write(header, 0);
+		channel.position(HEADER_SIZE);
+		channel.force(true);
+		this.epoch = epoch;
+	}
+
+	/**
+	 * Commit the buffered records and close the log.
+	 *
+	 * @throws IOException If the log cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			commit();
+		} finally {
+			channel.close();
+		}
+	}
+
+	@Override
+	public int getLength() {
+		return cube.getLength();
+	}
+
+	@Override
+	public int getBreadth() {
+		return cube.getBreadth();
+	}
+
+	@Override
+	public int getHeight() {
+		return cube.getHeight();
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time-complexity O(a + e) (a is the cost of the underlying add, e is the
+	 * size of the encoded element)
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x       X Coordinate of the position of the element.
+	 * @param y       Y Coordinate of the position of the element.
+	 * @param z       Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws UncheckedIOException      If the buffer is full and cannot be
+	 *                                   written to the log.
+	 *
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		cube.add(x, y, z, element);
+		record(ADD, x, y, z, element);
+	}
+
+	/**
+	 * Add a batch of elements, each at the position given by the extractor.
+	 * One record is written for each element.
+	 *
+	 * Time-complexity O(a + m e) (a is the cost of the underlying addAll, m is
+	 * the size of the batch, e is the size of an encoded element)
+	 *
+	 * @param elements  The elements to be added.
+	 * @param extractor Provides the position of each element.
+	 * @throws IndexOutOfBoundsException If the position of an element is out of
+	 *                                   bounds.
+	 * @throws UncheckedIOException      If the buffer is full and cannot be
+	 *                                   written to the log.
+	 *
+	 */
+	@Override
+	public void addAll(Iterable<? extends T> elements, CoordinateExtractor<? super T> extractor)
+			throws IndexOutOfBoundsException {
+		cube.addAll(elements, extractor);
+		for (T element : elements) {
+			record(ADD, extractor.x(element), extractor.y(element), extractor.z(element), element);
+		}
+	}
+
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		return cube.get(x, y, z);
+	}
+
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		return cube.getAll(x, y, z);
+	}
+
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		return cube.isMultipleElementsAt(x, y, z);
+	}
+
+	/**
+	 * Removes the specified element at the indicated position. Nothing is
+	 * recorded if the element was not there.
+	 *
+	 * Time-complexity O(r + e) (r is the cost of the underlying remove, e is the
+	 * size of the encoded element)
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x       X Coordinate of the position.
+	 * @param y       Y Coordinate of the position.
+	 * @param z       Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false
+	 *         otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws UncheckedIOException      If the buffer is full and cannot be
+	 *                                   written to the log.
+	 *
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		if (!cube.remove(x, y, z, element)) {
+			return false;
+		}
+		record(REMOVE, x, y, z, element);
+		return true;
+	}
+
+	/**
+	 * Moves the specified element from one position to another. Nothing is
+	 * recorded if the element was not at the current position.
+	 *
+	 * Time-complexity O(m + e) (m is the cost of the underlying move, e is the
+	 * size of the encoded element)
+	 *
+	 * @param fromX   X Coordinate of the current position of the element.
+	 * @param fromY   Y Coordinate of the current position of the element.
+	 * @param fromZ   Z Coordinate of the current position of the element.
+	 * @param toX     X Coordinate of the new position of the element.
+	 * @param toY     Y Coordinate of the new position of the element.
+	 * @param toZ     Z Coordinate of the new position of the element.
+	 * @param element The element to be moved.
+	 * @return true if the element was at the current position and has been moved,
+	 *         false otherwise.
+	 * @throws IndexOutOfBoundsException If any of the coordinates are out of
+	 *                                   bounds.
+	 * @throws UncheckedIOException      If the buffer is full and cannot be
+	 *                                   written to the log.
+	 *
+	 */
+	@Override
+	public boolean move(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, T element)
+			throws IndexOutOfBoundsException {
+		if (!cube.move(fromX, fromY, fromZ, toX, toY, toZ, element)) {
+			return false;
+		}
+		int size = 1 + 6 * Integer.BYTES + codec.encodedSize(element);
+		ByteBuffer buffer = begin(size);
+		buffer.put(MOVE).putInt(fromX).putInt(fromY).putInt(fromZ).putInt(toX).putInt(toY).putInt(toZ);
+		codec.encode(element, buffer);
+		end(buffer, size);
+		return true;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time-complexity O(r) (r is the cost of the underlying removeAll)
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws UncheckedIOException      If the buffer is full and cannot be
+	 *                                   written to the log.
+	 *
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		cube.removeAll(x, y, z);
+		record(REMOVE_ALL, x, y, z, null);
+	}
+
+	/**
+	 * Removes all elements stored in the cube.
+	 *
+	 * Time-complexity O(c) (c is the cost of the underlying clear)
+	 *
+	 * @throws UncheckedIOException If the buffer is full and cannot be written to
+	 *                              the log.
+	 *
+	 */
+	@Override
+	public void clear() {
+		cube.clear();
+		record(CLEAR, 0, 0, 0, null);
+	}
+
+	@Override
+	public IterableQueue<T> queryBox(int x0, int y0, int z0, int x1, int y1, int z1)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		return cube.queryBox(x0, y0, z0, x1, y1, z1);
+	}
+
+	@Override
+	public void forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1, Consumer<? super T> action)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		cube.forEachInBox(x0, y0, z0, x1, y1, z1, action);
+	}
+
+	@Override
+	public void forEachNeighbour(int x, int y, int z, Consumer<? super T> action) throws IndexOutOfBoundsException {
+		cube.forEachNeighbour(x, y, z, action);
+	}
+
+	@Override
+	public boolean isLayerEmpty(int z) throws IndexOutOfBoundsException {
+		return cube.isLayerEmpty(z);
+	}
+
+	@Override
+	public int countOccupiedCells(int x0, int y0, int x1, int y1, int z)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		return cube.countOccupiedCells(x0, y0, x1, y1, z);
+	}
+
+	@Override
+	public void forEachOccupiedCell(int z, CellVisitor visitor) throws IndexOutOfBoundsException {
+		cube.forEachOccupiedCell(z, visitor);
+	}
+
+	@Override
+	public int size() {
+		return cube.size();
+	}
+
+	@Override
+	public int occupiedCells() {
+		return cube.occupiedCells();
+	}
+
+	@Override
+	public int multiOccupiedCells() {
+		return cube.multiOccupiedCells();
+	}
+
+	@Override
+	public int layerSize(int z) throws IndexOutOfBoundsException {
+		return cube.layerSize(z);
+	}
+
+	@Override
+	public CubeCursor<T> cursor() {
+		return cube.cursor();
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return cube.spliterator();
+	}
+
+	// Append a record of an operation on a single cell, the element is only
+	// written when it is not null
+	private void record(byte operation, int x, int y, int z, T element) {
+		int size = 1 + 3 * Integer.BYTES + ((element == null) ? 0 : codec.encodedSize(element));
+		ByteBuffer buffer = begin(size);
+		buffer.put(operation).putInt(x).putInt(y).putInt(z);
+		if (element != null) {
+			codec.encode(element, buffer);
+		}
+		end(buffer, size);
+	}
+
+	// Make room for a record with a body of the given size and write its length.
+	// A record: body length, body (operation, coordinates, element), checksum
+	private ByteBuffer begin(int size) {
+		int recordSize = Integer.BYTES + size + Integer.BYTES;
+		if (pending.remaining() < recordSize) {
+			try {
+				flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			if (pending.capacity() < recordSize) {
+				pending = ByteBuffer.allocate(recordSize);
+			}
+		}
+		return pending.putInt(size);
+	}
+
+	// Checksum the body that has just been written
+	private void end(ByteBuffer buffer, int size) {
+		checksum.reset();
+		checksum.update(buffer.array(), buffer.position() - size, size);
+		buffer.putInt((int) checksum.getValue());
+	}
+
+	// Write the buffered records to the log without forcing them to the disk
+	private void flush() throws IOException {
+		pending.flip();
+		while (pending.hasRemaining()) {
+			channel.write(pending);
+		}
+		pending.clear();
+	}
+
+	// Epoch of the existing log, or -1 if there is no valid log
+	private long readEpoch() throws IOException {
+		if (channel.size() < HEADER_SIZE) {
+			return -1;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+		}
+		header.flip();
+		return (header.getInt() == MAGIC) ? header.getLong() : -1;
+	}
+
+	// Apply the valid records of the log to the cube and return the end of the
+	// last valid record
+	private long replay() throws IOException {
+		ByteBuffer log = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		log.position(HEADER_SIZE);
+		while (log.remaining() >= Integer.BYTES) {
+			int start = log.position();
+			int size = log.getInt();
+			if (size <= 0 || size > log.remaining() - Integer.BYTES) {
+				return start;
+			}
+			ByteBuffer body = log.duplicate();
+			body.limit(body.position() + size);
+			body = body.slice();
+			checksum.reset();
+			checksum.update(body);
+			body.rewind();
+			log.position(log.position() + size);
+			if ((int) checksum.getValue() != log.getInt() || !apply(body)) {
+				return start;
+			}
+			replayed++;
+		}
+		return log.position();
+	}
+
+	// Apply a single record to the cube, return false if it cannot be decoded
+	private boolean apply(ByteBuffer body) {
+		try {
+			byte operation = body.get();
+			int x = body.getInt(), y = body.getInt(), z = body.getInt();
+			switch (operation) {
+			case ADD:
+				cube.add(x, y, z, codec.decode(body));
+				return true;
+			case REMOVE:
+				cube.remove(x, y, z, codec.decode(body));
+				return true;
+			case REMOVE_ALL:
+				cube.removeAll(x, y, z);
+				return true;
+			case MOVE:
+				int toX = body.getInt(), toY = body.getInt(), toZ = body.getInt();
+				cube.move(x, y, z, toX, toY, toZ, codec.decode(body));
+				return true;
+			case CLEAR:
+				cube.clear();
+				return true;
+			default:
+				return false;
+			}
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * Forcing the log to the disk takes milliseconds, which is far longer than a
+ * change to the cube. The records are therefore collected in a buffer and many
+ * changes share one sync when they are committed, known as group commit [1].
+ * Appending a record only encodes it into the buffer and updates a CRC-32, so
+ * the cost on the hot path does not depend on the speed of the disk.
+ *
+ * A record is written after the change has been applied, so that a change
+ * rejected by the cube, e.g. an out of bounds position, is never logged. The
+ * change is not durable until it is committed either way. After a crash the
+ * end of the log may hold a record that was only partly written. Every record
+ * carries its length and a checksum, so the replay stops at the first record
+ * that is incomplete or damaged and the log is cut there.
+ *
+ * Replaying a log on top of a state that already contains its records would
+ * apply them twice. The epoch in the header ties the log to one saved state:
+ * the state is saved with the next epoch before the log is reset to it, so a
+ * crash between the two steps leaves a log of an older epoch that is skipped.
+ *
+ * REFERENCE
+ * [1] J. Gray and A. Reuter, Transaction Processing: Concepts and Techniques.
+ * Morgan Kaufmann, 1992.
+ *
+ */
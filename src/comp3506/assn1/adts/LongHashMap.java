@@ -0,0 +1,179 @@
+package comp3506.assn1.adts;
+
+/**
+ * A hash map from primitive long keys to object values, using open addressing
+ * with linear probing. Keys are stored in a primitive array so that no boxing
+ * or entry objects are created on lookup or insertion. A slot is empty when its
+ * value is null, therefore null values cannot be stored.
+ *
+ * Memory Usage: O(n) (n is the number of keys)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <V> The type of value held in the map.
+ *
+ */
+class LongHashMap<V> {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size = 0;
+
+	LongHashMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Return the value mapped to the key.
+	 *
+	 * Time-complexity O(1) expected
+	 *
+	 * @param key The key to look up.
+	 * @return The value mapped to the key, or null if the key is not present.
+	 */
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		int slot = hash(key) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				return (V) values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Map the key to the value, replacing any previous value.
+	 *
+	 * Time-complexity O(1) amortised
+	 *
+	 * @param key   The key to be mapped.
+	 * @param value The value, must not be null.
+	 */
+	void put(long key, V value) {
+		int slot = hash(key) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		// Keep the load factor under 0.5 so that probe sequences stay short
+		if (++size * 2 > values.length) {
+			resize(values.length * 2);
+		}
+	}
+
+	/**
+	 * Remove the key from the map.
+	 *
+	 * Time-complexity O(1) expected
+	 *
+	 * @param key The key to be removed.
+	 * @return The value that was mapped to the key, or null if it was not present.
+	 */
+	@SuppressWarnings("unchecked")
+	V remove(long key) {
+		int slot = hash(key) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				V value = (V) values[slot];
+				shiftBack(slot);
+				size--;
+				return value;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * @return Number of keys in the map.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Remove all keys, keeping the current capacity.
+	 *
+	 * Time-complexity O(c) (c is the capacity of the table)
+	 */
+	void clear() {
+		java.util.Arrays.fill(values, null);
+		size = 0;
+	}
+
+	// Fill the gap at the given slot by moving back later entries of the same
+	// probe sequence, so that lookups never need tombstones
+	private void shiftBack(int gap) {
+		int slot = gap;
+		while (true) {
+			slot = (slot + 1) & mask;
+			if (values[slot] == null) {
+				break;
+			}
+			int home = hash(keys[slot]) & mask;
+			// Move the entry only if its home slot is not between the gap and its slot
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		values[gap] = null;
+	}
+
+	/**
+	 * Grow the table so that the given number of keys fit without resizing.
+	 *
+	 * Time-complexity O(c) (c is the new capacity of the table)
+	 *
+	 * @param expected The number of keys the map is expected to hold.
+	 */
+	void ensureCapacity(int expected) {
+		int capacity = values.length;
+		while (capacity < 2 * (long) expected) {
+			capacity *= 2;
+		}
+		if (capacity > values.length) {
+			resize(capacity);
+		}
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	// Spread the bits of the key so that neighbouring cells do not cluster
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
@@ -0,0 +1,356 @@
+package comp3506.assn1.adts;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A sorted set of Z-order (Morton) codes, used to answer box range queries over
+ * the occupied cells of a cube. The bits of the (x, y, z) coordinates are
+ * interleaved so that cells that are close in space are mostly close in the
+ * order of the codes, and a box turns into a few contiguous ranges of codes.
+ *
+ * The codes are kept in a list of sorted blocks with a directory of the first
+ * code of every block, so that inserting or removing a code only shifts the
+ * codes of one block.
+ *
+ * Memory Usage: O(n) (n is the number of codes)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+class MortonIndex {
+
+	// Number of bits used by each coordinate in a code
+	static final int COORDINATE_BITS = 21;
+	static final int MAX_COORDINATE = (1 << COORDINATE_BITS) - 1;
+
+	// Bits of the x dimension, the y and z dimensions are shifted by 1 and 2
+	private static final long DIMENSION_MASK = 0x1249249249249249L;
+	private static final int BLOCK_SIZE = 256;
+
+	private long[][] blocks = new long[4][];
+	private int[] blockSizes = new int[4];
+	private long[] blockFirst = new long[4];
+	private int blockCount = 0;
+	private int size = 0;
+
+	/**
+	 * Add a code to the index.
+	 *
+	 * Time-complexity O(log n + b) (b is the block size)
+	 *
+	 * @param code The code to be added.
+	 * @return true if the code was added, false if it was already in the index.
+	 */
+	boolean add(long code) {
+		if (blockCount == 0) {
+			insertBlock(0, new long[BLOCK_SIZE]);
+		}
+		int block = findBlock(code);
+		int position = search(block, code);
+		if (position >= 0) {
+			return false;
+		}
+		position = -(position + 1);
+		if (blockSizes[block] == BLOCK_SIZE) {
+			// Split the full block in two halves and insert into the right half
+			long[] right = new long[BLOCK_SIZE];
+			int half = BLOCK_SIZE / 2;
+			System.arraycopy(blocks[block], half, right, 0, BLOCK_SIZE - half);
+			blockSizes[block] = half;
+			insertBlock(block + 1, right);
+			blockSizes[block + 1] = BLOCK_SIZE - half;
+			blockFirst[block + 1] = right[0];
+			if (position > half) {
+				block++;
+				position -= half;
+			}
+		}
+		long[] codes = blocks[block];
+		System.arraycopy(codes, position, codes, position + 1, blockSizes[block] - position);
+		codes[position] = code;
+		blockSizes[block]++;
+		blockFirst[block] = codes[0];
+		size++;
+		return true;
+	}
+
+	/**
+	 * Add a batch of codes to the index. An empty index is built directly from
+	 * the sorted codes, with every block filled to three quarters so that later
+	 * inserts do not split blocks straight away.
+	 *
+	 * Time-complexity O(m log m) when the index is empty, O(m (log n + b))
+	 * otherwise (m is the size of the batch, b is the block size)
+	 *
+	 * @param codes The distinct codes to be added, the array is sorted in place.
+	 * @param count Number of codes at the start of the array to add.
+	 */
+	void addAll(long[] codes, int count) {
+		java.util.Arrays.sort(codes, 0, count);
+		if (size > 0) {
+			for (int i = 0; i < count; i++) {
+				add(codes[i]);
+			}
+			return;
+		}
+		int fill = BLOCK_SIZE * 3 / 4;
+		long[] block = null;
+		for (int i = 0; i < count; i++) {
+			if (block == null || blockSizes[blockCount - 1] == fill) {
+				block = new long[BLOCK_SIZE];
+				insertBlock(blockCount, block);
+				blockFirst[blockCount - 1] = codes[i];
+			}
+			block[blockSizes[blockCount - 1]++] = codes[i];
+			size++;
+		}
+	}
+
+	/**
+	 * Remove a code from the index.
+	 *
+	 * Time-complexity O(log n + b) (b is the block size)
+	 *
+	 * @param code The code to be removed.
+	 * @return true if the code was removed, false if it was not in the index.
+	 */
+	boolean remove(long code) {
+		if (blockCount == 0) {
+			return false;
+		}
+		int block = findBlock(code);
+		int position = search(block, code);
+		if (position < 0) {
+			return false;
+		}
+		long[] codes = blocks[block];
+		System.arraycopy(codes, position + 1, codes, position, blockSizes[block] - position - 1);
+		blockSizes[block]--;
+		size--;
+		if (blockSizes[block] == 0) {
+			removeBlock(block);
+		} else {
+			blockFirst[block] = codes[0];
+		}
+		return true;
+	}
+
+	/**
+	 * @return Number of codes in the index.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Remove all codes from the index.
+	 *
+	 * Time-complexity O(1)
+	 */
+	void clear() {
+		blocks = new long[4][];
+		blockSizes = new int[4];
+		blockFirst = new long[4];
+		blockCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * Visit the codes of all the cells inside a box, in increasing order.
+	 *
+	 * Time-complexity O(k + r log n) (k is the number of codes in the box and r is
+	 * the number of contiguous ranges the box is split into)
+	 *
+	 * @param x0      Lower X coordinate of the box (inclusive).
+	 * @param y0      Lower Y coordinate of the box (inclusive).
+	 * @param z0      Lower Z coordinate of the box (inclusive).
+	 * @param x1      Upper X coordinate of the box (inclusive).
+	 * @param y1      Upper Y coordinate of the box (inclusive).
+	 * @param z1      Upper Z coordinate of the box (inclusive).
+	 * @param visitor Called with the code of every cell in the box.
+	 */
+	void forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1, LongConsumer visitor) {
+		if (size == 0) {
+			return;
+		}
+		long min = encode(x0, y0, z0);
+		long max = encode(x1, y1, z1);
+		int block = findBlock(min);
+		int position = lowerBound(block, min);
+		while (block < blockCount) {
+			if (position >= blockSizes[block]) {
+				block++;
+				position = 0;
+				continue;
+			}
+			long code = blocks[block][position];
+			if (code > max) {
+				return;
+			}
+			if (inBox(code, min, max)) {
+				visitor.accept(code);
+				position++;
+			} else {
+				// Jump to the next code on the curve that is inside the box
+				long next = bigMin(code, min, max);
+				if (next <= code) {
+					return;
+				}
+				block = findBlock(next);
+				position = lowerBound(block, next);
+			}
+		}
+	}
+
+	/**
+	 * Interleave the bits of the coordinates into a Morton code.
+	 *
+	 * @return The Morton code of the cell.
+	 */
+	static long encode(int x, int y, int z) {
+		return spread(x) | (spread(y) << 1) | (spread(z) << 2);
+	}
+
+	static int decodeX(long code) {
+		return compact(code);
+	}
+
+	static int decodeY(long code) {
+		return compact(code >>> 1);
+	}
+
+	static int decodeZ(long code) {
+		return compact(code >>> 2);
+	}
+
+	// Spread the lower 21 bits of the value so that there are two zero bits
+	// between each of them
+	private static long spread(int value) {
+		long v = value & 0x1FFFFFL;
+		v = (v | (v << 32)) & 0x1F00000000FFFFL;
+		v = (v | (v << 16)) & 0x1F0000FF0000FFL;
+		v = (v | (v << 8)) & 0x100F00F00F00F00FL;
+		v = (v | (v << 4)) & 0x10C30C30C30C30C3L;
+		v = (v | (v << 2)) & 0x1249249249249249L;
+		return v;
+	}
+
+	// Reverse of spread
+	private static int compact(long code) {
+		long v = code & 0x1249249249249249L;
+		v = (v | (v >>> 2)) & 0x10C30C30C30C30C3L;
+		v = (v | (v >>> 4)) & 0x100F00F00F00F00FL;
+		v = (v | (v >>> 8)) & 0x1F0000FF0000FFL;
+		v = (v | (v >>> 16)) & 0x1F00000000FFFFL;
+		v = (v | (v >>> 32)) & 0x1FFFFFL;
+		return (int) v;
+	}
+
+	// Masked bits of one dimension keep the order of the coordinate, so each
+	// dimension can be compared without decoding
+	private static boolean inBox(long code, long min, long max) {
+		for (int dimension = 0; dimension < 3; dimension++) {
+			long mask = DIMENSION_MASK << dimension;
+			long value = code & mask;
+			if (value < (min & mask) || value > (max & mask)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Smallest code greater than the given code that is inside the box [1]
+	private static long bigMin(long code, long min, long max) {
+		long bigMin = 0;
+		for (int bit = 3 * COORDINATE_BITS - 1; bit >= 0; bit--) {
+			long mask = 1L << bit;
+			long below = (DIMENSION_MASK << (bit % 3)) & (mask - 1);
+			boolean codeBit = (code & mask) != 0;
+			boolean minBit = (min & mask) != 0;
+			boolean maxBit = (max & mask) != 0;
+			if (!codeBit && !minBit && maxBit) {
+				bigMin = (min & ~below) | mask;
+				max = (max & ~mask) | below;
+			} else if (!codeBit && minBit && maxBit) {
+				return min;
+			} else if (codeBit && !minBit && !maxBit) {
+				return bigMin;
+			} else if (codeBit && !minBit && maxBit) {
+				min = (min & ~below) | mask;
+			}
+		}
+		return bigMin;
+	}
+
+	// Index of the last block whose first code is not greater than the code
+	private int findBlock(long code) {
+		int low = 0;
+		int high = blockCount - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (blockFirst[middle] <= code) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	// Position of the code in the block, or -(insertion point + 1) if not found
+	private int search(int block, long code) {
+		return java.util.Arrays.binarySearch(blocks[block], 0, blockSizes[block], code);
+	}
+
+	// Position of the first code in the block that is not less than the code
+	private int lowerBound(int block, long code) {
+		int position = search(block, code);
+		return (position >= 0) ? position : -(position + 1);
+	}
+
+	private void insertBlock(int block, long[] codes) {
+		if (blockCount == blocks.length) {
+			blocks = java.util.Arrays.copyOf(blocks, blockCount * 2);
+			blockSizes = java.util.Arrays.copyOf(blockSizes, blockCount * 2);
+			blockFirst = java.util.Arrays.copyOf(blockFirst, blockCount * 2);
+		}
+		System.arraycopy(blocks, block, blocks, block + 1, blockCount - block);
+		System.arraycopy(blockSizes, block, blockSizes, block + 1, blockCount - block);
+		System.arraycopy(blockFirst, block, blockFirst, block + 1, blockCount - block);
+		blocks[block] = codes;
+		blockSizes[block] = 0;
+		blockCount++;
+	}
+
+	private void removeBlock(int block) {
+		System.arraycopy(blocks, block + 1, blocks, block, blockCount - block - 1);
+		System.arraycopy(blockSizes, block + 1, blockSizes, block, blockCount - block - 1);
+		System.arraycopy(blockFirst, block + 1, blockFirst, block, blockCount - block - 1);
+		blockCount--;
+		blocks[blockCount] = null;
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * A box of the air space covers millions of cells but usually only a few of them
+ * are occupied. Sorting the occupied cells by their Morton code [1] keeps the
+ * cells of a small box in a few contiguous runs, and when the scan leaves the
+ * box the BIGMIN calculation [1] gives the next code that is back inside it, so
+ * the scan jumps over the runs outside the box with a binary search. The cost
+ * of a query depends on the number of occupied cells in the box and not on the
+ * volume of the box.
+ *
+ * A single sorted array would need to shift half of the codes on every insert,
+ * so the codes are split into blocks of at most 256 codes, similar to the leaf
+ * level of a B-tree [2 pp. 682].
+ *
+ * REFERENCE
+ * [1] H. Tropf and H. Herzog, Multidimensional range search in dynamically
+ * balanced trees. Angewandte Informatik, 1981.
+ * [2] M. T. Goodrich, R. Tamassia, and M. H. Goldwasser, Data
+ * structures and algorithms in Java. John Wiley & Sons, 2014.
+ *
+ */
@@ -0,0 +1,341 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A bounded queue that many threads can enqueue to at the same time while a
+ * single thread dequeues from it, without any lock. When the queue is full,
+ * enqueue follows the backpressure policy given to the constructor.
+ *
+ * Only the consumer thread may dequeue from or iterate over the queue.
+ *
+ * Memory Usage: O(c) (c is the capacity, rounded up to a power of two)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> Type of the elements held in the queue.
+ *
+ */
+public class MpscBoundedQueue<T> implements IterableQueue<T> {
+
+	/**
+	 * What enqueue does when the queue is full.
+	 */
+	public enum Backpressure {
+		/** Throw IllegalStateException, the element is not added. */
+		REJECT,
+		/** Wait until the consumer has made room for the element. */
+		BLOCK,
+		/** Discard the oldest element of the queue to make room for the element. */
+		DROP_OLDEST
+	}
+
+	private final AtomicReferenceArray<T> elements;
+	// Each slot has a sequence number: slot i is free for the enqueue number p
+	// when its sequence is p, and holds the element of enqueue number p when its
+	// sequence is p + 1
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong();	// Number of the next dequeue
+	private final AtomicLong tail = new AtomicLong();	// Number of the next enqueue
+	private final AtomicLong dropped = new AtomicLong();
+	private final Backpressure backpressure;
+	private final Consumer<? super T> onDrop;	// Receives the elements discarded by DROP_OLDEST
+
+	/**
+	 * MpscBoundedQueue constructor
+	 *
+	 * Time-complexity O(c) (c is the capacity)
+	 *
+	 * @param capacity     Maximum number of elements in the queue, rounded up to
+	 *                     a power of two of at least 2.
+	 * @param backpressure What enqueue does when the queue is full.
+	 * @throws IllegalArgumentException If the capacity is not positive or larger
+	 *                                  than 2^30, or the backpressure is null.
+	 */
+	public MpscBoundedQueue(int capacity, Backpressure backpressure) throws IllegalArgumentException {
+		this(capacity, backpressure, element -> {});
+	}
+
+	/**
+	 * Create a queue that tells the caller about each element it discards, so
+	 * that whatever the caller keeps about the queued elements stays in step.
+	 *
+	 * Time-complexity O(c) (c is the capacity)
+	 *
+	 * @param capacity     Maximum number of elements in the queue, rounded up to
+	 *                     a power of two of at least 2.
+	 * @param backpressure What enqueue does when the queue is full.
+	 * @param onDrop       Receives each element discarded by DROP_OLDEST, on the
+	 *                     thread of the producer that discarded it.
+	 * @throws IllegalArgumentException If the capacity is not positive or larger
+	 *                                  than 2^30, or the backpressure or onDrop
+	 *                                  is null.
+	 */
+	public MpscBoundedQueue(int capacity, Backpressure backpressure, Consumer<? super T> onDrop)
+			throws IllegalArgumentException {
+		if (onDrop == null || capacity <= 0 || capacity > (1 << 30) || backpressure == null) {
+			throw new IllegalArgumentException();
+		}
+		// A single slot would be free for the next enqueue as soon as it is filled
+		int slots = Math.max(Integer.highestOneBit(capacity), 2);
+		if (slots < capacity) {
+			slots <<= 1;
+		}
+		elements = new AtomicReferenceArray<>(slots);
+		sequences = new AtomicLongArray(slots);
+		for (int i = 0; i < slots; i++) {
+			sequences.set(i, i);
+		}
+		mask = slots - 1;
+		this.backpressure = backpressure;
+		this.onDrop = onDrop;
+	}
+
+	/**
+	 * Return a new Iterator over the elements that were in the queue when it is
+	 * called. Only the consumer thread may iterate.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new MpscIterator(head.get(), tail.get());
+	}
+
+	/**
+	 * Add a new element to the end of the queue. May be called by any number of
+	 * threads at the same time.
+	 *
+	 * Time-complexity O(1) without contention (O(p) retries with p producers,
+	 * and unbounded waiting for BLOCK while the queue is full)
+	 *
+	 * @param element The element to be added to the queue.
+	 * @throws IllegalStateException Queue is full and the backpressure is REJECT.
+	 *
+	 */
+	@Override
+	public void enqueue(T element) throws IllegalStateException {
+		int spins = 0;
+		while (!offer(element)) {
+			switch (backpressure) {
+			case REJECT:
+				throw new IllegalStateException();
+			case DROP_OLDEST:
+				T oldest = poll();
+				if (oldest != null) {
+					dropped.incrementAndGet();
+					onDrop.accept(oldest);
+				}
+				break;
+			default:
+				// Retry at once for a short while, then let the consumer's thread run
+				spins++;
+				if (spins >= 64) {
+					LockSupport.parkNanos(1000);
+				} else if (spins >= 16) {
+					Thread.yield();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add a new element to the end of the queue if there is room for it,
+	 * whatever the backpressure. May be called by any number of threads at the
+	 * same time.
+	 *
+	 * Time-complexity O(1) without contention
+	 *
+	 * @param element The element to be added to the queue.
+	 * @return true if the element was added, false if the queue is full.
+	 */
+	public boolean offer(T element) {
+		long position = tail.get();
+		while (true) {
+			int slot = (int) position & mask;
+			long difference = sequences.get(slot) - position;
+			if (difference == 0) {
+				// The slot is free, claim it
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.set(slot, element);
+					sequences.set(slot, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				// The slot still holds the element of the previous lap
+				return false;
+			} else {
+				// Another producer has claimed the slot
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Remove and return the element at the head of the queue. If a producer has
+	 * claimed the head but not yet stored its element, wait for the element.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return Element at that was at the head of the queue.
+	 * @throws IndexOutOfBoundsException Queue is empty and nothing can be dequeued
+	 *
+	 */
+	@Override
+	public T dequeue() throws IndexOutOfBoundsException {
+		while (true) {
+			T element = poll();
+			if (element != null) {
+				return element;
+			}
+			if (tail.get() == head.get()) {
+				throw new IndexOutOfBoundsException();
+			}
+			// The producer is between claiming the slot and storing its element
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Remove and return the element at the head of the queue. Producers only
+	 * call this to drop the oldest element.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return Element that was at the head of the queue, or null if the head
+	 *         holds no element yet.
+	 */
+	public T poll() {
+		long position = head.get();
+		while (true) {
+			int slot = (int) position & mask;
+			long difference = sequences.get(slot) - (position + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					T element = elements.get(slot);
+					elements.set(slot, null);
+					// Free the slot for the enqueue of the next lap
+					sequences.set(slot, position + mask + 1);
+					return element;
+				}
+				position = head.get();
+			} else if (difference < 0) {
+				return null;
+			} else {
+				position = head.get();
+			}
+		}
+	}
+
+	/**
+	 * @return Number of elements in the queue, including those whose producer
+	 *         has not finished storing them.
+	 *
+	 *         Time-complexity O(1)
+	 *
+	 */
+	@Override
+	public int size() {
+		// Read the head first, so the difference is never negative
+		long first = head.get();
+		return (int) Math.min(Math.max(tail.get() - first, 0), mask + 1);
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of elements discarded so far by DROP_OLDEST.
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Maximum number of elements in the queue.
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Nested Iterator class for MpscBoundedQueue, it visits the elements that
+	 * were between the head and the tail when it was created and are still in
+	 * the queue. It cannot remove elements, as the producers may be writing to
+	 * the slots after them.
+	 */
+	private class MpscIterator implements Iterator<T> {
+		private long position;
+		private final long end;
+		private T nextElement = null;
+
+		MpscIterator(long position, long end) {
+			this.position = position;
+			this.end = end;
+			advance();
+		}
+
+		// Find the next slot that holds the element of its enqueue number
+		private void advance() {
+			nextElement = null;
+			while (nextElement == null && position < end) {
+				int slot = (int) position & mask;
+				if (sequences.get(slot) == position + 1) {
+					nextElement = elements.get(slot);
+				}
+				position++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextElement != null);
+		}
+
+		@Override
+		public T next() {
+			if (nextElement == null)
+				throw new NoSuchElementException();
+			T element = nextElement;
+			advance();
+			return element;
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * Each radar site can feed the tracker from its own thread, so the radar queue
+ * has to accept elements from many threads at the same time. A lock around a
+ * linked queue would make the radar threads wait for each other on every
+ * report. The queue is an array of slots with a sequence number per slot [1]:
+ * a producer claims the next enqueue number with a single compare-and-set on
+ * the tail, stores its element in the slot of that number and then publishes
+ * the slot by setting its sequence. Producers that claim different numbers
+ * never touch the same slot, and the consumer only reads a slot once its
+ * sequence says that the element is there.
+ *
+ * The queue is bounded, so that radar sites that report faster than the
+ * tracker processes cannot use up the memory. The caller chooses what happens
+ * to a report that does not fit: it is rejected, the radar thread waits for
+ * room (spinning briefly, then yielding and parking), or the oldest report is discarded
+ * because a newer report of the air space is worth more than an old one. A
+ * producer discards the oldest element with the same compare-and-set on the
+ * head as the consumer, so the two never take the same element.
+ *
+ * The capacity is rounded up to a power of two so that the slot of an enqueue
+ * number is found with a mask, and the 64-bit numbers do not wrap around.
+ *
+ * REFERENCE
+ * [1] D. Vyukov, Bounded MPMC queue. 1024cores.net.
+ *
+ */
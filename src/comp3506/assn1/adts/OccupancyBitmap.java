@@ -0,0 +1,399 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * A compressed bitmap of the occupied (x, y) cells of one altitude layer. A
+ * cell is numbered y * width + x, and the numbers are split into chunks of
+ * 65536 by their high bits. Each chunk that holds at least one cell has a
+ * container for the low 16 bits of its cells: a sorted array while the chunk
+ * is sparse, or a bitmap of 1024 words once it holds more than 4096 cells.
+ *
+ * Memory Usage: O(min(n, c / 8)) (n is the number of occupied cells, c is the
+ * number of cells of the layer)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+class OccupancyBitmap {
+
+	// A sorted array of more than 4096 values would be larger than a bitmap
+	private static final int ARRAY_LIMIT = 4096;
+	private static final int BITMAP_WORDS = 1024;
+
+	private final int width;
+	private int[] keys = new int[4];
+	private Container[] containers = new Container[4];
+	private int count = 0;
+	private int cardinality = 0;
+	// Array containers of chunks that have been emptied, reused for new chunks so
+	// that traffic moving between chunks does not allocate
+	private Container[] spares = new Container[4];
+	private int spareCount = 0;
+
+	/**
+	 * OccupancyBitmap constructor
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @param width Number of cells in a row of the layer.
+	 */
+	OccupancyBitmap(int width) {
+		this.width = width;
+	}
+
+	/**
+	 * Mark a cell as occupied.
+	 *
+	 * Time-complexity O(log k + a) (k is the number of containers, a is the
+	 * array limit)
+	 *
+	 * @return true if the cell was not occupied before, false otherwise.
+	 */
+	boolean add(int x, int y) {
+		long cell = cell(x, y);
+		int position = find(high(cell));
+		if (position < 0) {
+			position = -(position + 1);
+			insertContainer(position, high(cell));
+		}
+		Container container = containers[position];
+		if (!container.add(low(cell))) {
+			return false;
+		}
+		if (container.cardinality > ARRAY_LIMIT && container.values != null) {
+			containers[position] = container.toBitmap();
+		}
+		cardinality++;
+		return true;
+	}
+
+	/**
+	 * Mark a cell as empty.
+	 *
+	 * Time-complexity O(log k + a) (k is the number of containers, a is the
+	 * array limit)
+	 *
+	 * @return true if the cell was occupied before, false otherwise.
+	 */
+	boolean remove(int x, int y) {
+		long cell = cell(x, y);
+		int position = find(high(cell));
+		if (position < 0) {
+			return false;
+		}
+		Container container = containers[position];
+		if (!container.remove(low(cell))) {
+			return false;
+		}
+		if (container.cardinality == 0) {
+			removeContainer(position);
+		} else if (container.cardinality <= ARRAY_LIMIT && container.words != null) {
+			containers[position] = container.toArray();
+		}
+		cardinality--;
+		return true;
+	}
+
+	/**
+	 * Time-complexity O(log k + log a) (k is the number of containers, a is the
+	 * array limit)
+	 *
+	 * @return true if the cell is occupied, false otherwise.
+	 */
+	boolean contains(int x, int y) {
+		long cell = cell(x, y);
+		int position = find(high(cell));
+		return position >= 0 && containers[position].contains(low(cell));
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return true if no cell is occupied, false otherwise.
+	 */
+	boolean isEmpty() {
+		return cardinality == 0;
+	}
+
+	/**
+	 * Time-complexity O(1)
+	 *
+	 * @return Number of occupied cells.
+	 */
+	int cardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * Count the occupied cells inside a rectangle, the rectangle includes its
+	 * corners. Each row of the rectangle is a range of cell numbers, which is
+	 * counted a word at a time in a bitmap and by binary search in an array.
+	 *
+	 * Time-complexity O(r (log k + w)) (r is the number of rows, k is the number
+	 * of containers, w is the number of words in a row)
+	 *
+	 * @return Number of occupied cells in the rectangle.
+	 */
+	int count(int x0, int y0, int x1, int y1) {
+		if (cardinality == 0) {
+			return 0;
+		}
+		int total = 0;
+		for (int y = y0; y <= y1; y++) {
+			total += countRange(cell(x0, y), cell(x1, y));
+		}
+		return total;
+	}
+
+	/**
+	 * Visit every occupied cell, in order of y and then x.
+	 *
+	 * Time-complexity O(n + k) (n is the number of occupied cells, k is the
+	 * number of containers)
+	 *
+	 * @param z       Z Coordinate passed to the visitor.
+	 * @param visitor Called with the position of every occupied cell.
+	 */
+	void forEach(int z, CellVisitor visitor) {
+		for (int i = 0; i < count; i++) {
+			long base = (long) keys[i] << 16;
+			Container container = containers[i];
+			if (container.values != null) {
+				for (int j = 0; j < container.cardinality; j++) {
+					visit(base | container.values[j], z, visitor);
+				}
+			} else {
+				long[] words = container.words;
+				for (int w = 0; w < BITMAP_WORDS; w++) {
+					// Only the set bits of each word are visited
+					for (long word = words[w]; word != 0; word &= word - 1) {
+						visit(base | (w << 6) | Long.numberOfTrailingZeros(word), z, visitor);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mark all cells as empty.
+	 *
+	 * Time-complexity O(1)
+	 */
+	void clear() {
+		keys = new int[4];
+		containers = new Container[4];
+		spares = new Container[4];
+		count = 0;
+		spareCount = 0;
+		cardinality = 0;
+	}
+
+	private void visit(long cell, int z, CellVisitor visitor) {
+		visitor.visit((int) (cell % width), (int) (cell / width), z);
+	}
+
+	// Number of occupied cells numbered from first to last, inclusive
+	private int countRange(long first, long last) {
+		int position = find(high(first));
+		if (position < 0) {
+			position = -(position + 1);
+		}
+		int total = 0;
+		for (; position < count && keys[position] <= high(last); position++) {
+			int from = (keys[position] == high(first)) ? low(first) : 0;
+			int to = (keys[position] == high(last)) ? low(last) : 0xFFFF;
+			total += containers[position].count(from, to);
+		}
+		return total;
+	}
+
+	private long cell(int x, int y) {
+		return (long) y * width + x;
+	}
+
+	private static int high(long cell) {
+		return (int) (cell >>> 16);
+	}
+
+	private static char low(long cell) {
+		return (char) cell;
+	}
+
+	// Position of the container of the key, or -(insertion point + 1)
+	private int find(int key) {
+		return Arrays.binarySearch(keys, 0, count, key);
+	}
+
+	private void insertContainer(int position, int key) {
+		if (count == keys.length) {
+			keys = Arrays.copyOf(keys, count * 2);
+			containers = Arrays.copyOf(containers, count * 2);
+		}
+		System.arraycopy(keys, position, keys, position + 1, count - position);
+		System.arraycopy(containers, position, containers, position + 1, count - position);
+		keys[position] = key;
+		containers[position] = (spareCount > 0) ? spares[--spareCount] : new Container(new char[4]);
+		spares[spareCount] = null;
+		count++;
+	}
+
+	private void removeContainer(int position) {
+		if (containers[position].values != null) {
+			if (spareCount == spares.length) {
+				spares = Arrays.copyOf(spares, spareCount * 2);
+			}
+			spares[spareCount++] = containers[position];
+		}
+		System.arraycopy(keys, position + 1, keys, position, count - position - 1);
+		System.arraycopy(containers, position + 1, containers, position, count - position - 1);
+		count--;
+		containers[count] = null;
+	}
+
+	/**
+	 * The low 16 bits of the occupied cells of one chunk, stored either in a
+	 * sorted array (values) or in a bitmap (words).
+	 */
+	private static class Container {
+		private char[] values;
+		private long[] words;
+		private int cardinality = 0;
+
+		Container(char[] values) {
+			this.values = values;
+		}
+
+		Container(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		boolean add(char value) {
+			if (words != null) {
+				long bit = 1L << value;
+				if ((words[value >>> 6] & bit) != 0) {
+					return false;
+				}
+				words[value >>> 6] |= bit;
+				cardinality++;
+				return true;
+			}
+			int position = Arrays.binarySearch(values, 0, cardinality, value);
+			if (position >= 0) {
+				return false;
+			}
+			position = -(position + 1);
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_LIMIT + 1));
+			}
+			System.arraycopy(values, position, values, position + 1, cardinality - position);
+			values[position] = value;
+			cardinality++;
+			return true;
+		}
+
+		boolean remove(char value) {
+			if (words != null) {
+				long bit = 1L << value;
+				if ((words[value >>> 6] & bit) == 0) {
+					return false;
+				}
+				words[value >>> 6] &= ~bit;
+				cardinality--;
+				return true;
+			}
+			int position = Arrays.binarySearch(values, 0, cardinality, value);
+			if (position < 0) {
+				return false;
+			}
+			System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+			cardinality--;
+			return true;
+		}
+
+		boolean contains(char value) {
+			if (words != null) {
+				return (words[value >>> 6] & (1L << value)) != 0;
+			}
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+
+		// Number of values from first to last, inclusive
+		int count(int first, int last) {
+			if (words == null) {
+				return lowerBound(last + 1) - lowerBound(first);
+			}
+			int firstWord = first >>> 6;
+			int lastWord = last >>> 6;
+			// Mask off the bits before first and after last
+			long firstMask = -1L << first;
+			long lastMask = -1L >>> (63 - (last & 63));
+			if (firstWord == lastWord) {
+				return Long.bitCount(words[firstWord] & firstMask & lastMask);
+			}
+			int total = Long.bitCount(words[firstWord] & firstMask);
+			for (int w = firstWord + 1; w < lastWord; w++) {
+				total += Long.bitCount(words[w]);
+			}
+			return total + Long.bitCount(words[lastWord] & lastMask);
+		}
+
+		// Position of the first value that is not less than the given value
+		private int lowerBound(int value) {
+			int low = 0;
+			int high = cardinality;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (values[middle] < value) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		Container toBitmap() {
+			long[] bitmap = new long[BITMAP_WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				bitmap[values[i] >>> 6] |= 1L << values[i];
+			}
+			return new Container(bitmap, cardinality);
+		}
+
+		Container toArray() {
+			Container array = new Container(new char[cardinality]);
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				for (long word = words[w]; word != 0; word &= word - 1) {
+					array.values[array.cardinality++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+				}
+			}
+			return array;
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * A layer of the air space has 18 million cells, so a plain bitmap of a layer
+ * takes 2.3 MB even when only a handful of cells are occupied, while a sorted
+ * list of the occupied cells has to be walked node by node. Roaring bitmaps [1]
+ * split the cell numbers into chunks of 65536 and pick the cheaper form for each
+ * chunk: a sorted array of 16-bit values costs 2 bytes per occupied cell, and a
+ * bitmap of 8 KB takes over once a chunk holds more than 4096 cells. Sparse
+ * layers stay small and the busy chunks around the airports become bitmaps.
+ *
+ * Counting the cells of a rectangle turns each row into a range of cell
+ * numbers. In a bitmap the range is counted with one population count per 64
+ * cells, and in an array with two binary searches, so the count does not
+ * depend on the number of occupied cells. Enumerating a bitmap only visits the
+ * set bits of each word by clearing the lowest set bit.
+ *
+ * REFERENCE
+ * [1] S. Chambi, D. Lemire, O. Kaser and R. Godin, Better bitmap performance
+ * with Roaring bitmaps. Software: Practice and Experience, 2016.
+ *
+ */
@@ -0,0 +1,221 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * RingBufferQueue implements IterableQueue on a circular array. The array
+ * doubles when it is full, unless the queue was created with a fixed capacity,
+ * in which case enqueue throws IllegalStateException once the queue is full.
+ *
+ * Memory Usage: O(c) (c is the capacity of the array, at most twice the
+ * largest number of elements the queue has held)
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ * @param <T> Type of the elements held in the queue.
+ *
+ */
+public class RingBufferQueue<T> implements IterableQueue<T> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Object[] elements;
+	private int head = 0;	// Index of the first element
+	private int size = 0;
+	private final boolean fixed;
+
+	/**
+	 * Create a queue that grows as needed.
+	 *
+	 * Time-complexity O(1)
+	 */
+	public RingBufferQueue() {
+		elements = new Object[INITIAL_CAPACITY];
+		fixed = false;
+	}
+
+	/**
+	 * Create a queue that holds at most the given number of elements.
+	 *
+	 * Time-complexity O(c) (c is the capacity)
+	 *
+	 * @param capacity Maximum number of elements in the queue.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	public RingBufferQueue(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		elements = new Object[capacity];
+		fixed = true;
+	}
+
+	/**
+	 * Return new Iterator object each time it is called.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new RingBufferIterator();
+	}
+
+	/**
+	 * Add a new element to the end of the queue.
+	 *
+	 * Time-complexity O(1) amortised
+	 *
+	 * @param element The element to be added to the queue.
+	 * @throws IllegalStateException Queue has a fixed capacity and is full.
+	 *
+	 */
+	@Override
+	public void enqueue(T element) throws IllegalStateException {
+		if (size == elements.length) {
+			if (fixed) {
+				throw new IllegalStateException();
+			}
+			grow();
+		}
+		elements[index(size)] = element;
+		size++;
+	}
+
+	/**
+	 * Remove and return the element at the head of the queue.
+	 *
+	 * Time-complexity O(1)
+	 *
+	 * @return Element at that was at the head of the queue.
+	 * @throws IndexOutOfBoundsException Queue is empty and nothing can be dequeued
+	 *
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T dequeue() throws IndexOutOfBoundsException {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		T element = (T) elements[head];
+		// Let the element go
+		elements[head] = null;
+		head = index(1);
+		size--;
+		return element;
+	}
+
+	/**
+	 * @return Number of elements in the queue.
+	 *
+	 *         Time-complexity O(1)
+	 *
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Perform the action on each element of the queue, from first to last, by
+	 * reading the array directly so that no Iterator is created.
+	 *
+	 * Time-complexity O(n) (n is the number of elements in the queue)
+	 *
+	 * @param action The action to be performed on each element.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super T> action) {
+		// The elements are at most two runs of the array: from the head to the
+		// end of the array, and from the start of the array
+		int first = Math.min(size, elements.length - head);
+		for (int i = head; i < head + first; i++) {
+			action.accept((T) elements[i]);
+		}
+		for (int i = 0; i < size - first; i++) {
+			action.accept((T) elements[i]);
+		}
+	}
+
+	// Index in the array of the element at the given distance from the head
+	private int index(int offset) {
+		int index = head + offset;
+		return (index >= elements.length) ? index - elements.length : index;
+	}
+
+	// Double the array, moving the elements to its start
+	private void grow() {
+		Object[] larger = new Object[elements.length * 2];
+		int first = elements.length - head;
+		System.arraycopy(elements, head, larger, 0, first);
+		System.arraycopy(elements, 0, larger, first, head);
+		elements = larger;
+		head = 0;
+	}
+
+	/**
+	 * Nested Iterator class for RingBufferQueue
+	 */
+	private class RingBufferIterator implements Iterator<T> {
+		private int next = 0;	// Distance of the next element from the head
+		private boolean removable = false;	// Whether the last element returned may be removed
+
+		@Override
+		public boolean hasNext() {
+			return (next < size);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (next >= size)
+				throw new NoSuchElementException();
+			removable = true;
+			return (T) elements[index(next++)];
+		}
+
+		/**
+		 * Remove the last element returned, moving the elements after it one
+		 * slot towards the head.
+		 *
+		 * Time-complexity O(n) (n is the number of elements in the queue)
+		 */
+		@Override
+		public void remove() {
+			if (!removable)
+				throw new IllegalStateException();
+			for (int i = next - 1; i < size - 1; i++) {
+				elements[index(i)] = elements[index(i + 1)];
+			}
+			elements[index(size - 1)] = null;
+			size--;
+			next--;
+			removable = false;
+		}
+	}
+
+}
+
+/**
+ * Design choices justification:
+ *
+ * A linked queue allocates a node for every element it receives, and walking it
+ * follows one pointer per element to wherever the node was allocated. The radar
+ * queue receives every report of every aircraft, so a circular array [1] is used
+ * instead: enqueue and dequeue only move the tail and the head around the
+ * array, nothing is allocated once the array is large enough, and iteration
+ * reads consecutive slots. When a growable queue is full, its array is doubled,
+ * so enqueue takes O(1) amortised time.
+ *
+ * A queue created with a fixed capacity never grows, and enqueue throws
+ * IllegalStateException once it is full, as IterableQueue allows.
+ *
+ * The queues of the cells of the cubes stay linked: they usually hold a single
+ * aircraft, an array would reserve 16 slots for it, and moving an aircraft
+ * between cells relinks its node instead of copying.
+ *
+ * REFERENCE
+ * [1] M. T. Goodrich, R. Tamassia, and M. H. Goldwasser, Data
+ * structures and algorithms in Java. John Wiley & Sons, 2014.
+ *
+ */
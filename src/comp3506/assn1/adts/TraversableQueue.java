@@ -1,7 +1,9 @@
 package comp3506.assn1.adts;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
  * TraversableQueue implement IterableQueue with ability to iterate over all the
@@ -19,13 +21,14 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 	private Node<T> head = null;
 	private Node<T> tail = null;
 	private int size = 0;
+	private Pool<T> pool = null;	// Spare nodes of the cube that owns the queue, if any
 
 	/**
 	 * Return new Iterator object each time it is called.
 	 */
 	@Override
 	public Iterator<T> iterator() {
-		return new TraversableQueueIterator<T>(head);
+		return new TraversableQueueIterator();
 	}
 
 	/**
@@ -40,7 +43,7 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 	 */
 	@Override
 	public void enqueue(T element) throws IllegalStateException {
-		Node<T> newNode = new Node<>(element, null);
+		Node<T> newNode = (pool == null) ? new Node<>(element, null) : pool.node(element);
 		if (size == 0)
 			head = newNode;
 		else
@@ -50,7 +53,8 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 	}
 
 	/**
-	 * Remove and return the element at the head of the queue.
+	 * Remove and return the element at the head of the queue. The node goes back
+	 * to the pool of the queue, if it has one.
 	 * 
 	 * Time-complexity O(1)
 	 * 
@@ -62,11 +66,14 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 	public T dequeue() throws IndexOutOfBoundsException {
 		if (size == 0)
 			throw new IndexOutOfBoundsException();
-		T element = head.getElement();
-		head = head.getNext();
+		Node<T> node = head;
+		T element = node.getElement();
+		head = node.getNext();
 		size--;
 		if (size == 0)
 			tail = null;
+		if (pool != null)
+			pool.release(node);
 		return element;
 	}
 
@@ -82,18 +89,141 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 	}
 
 	/**
-	 * Nested Iterator class for TraversableQueue
-	 *
-	 * @param <E> The type of element held in the Node.
-	 *
+	 * Check whether the queue holds the element.
+	 * 
+	 * Time-complexity O(n) (n is the number of elements in the queue)
+	 * 
+	 * @param element The element to look for.
+	 * @return true if an element of the queue equals the given element.
+	 */
+	boolean contains(T element) {
+		for (Node<T> node = head; node != null; node = node.getNext()) {
+			if (node.getElement().equals(element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Unlink the first node holding the element. The node goes back to the pool
+	 * of the queue, if it has one, so nothing is allocated or copied.
+	 * 
+	 * Time-complexity O(n) (n is the number of elements in the queue)
+	 * 
+	 * @param element The element to be removed.
+	 * @return true if the element was removed, false if it was not in the queue.
+	 */
+	@Override
+	public boolean remove(T element) {
+		Node<T> previous = null;
+		for (Node<T> node = head; node != null; previous = node, node = node.getNext()) {
+			if (node.getElement().equals(element)) {
+				unlink(previous, node);
+				if (pool != null) {
+					pool.release(node);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Move the first node holding the element to the end of a queue, which may be
+	 * this queue. The node itself is relinked, so nothing is allocated.
+	 * 
+	 * Time-complexity O(n) (n is the number of elements in the queue)
+	 * 
+	 * @param element The element to be moved.
+	 * @param target  The queue that receives the element.
+	 * @return true if the element was moved, false if it was not in the queue.
+	 */
+	boolean transferTo(T element, TraversableQueue<T> target) {
+		Node<T> previous = null;
+		for (Node<T> node = head; node != null; previous = node, node = node.getNext()) {
+			if (node.getElement().equals(element)) {
+				unlink(previous, node);
+				// and link it at the end of the target queue
+				node.setNext(null);
+				if (target.size == 0) {
+					target.head = node;
+				} else {
+					target.tail.setNext(node);
+				}
+				target.tail = node;
+				target.size++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Unlink every node holding the element. The nodes go back to the pool of the
+	 * queue, if it has one.
+	 * 
+	 * Time-complexity O(n) (n is the number of elements in the queue)
+	 * 
+	 * @param element The element to be removed.
+	 * @return Number of nodes that were removed.
 	 */
-	private class TraversableQueueIterator<E> implements Iterator<E> {
-		private Node<E> currentNode = null;
-		private Node<E> nextNode = null;
+	int removeEvery(T element) {
+		int removed = 0;
+		Node<T> previous = null;
+		Node<T> node = head;
+		while (node != null) {
+			Node<T> next = node.getNext();
+			if (node.getElement().equals(element)) {
+				unlink(previous, node);
+				if (pool != null) {
+					pool.release(node);
+				}
+				removed++;
+			} else {
+				previous = node;
+			}
+			node = next;
+		}
+		return removed;
+	}
+
+	// Unlink the node that follows previous, or the head if previous is null
+	private void unlink(Node<T> previous, Node<T> node) {
+		if (previous == null) {
+			head = node.getNext();
+		} else {
+			previous.setNext(node.getNext());
+		}
+		if (node == tail) {
+			tail = previous;
+		}
+		size--;
+	}
 
-		TraversableQueueIterator(Node<E> firstNode) {
-			this.nextNode = firstNode;
+	/**
+	 * Perform the action on each element of the queue, from first to last, by
+	 * walking the nodes directly so that no Iterator is created.
+	 * 
+	 * Time-complexity O(n) (n is the number of elements in the queue)
+	 * 
+	 * @param action The action to be performed on each element.
+	 */
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		for (Node<T> node = head; node != null; node = node.getNext()) {
+			action.accept(node.getElement());
 		}
+	}
+
+	/**
+	 * Nested Iterator class for TraversableQueue, remove unlinks the node of the
+	 * last element returned in place.
+	 */
+	private class TraversableQueueIterator implements Iterator<T> {
+		private Node<T> previousNode = null;	// Node before currentNode, null at the head
+		private Node<T> currentNode = null;	// Node of the last element returned, null once removed
+		private Node<T> nextNode = head;
 
 		@Override
 		public boolean hasNext() {
@@ -101,14 +231,110 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 		}
 
 		@Override
-		public E next() {
+		public T next() {
 			if (nextNode == null)
 				throw new NoSuchElementException();
+			if (currentNode != null)
+				previousNode = currentNode;
 			currentNode = nextNode;
-			E element = currentNode.getElement();
+			T element = currentNode.getElement();
 			nextNode = nextNode.getNext();
 			return element;
 		}
+
+		/**
+		 * Time-complexity O(1)
+		 */
+		@Override
+		public void remove() {
+			if (currentNode == null)
+				throw new IllegalStateException();
+			unlink(previousNode, currentNode);
+			if (pool != null) {
+				pool.release(currentNode);
+			}
+			currentNode = null;
+		}
+	}
+
+	/**
+	 * Free lists of the nodes and of the empty queues given back by the queues of
+	 * one cube, so that a cube whose number of elements stays about the same does
+	 * not allocate. The pool never shrinks, it holds at most as many nodes and
+	 * queues as the cube held at its peak. A queue is reused as soon as it is
+	 * given back, so the cube must not hand its queues out to be kept: getAll
+	 * returns a copy of the queue of the cell.
+	 * 
+	 * The pool is not synchronised, it is guarded by whatever guards the cube that
+	 * owns it.
+	 *
+	 * @param <E> The type of element held in the queues.
+	 *
+	 */
+	static class Pool<E> {
+		private Node<E> nodes = null;
+		private TraversableQueue<E>[] queues;
+		private int spareQueues = 0;
+
+		@SuppressWarnings("unchecked")
+		Pool() {
+			queues = (TraversableQueue<E>[]) new TraversableQueue<?>[16];
+		}
+
+		/**
+		 * Time-complexity O(1) amortised
+		 * 
+		 * @return An empty queue whose nodes come from this pool.
+		 */
+		TraversableQueue<E> queue() {
+			if (spareQueues == 0) {
+				TraversableQueue<E> queue = new TraversableQueue<E>();
+				queue.pool = this;
+				return queue;
+			}
+			TraversableQueue<E> queue = queues[--spareQueues];
+			queues[spareQueues] = null;
+			return queue;
+		}
+
+		/**
+		 * Give back a queue and all of its nodes.
+		 * 
+		 * Time-complexity O(n) (n is the number of elements in the queue)
+		 * 
+		 * @param queue A queue created by this pool that is no longer used.
+		 */
+		void recycle(TraversableQueue<E> queue) {
+			for (Node<E> node = queue.head; node != null;) {
+				Node<E> next = node.getNext();
+				release(node);
+				node = next;
+			}
+			queue.head = null;
+			queue.tail = null;
+			queue.size = 0;
+			if (spareQueues == queues.length) {
+				queues = Arrays.copyOf(queues, spareQueues * 2);
+			}
+			queues[spareQueues++] = queue;
+		}
+
+		private Node<E> node(E element) {
+			if (nodes == null) {
+				return new Node<>(element, null);
+			}
+			Node<E> node = nodes;
+			nodes = node.getNext();
+			node.element = element;
+			node.setNext(null);
+			return node;
+		}
+
+		private void release(Node<E> node) {
+			node.element = null;
+			node.setNext(nodes);
+			nodes = node;
+		}
 	}
 
 	/**
@@ -151,6 +377,11 @@ public class TraversableQueue<T> implements IterableQueue<T> {
  * have to iterate one way, from first to last. With this design choice, we can
  * access enqueue and dequeue with the time complexity of O(1).
  * 
+ * An element is removed from the middle of the queue by relinking the node
+ * before it, either with remove or with the iterator, which keeps the node
+ * before the one it last returned. The cubes use this to drop an aircraft from
+ * a cell in O(k) without copying the rest of the cell into a new queue.
+ * 
  * This data structure has the memory efficiency of O(n) with n is the number of
  * element stored in the data structure.
  * 
@@ -1,7 +1,28 @@
 package comp3506.assn1.application;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import comp3506.assn1.adts.CoordinateExtractor;
+import comp3506.assn1.adts.CopyOnWriteCube;
 import comp3506.assn1.adts.Cube;
-import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.JournaledCube;
+import comp3506.assn1.adts.TraversableQueue;
 
 
 /**
@@ -12,7 +33,20 @@ import comp3506.assn1.adts.BoundedCube;
  */
 public class AirSpace {
 	
+	private static final int METRES_PER_KILOMETRE = 1000;
+	
+	/**
+	 * Orders aircraft by the cell they occupy: by altitude layer, then by y and then by x coordinate.
+	 */
+	static final Comparator<Aircraft> CELL_ORDER = 
+			Comparator.comparingInt((Aircraft aircraft) -> aircraft.getAltitude()/METRES_PER_KILOMETRE)
+			          .thenComparingInt(Aircraft::getAirSpaceYCoord)
+			          .thenComparingInt(Aircraft::getAirSpaceXCoord);
+	
 	private Cube<Aircraft> airSpaceMap;
+	private Map<String, Aircraft> aircraftById;	// Reverse index from id to the aircraft's current position.
+	private JournaledCube<Aircraft> journal;	// Log of the changes to the model, null if there is no log.
+	private long journalEpoch = 0;	// Epoch of the last saved state of the model.
 	
 	// Dimensions of the air space in kilometres.
 	private int length;
@@ -20,10 +54,52 @@ public class AirSpace {
 	private int height;
 	
 	public AirSpace(int length, int breadth, int height) {
-		this.length = length;
-		this.breadth = breadth;
-		this.height = height;
-		airSpaceMap = new BoundedCube<>(length, breadth, height);
+		this(length, breadth, height, 0);
+	}
+	
+	/**
+	 * Create an airspace that is expected to hold a known number of aircraft, so the id index is not resized
+	 * while it is filled.
+	 * 
+	 * @param expectedAircraft Number of aircraft the airspace is expected to hold.
+	 */
+	AirSpace(int length, int breadth, int height, int expectedAircraft) {
+		this(new HashedCube<>(length, breadth, height), expectedAircraft);
+	}
+	
+	/**
+	 * Create an airspace modelled by the given cube, e.g. to compare the cube implementations.
+	 * 
+	 * @param airSpaceMap Empty cube whose dimensions are those of the airspace.
+	 * @param expectedAircraft Number of aircraft the airspace is expected to hold.
+	 */
+	AirSpace(Cube<Aircraft> airSpaceMap, int expectedAircraft) {
+		this(airSpaceMap, new HashMap<>(Math.max(16, (int) (expectedAircraft / 0.75f) + 1)));
+	}
+	
+	private AirSpace(Cube<Aircraft> airSpaceMap, Map<String, Aircraft> aircraftById) {
+		this.length = airSpaceMap.getLength();
+		this.breadth = airSpaceMap.getBreadth();
+		this.height = airSpaceMap.getHeight();
+		this.airSpaceMap = airSpaceMap;
+		this.aircraftById = aircraftById;
+	}
+	
+	/**
+	 * Create an airspace that other threads may query while one thread changes it, e.g. while the radar queue
+	 * is processed. The model is a CopyOnWriteCube and the id index a concurrent map, so the queries take no
+	 * lock and never block the thread that changes the model. A query sees each altitude layer as it was at
+	 * some moment, and may miss an aircraft for the moment it is being replaced by its new report.
+	 * 
+	 * @param length of the airspace in kilometres.
+	 * @param breadth of the airspace in kilometres.
+	 * @param height of the airspace in kilometres.
+	 * @return An empty airspace whose queries are safe to run while it is changed.
+	 * @throws IllegalArgumentException If a dimension is not positive.
+	 */
+	public static AirSpace withConcurrentQueries(int length, int breadth, int height) 
+			throws IllegalArgumentException {
+		return new AirSpace(new CopyOnWriteCube<>(length, breadth, height), new ConcurrentHashMap<>());
 	}
 	
 	/**
@@ -47,19 +123,315 @@ public class AirSpace {
 		return height;
 	}
 
+	/**
+	 * Record all further changes to the airspace model in a log, so they can be recovered after a crash.
+	 * If the log belongs to the last saved state of the model, its committed changes are replayed first.
+	 * 
+	 * @param log file holding the changes made since the last snapshot.
+	 * @throws IOException If the log cannot be read or written.
+	 */
+	public void openJournal(Path log) throws IOException {
+		journal = new JournaledCube<>(airSpaceMap, new AircraftCodec(), log, journalEpoch);
+		airSpaceMap = journal;
+		if (journal.getReplayedRecords() > 0) {
+			// Rebuild the id index from the replayed model
+			aircraftById.clear();
+			airSpaceMap.forEachInBox(0, 0, 0, length, breadth, height, 
+					                 aircraft -> aircraftById.put(Aircraft.idKey(aircraft.getId()), aircraft));
+		}
+	}
+	
+	/**
+	 * Make the changes recorded since the last commit durable, with a single write to the disk.
+	 * Does nothing if the model has no log.
+	 * 
+	 * @throws IOException If the log cannot be written.
+	 */
+	public void commit() throws IOException {
+		if (journal != null) {
+			journal.commit();
+		}
+	}
+	
+	/**
+	 * Commit the recorded changes and close the log.
+	 * 
+	 * @throws IOException If the log cannot be written.
+	 */
+	public void closeJournal() throws IOException {
+		if (journal != null) {
+			try {
+				journal.close();
+			} finally {
+				airSpaceMap = journal.getCube();
+				journal = null;
+			}
+		}
+	}
+	
+	/**
+	 * @return Epoch of the last saved state of the model.
+	 */
+	long getJournalEpoch() {
+		return journalEpoch;
+	}
+	
+	/**
+	 * Start a new epoch once the model has been saved, which empties the log.
+	 * 
+	 * @param epoch of the saved state.
+	 * @throws IOException If the log cannot be written.
+	 */
+	void setJournalEpoch(long epoch) throws IOException {
+		journalEpoch = epoch;
+		if (journal != null) {
+			journal.reset(epoch);
+		}
+	}
+	
 	/**
 	 * Add a new aircraft to the airspace model.
+	 * An aircraft with the same id that is already in the model is replaced, as it has been identified at its
+	 * new position.
 	 * 
 	 * @param aircraft to be added to the model.
 	 * @return true if there are multiple aircraft in a single airspace cell, false otherwise.
+	 * @throws IndexOutOfBoundsException If the aircraft is outside of the airspace, in which case the model
+	 *                                   is not changed.
 	 */
-	public boolean addAircraft(Aircraft aircraft) {
-		final int METRES_PER_KILOMETRE = 1000;
-		
+	public boolean addAircraft(Aircraft aircraft) throws IndexOutOfBoundsException {
+		// The position is checked before the previous report is removed, so a rejected aircraft changes nothing
+		checkBounds(aircraft);
+		index(aircraft);
 		airSpaceMap.add(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
 				        aircraft.getAltitude()/METRES_PER_KILOMETRE, aircraft);
 		return airSpaceMap.isMultipleElementsAt(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
 				                                aircraft.getAltitude()/METRES_PER_KILOMETRE);
 	}
 	
+	/**
+	 * Add a batch of aircraft to the airspace model, e.g. when restoring a shift's traffic.
+	 * Conflicts are not reported for the batch. If the batch holds several reports of the same aircraft, only
+	 * the last one is added.
+	 * 
+	 * @param aircraft to be added to the model.
+	 * @throws IndexOutOfBoundsException If an aircraft is outside of the airspace, in which case the model is
+	 *                                   not changed.
+	 */
+	public void addAllAircraft(Iterable<Aircraft> aircraft) throws IndexOutOfBoundsException {
+		List<Aircraft> batch = latestReports(aircraft);
+		for (Aircraft each : batch) {
+			checkBounds(each);
+		}
+		for (Aircraft each : batch) {
+			index(each);
+		}
+		airSpaceMap.addAll(batch, new CoordinateExtractor<Aircraft>() {
+			@Override
+			public int x(Aircraft element) {
+				return element.getAirSpaceXCoord();
+			}
+
+			@Override
+			public int y(Aircraft element) {
+				return element.getAirSpaceYCoord();
+			}
+
+			@Override
+			public int z(Aircraft element) {
+				return element.getAltitude()/METRES_PER_KILOMETRE;
+			}
+		});
+	}
+	
+	// Keep only the last report of each aircraft, in the order of the batch
+	private static List<Aircraft> latestReports(Iterable<Aircraft> aircraft) {
+		List<Aircraft> reports = new ArrayList<>();
+		for (Aircraft each : aircraft) {
+			reports.add(each);
+		}
+		Set<String> reported = new HashSet<>();
+		List<Aircraft> latest = new ArrayList<>(reports.size());
+		for (int i = reports.size() - 1; i >= 0; i--) {
+			if (reported.add(Aircraft.idKey(reports.get(i).getId()))) {
+				latest.add(reports.get(i));
+			}
+		}
+		Collections.reverse(latest);
+		return latest;
+	}
+	
+	// Throw the exception the cube would throw for a position outside of the airspace
+	private void checkBounds(Aircraft aircraft) throws IndexOutOfBoundsException {
+		int x = aircraft.getAirSpaceXCoord();
+		int y = aircraft.getAirSpaceYCoord();
+		int z = aircraft.getAltitude()/METRES_PER_KILOMETRE;
+		if (x < 0 || x > length || y < 0 || y > breadth || z < 0 || z > height) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+	
+	/**
+	 * @return A view of all the aircraft in the airspace model, in no particular order.
+	 */
+	Collection<Aircraft> allAircraft() {
+		return aircraftById.values();
+	}
+	
+	/**
+	 * @return A sequential stream of all the aircraft in the airspace model, ordered by altitude layer and then
+	 *         by cell.
+	 */
+	public Stream<Aircraft> stream() {
+		return airSpaceMap.stream();
+	}
+	
+	/**
+	 * The stream is split along the altitude layers and the rows of the airspace, so reports over the whole
+	 * airspace are spread across the available cores. The model must not be changed while the stream runs.
+	 * 
+	 * @return A parallel stream of all the aircraft in the airspace model.
+	 */
+	public Stream<Aircraft> parallelStream() {
+		return airSpaceMap.parallelStream();
+	}
+	
+	/**
+	 * Count the aircraft in each altitude layer of the airspace, in parallel.
+	 * 
+	 * @return The number of aircraft in each layer, indexed by the altitude in kilometres.
+	 */
+	public long[] countByAltitude() {
+		return parallelStream().collect(() -> new long[height + 1], 
+				                        (counts, aircraft) -> counts[aircraft.getAltitude()/METRES_PER_KILOMETRE]++, 
+				                        AirSpace::addCounts);
+	}
+	
+	/**
+	 * Count the aircraft in each speed band, in parallel. Band i holds the speeds from i * bandWidth up to
+	 * (i + 1) * bandWidth, and the last band also holds all faster aircraft.
+	 * 
+	 * @param bandWidth Width of a speed band.
+	 * @param bands Number of speed bands.
+	 * @return The number of aircraft in each speed band.
+	 * @throws IllegalArgumentException If the band width or the number of bands is not positive.
+	 */
+	public long[] speedDistribution(int bandWidth, int bands) throws IllegalArgumentException {
+		if (bandWidth <= 0 || bands <= 0) {
+			throw new IllegalArgumentException();
+		}
+		return parallelStream().collect(() -> new long[bands], 
+				                        (counts, aircraft) -> counts[Math.min(Math.max(aircraft.getSpeed(), 0)/bandWidth, 
+				                                                              bands - 1)]++, 
+				                        AirSpace::addCounts);
+	}
+	
+	// Combine the counts of two parts of a parallel stream
+	private static void addCounts(long[] counts, long[] other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other[i];
+		}
+	}
+	
+	/**
+	 * Find an aircraft in the airspace model by its id.
+	 * 
+	 * @param id of the aircraft, ignoring case.
+	 * @return The aircraft with its current position, or null if it is not in the model.
+	 */
+	public Aircraft locate(String id) {
+		return aircraftById.get(Aircraft.idKey(id));
+	}
+	
+	/**
+	 * Remove an aircraft from the airspace model by its id.
+	 * 
+	 * @param id of the aircraft, ignoring case.
+	 * @return The aircraft that was removed, or null if it was not in the model.
+	 */
+	public Aircraft removeAircraft(String id) {
+		Aircraft aircraft = aircraftById.remove(Aircraft.idKey(id));
+		if (aircraft != null) {
+			removeFromMap(aircraft);
+		}
+		return aircraft;
+	}
+	
+	// Record the aircraft in the id index, removing its previous position from the model
+	private void index(Aircraft aircraft) {
+		Aircraft previous = aircraftById.put(Aircraft.idKey(aircraft.getId()), aircraft);
+		if (previous != null) {
+			removeFromMap(previous);
+		}
+	}
+	
+	private void removeFromMap(Aircraft aircraft) {
+		airSpaceMap.remove(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
+				           aircraft.getAltitude()/METRES_PER_KILOMETRE, aircraft);
+	}
+	
+	/**
+	 * Perform an action on every aircraft in the cell of the given aircraft and in the 26 cells around it,
+	 * including the given aircraft itself.
+	 * 
+	 * @param aircraft whose neighbourhood is visited.
+	 * @param action to be performed on each aircraft in the neighbourhood.
+	 */
+	public void forEachNeighbour(Aircraft aircraft, Consumer<? super Aircraft> action) {
+		airSpaceMap.forEachNeighbour(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
+				                     aircraft.getAltitude()/METRES_PER_KILOMETRE, action);
+	}
+	
+	/**
+	 * Sweep the whole airspace for conflicts in the common fork/join pool.
+	 * 
+	 * @return Every cell shared by several aircraft and every pair of aircraft in neighbouring cells.
+	 */
+	public ConflictReport sweepConflicts() {
+		return sweepConflicts(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Sweep the whole airspace for conflicts, split over the altitude layers and the y bands of the airspace.
+	 * The model must not be changed while the sweep runs.
+	 * 
+	 * @param pool that runs the parts of the sweep.
+	 * @return Every cell shared by several aircraft and every pair of aircraft in neighbouring cells.
+	 */
+	public ConflictReport sweepConflicts(ForkJoinPool pool) {
+		return pool.invoke(new ConflictSweep(airSpaceMap, pool.getParallelism()));
+	}
+	
+	/**
+	 * Find all other aircraft within a distance of the given aircraft.
+	 * Horizontal positions are taken as the corner of the aircraft's 1 kilometre cell.
+	 * 
+	 * @param aircraft at the centre of the search.
+	 * @param metres Separation distance to search within.
+	 * @return A queue of the other aircraft that are no further than metres away from aircraft.
+	 */
+	public IterableQueue<Aircraft> findWithinRadius(Aircraft aircraft, int metres) {
+		final int x = aircraft.getAirSpaceXCoord();
+		final int y = aircraft.getAirSpaceYCoord();
+		final int altitude = aircraft.getAltitude();
+		final long radiusSquared = (long) metres * metres;
+		final int cells = (metres + METRES_PER_KILOMETRE - 1) / METRES_PER_KILOMETRE;
+		TraversableQueue<Aircraft> found = new TraversableQueue<>();
+		
+		// Only the cells of the bounding box of the sphere are visited
+		airSpaceMap.forEachInBox(Math.max(x - cells, 0), Math.max(y - cells, 0), 
+				                 Math.max((altitude - metres)/METRES_PER_KILOMETRE, 0), 
+				                 Math.min(x + cells, length), Math.min(y + cells, breadth), 
+				                 Math.min((altitude + metres)/METRES_PER_KILOMETRE, height), 
+				                 other -> {
+			long dx = (long) (other.getAirSpaceXCoord() - x) * METRES_PER_KILOMETRE;
+			long dy = (long) (other.getAirSpaceYCoord() - y) * METRES_PER_KILOMETRE;
+			long dz = other.getAltitude() - altitude;
+			if (dx*dx + dy*dy + dz*dz <= radiusSquared && !other.equals(aircraft)) {
+				found.enqueue(other);
+			}
+		});
+		return found;
+	}
+	
 }
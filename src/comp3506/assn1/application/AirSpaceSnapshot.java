@@ -0,0 +1,148 @@
+package comp3506.assn1.application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Saves the airspace model to a compact binary file and restores it, so that the model survives a restart
+ * without being rebuilt from the radar feeds. Files are written and read through memory mapping, so the
+ * aircraft are encoded and decoded directly in the mapped pages without intermediate copies.
+ * 
+ * File layout: magic number, version, length, breadth, height and number of aircraft as ints, the epoch of the
+ * journal as a long, followed by the aircraft in cell order (altitude layer, then y, then x), encoded with an
+ * AircraftCodec.
+ * 
+ * Saving starts a new journal epoch, so the changes logged before the snapshot are not replayed on top of it.
+ * 
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+public class AirSpaceSnapshot {
+	
+	private static final int MAGIC = 0x4F534B59;	// "OSKY"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 6 * Integer.BYTES + Long.BYTES;
+	private static final int METRES_PER_KILOMETRE = 1000;
+	
+	private static final AircraftCodec CODEC = new AircraftCodec();
+	
+	/**
+	 * Write all aircraft in the airspace to a snapshot file, replacing the file if it exists.
+	 * The journal of the airspace, if it has one, is committed before the snapshot and emptied after it.
+	 * 
+	 * @param airSpace to be saved.
+	 * @param file to write the snapshot to.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void save(AirSpace airSpace, Path file) throws IOException {
+		airSpace.commit();
+		long epoch = airSpace.getJournalEpoch() + 1;
+		Aircraft[] aircraft = cellOrder(airSpace);
+		long size = HEADER_SIZE;
+		for (Aircraft each : aircraft) {
+			size += CODEC.encodedSize(each);
+		}
+		
+		// The snapshot replaces the old one in a single step, so a crash leaves either of them complete
+		Path written = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(written, StandardOpenOption.CREATE, StandardOpenOption.READ, 
+				                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(airSpace.getLength());
+			buffer.putInt(airSpace.getBreadth());
+			buffer.putInt(airSpace.getHeight());
+			buffer.putInt(aircraft.length);
+			buffer.putLong(epoch);
+			for (Aircraft each : aircraft) {
+				CODEC.encode(each, buffer);
+			}
+			buffer.force();
+		}
+		Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		airSpace.setJournalEpoch(epoch);
+	}
+	
+	// Cell order (altitude layer, then y, then x) lets the restore add the aircraft in a single pass through
+	// the cube. The cell and the position in the array are packed into one long per aircraft when they fit,
+	// so the sort compares primitives instead of following a comparator into every aircraft.
+	private static Aircraft[] cellOrder(AirSpace airSpace) {
+		Aircraft[] aircraft = airSpace.allAircraft().toArray(new Aircraft[0]);
+		long columns = airSpace.getLength() + 1L;
+		long rows = airSpace.getBreadth() + 1L;
+		long cells = columns * rows * (airSpace.getHeight() + 1L);
+		int positionBits = 64 - Long.numberOfLeadingZeros(Math.max(aircraft.length, 1));
+		if (64 - Long.numberOfLeadingZeros(cells) + positionBits > 63) {
+			Arrays.sort(aircraft, Comparator.comparingInt((Aircraft a) -> a.getAltitude()/METRES_PER_KILOMETRE)
+					                        .thenComparingInt(Aircraft::getAirSpaceYCoord)
+					                        .thenComparingInt(Aircraft::getAirSpaceXCoord));
+			return aircraft;
+		}
+		long[] keys = new long[aircraft.length];
+		for (int i = 0; i < aircraft.length; i++) {
+			Aircraft each = aircraft[i];
+			long cell = (each.getAltitude()/METRES_PER_KILOMETRE * rows + each.getAirSpaceYCoord()) * columns 
+					    + each.getAirSpaceXCoord();
+			keys[i] = (cell << positionBits) | i;
+		}
+		// Keys are distinct, so the original position breaks ties between aircraft of the same cell
+		Arrays.sort(keys);
+		Aircraft[] sorted = new Aircraft[aircraft.length];
+		long positionMask = (1L << positionBits) - 1;
+		for (int i = 0; i < keys.length; i++) {
+			sorted[i] = aircraft[(int) (keys[i] & positionMask)];
+		}
+		return sorted;
+	}
+	
+	/**
+	 * Restore an airspace from a snapshot file.
+	 * Opening the journal of the restored airspace replays the changes committed after the snapshot was saved.
+	 * 
+	 * @param file containing the snapshot.
+	 * @return A new airspace holding all the aircraft of the snapshot.
+	 * @throws IOException If the file cannot be read or is not a snapshot.
+	 */
+	public static AirSpace load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Not an air space snapshot: " + file);
+			}
+			int length = buffer.getInt();
+			int breadth = buffer.getInt();
+			int height = buffer.getInt();
+			int count = buffer.getInt();
+			long epoch = buffer.getLong();
+			if (count < 0) {
+				throw new IOException("Not an air space snapshot: " + file);
+			}
+			AirSpace airSpace = new AirSpace(length, breadth, height, count);
+			List<Aircraft> aircraft = new ArrayList<>(count);
+			try {
+				for (int i = 0; i < count; i++) {
+					aircraft.add(CODEC.decode(buffer));
+				}
+			} catch (RuntimeException e) {
+				throw new IOException("Truncated air space snapshot: " + file, e);
+			}
+			airSpace.addAllAircraft(aircraft);
+			airSpace.setJournalEpoch(epoch);
+			return airSpace;
+		}
+	}
+	
+}
@@ -1,9 +1,18 @@
 package comp3506.assn1.application;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import comp3506.assn1.adts.IterableQueue;
-import comp3506.assn1.adts.TraversableQueue;
+import comp3506.assn1.adts.MpscBoundedQueue;
+import comp3506.assn1.adts.RingBufferQueue;
 
 
 /**
@@ -16,41 +25,221 @@ import comp3506.assn1.adts.TraversableQueue;
 public class AirTrafficTracker {
 	
 	private IterableQueue<Aircraft> radarQueue;
+	private Map<String, Queued> queuedById = new ConcurrentHashMap<>();	// Index of the radar queue by id.
 	private AirSpace airSpace;
+	private int commitInterval;	// Number of aircraft processed per commit of the journal, 0 to never commit.
+	private int uncommitted = 0;
 	
 	public AirTrafficTracker(AirSpace airSpace) {
+		this(airSpace, 0);
+	}
+	
+	/**
+	 * Create a tracker that commits the airspace's journal after every commitInterval aircraft it processes,
+	 * so that the changes of many aircraft are made durable with a single write to the disk.
+	 * 
+	 * @param airSpace to which the identified aircraft are added.
+	 * @param commitInterval Number of aircraft processed per commit, 0 to leave committing to the caller.
+	 */
+	public AirTrafficTracker(AirSpace airSpace, int commitInterval) {
+		this.airSpace = airSpace;
+		this.commitInterval = commitInterval;
+		radarQueue = new RingBufferQueue<Aircraft>();
+	}
+	
+	/**
+	 * Create a tracker whose radar queue can be fed by several radar sites, each on its own thread, while one
+	 * thread processes the queue. The queue holds at most radarCapacity aircraft, and the backpressure decides
+	 * what newAircraft does when it is full.
+	 * 
+	 * @param airSpace to which the identified aircraft are added.
+	 * @param commitInterval Number of aircraft processed per commit, 0 to leave committing to the caller.
+	 * @param radarCapacity Maximum number of aircraft waiting in the radar queue.
+	 * @param backpressure What newAircraft does when the radar queue is full.
+	 * @throws IllegalArgumentException If the capacity is not positive or the backpressure is null.
+	 */
+	public AirTrafficTracker(AirSpace airSpace, int commitInterval, int radarCapacity, 
+			                 MpscBoundedQueue.Backpressure backpressure) {
 		this.airSpace = airSpace;
-		radarQueue = new TraversableQueue<Aircraft>();
+		this.commitInterval = commitInterval;
+		radarQueue = new MpscBoundedQueue<Aircraft>(radarCapacity, backpressure, this::unindex);
 	}
 	
 	/**
 	 * Add a new aircraft to the queue of aircraft identified by a radar site.
+	 * Radar sites may call this from several threads if the tracker was created with a radar capacity.
 	 * @param aircraft to add to the queue
+	 * @throws IllegalStateException If the radar queue is full and its backpressure is REJECT.
 	 */
 	public void newAircraft(Aircraft aircraft) {
-		radarQueue.enqueue(aircraft);
+		// Index the aircraft first, so that it is never processed before it is indexed
+		Aircraft previous = index(aircraft);
+		try {
+			radarQueue.enqueue(aircraft);
+		} catch (IllegalStateException e) {
+			withdraw(aircraft, previous);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Find an aircraft that has been identified by a radar site but not yet added to the airspace.
+	 * 
+	 * Time-complexity O(1) expected
+	 * 
+	 * @param id of the aircraft, ignoring case.
+	 * @return The most recent report of the aircraft that is waiting in the queue, or null if it is not queued.
+	 */
+	public Aircraft findQueued(String id) {
+		Queued queued = queuedById.get(Aircraft.idKey(id));
+		return (queued == null) ? null : queued.latest;
+	}
+	
+	// Record the aircraft as the latest queued report of its id, returning the report it replaces
+	private Aircraft index(Aircraft aircraft) {
+		Aircraft[] previous = new Aircraft[1];
+		queuedById.compute(Aircraft.idKey(aircraft.getId()), (key, queued) -> {
+			if (queued == null) {
+				queued = new Queued();
+			}
+			previous[0] = queued.latest;
+			queued.latest = aircraft;
+			queued.reports++;
+			return queued;
+		});
+		return previous[0];
+	}
+	
+	// Take back the index of a report that the radar queue rejected, restoring the report it replaced
+	private void withdraw(Aircraft aircraft, Aircraft previous) {
+		queuedById.computeIfPresent(Aircraft.idKey(aircraft.getId()), (key, queued) -> {
+			if (--queued.reports == 0) {
+				return null;
+			}
+			if (queued.latest == aircraft) {
+				queued.latest = previous;
+			}
+			return queued;
+		});
+	}
+	
+	// Called for each aircraft that leaves the radar queue, processed or dropped
+	private void unindex(Aircraft aircraft) {
+		// Reports leave the queue oldest first, so the latest report stays until the last one leaves
+		queuedById.computeIfPresent(Aircraft.idKey(aircraft.getId()), 
+				                    (key, queued) -> (--queued.reports == 0) ? null : queued);
 	}
 	
 	/**
 	 * Take the next aircraft in the queue and add it to the airspace.
+	 * Only one thread may process the queue.
 	 * Outputs a warning message if the aircraft encroaches on the space of another aircraft.
 	 * Should really return an error value to be dealt with at the UI layer.
 	 */
 	public void processRadarQueue() {
 		if (radarQueue.size() != 0) {
 			Aircraft aircraft = radarQueue.dequeue();
-			if (airSpace.addAircraft(aircraft)) {
-				System.out.println(aircraft + " has entered an occupied cell in the air space!");
+			unindex(aircraft);
+			process(aircraft);
+		}
+	}
+	
+	/**
+	 * Take up to maxBatch aircraft from the queue and add them to the airspace, in the order of the cells they
+	 * occupy so that the airspace model is walked forward once per batch rather than jumped around once per
+	 * aircraft. Only one thread may process the queue.
+	 * Outputs a warning message for each aircraft that encroaches on the space of another aircraft.
+	 * If an aircraft was reported more than once in the batch, only its last report is added.
+	 * 
+	 * @param maxBatch Maximum number of aircraft to process.
+	 * @return Number of aircraft that were processed.
+	 * @throws IllegalArgumentException If maxBatch is not positive.
+	 */
+	public int processRadarQueue(int maxBatch) {
+		if (maxBatch <= 0) {
+			throw new IllegalArgumentException();
+		}
+		List<Aircraft> batch = new ArrayList<>(Math.min(maxBatch, radarQueue.size()));
+		int drained = radarQueue.drainTo(batch::add, maxBatch);
+		for (Aircraft aircraft : batch) {
+			unindex(aircraft);
+		}
+		batch = latestReports(batch);
+		batch.sort(AirSpace.CELL_ORDER);
+		for (Aircraft aircraft : batch) {
+			process(aircraft);
+		}
+		return drained;
+	}
+	
+	/**
+	 * Take up to maxBatch aircraft from the queue without adding them to the airspace, e.g. once the airspace
+	 * can no longer be changed. Only one thread may process the queue.
+	 * 
+	 * @param maxBatch Maximum number of aircraft to discard.
+	 * @return Number of aircraft that were discarded.
+	 */
+	int discardRadarQueue(int maxBatch) {
+		return radarQueue.drainTo(this::unindex, maxBatch);
+	}
+	
+	// Keep only the last report of each aircraft in the batch, as sorting would otherwise let an earlier
+	// position replace a later one
+	private static List<Aircraft> latestReports(List<Aircraft> batch) {
+		if (batch.size() < 2) {
+			return batch;
+		}
+		Set<String> reported = new HashSet<>();
+		List<Aircraft> latest = new ArrayList<>(batch.size());
+		for (int i = batch.size() - 1; i >= 0; i--) {
+			if (reported.add(Aircraft.idKey(batch.get(i).getId()))) {
+				latest.add(batch.get(i));
 			}
 		}
+		return latest;
+	}
+	
+	private void process(Aircraft aircraft) {
+		if (airSpace.addAircraft(aircraft)) {
+			System.out.println(aircraft + " has entered an occupied cell in the air space!");
+		}
+		if (commitInterval > 0 && ++uncommitted >= commitInterval) {
+			commit();
+		}
+	}
+	
+	/**
+	 * Commit the changes made to the airspace by the aircraft processed since the last commit.
+	 * 
+	 * @throws UncheckedIOException If the airspace's journal cannot be written.
+	 */
+	public void commit() {
+		try {
+			airSpace.commit();
+			uncommitted = 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 	
 	/**
 	 * 
-	 * @return An iterator that provides access to all aircraft in the queue.
+	 * @return An iterator that provides access to all aircraft in the queue. It cannot remove aircraft, as the
+	 *         queue's index would no longer match the queue.
 	 */
 	public Iterator<Aircraft> radarQueueIterator() {
-		return radarQueue.iterator();
+		Iterator<Aircraft> it = radarQueue.iterator();
+		return new Iterator<Aircraft>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public Aircraft next() {
+				return it.next();
+			}
+		};
 	}
 	
 	/**
@@ -74,4 +263,13 @@ public class AirTrafficTracker {
 		return airSpace.getHeight();
 	}
 	
+	/**
+	 * The reports of one aircraft id that are waiting in the radar queue. Only changed inside the index's
+	 * compute methods, so the reports of one id are counted atomically.
+	 */
+	private static class Queued {
+		volatile Aircraft latest;	// Most recently queued report, read by findQueued without locking.
+		int reports;	// Number of reports in the queue.
+	}
+	
 }
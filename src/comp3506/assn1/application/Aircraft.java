@@ -53,6 +53,20 @@ public class Aircraft {
 		return altitude;
 	}
 
+	/**
+	 * @return the aircraft's speed in metres per second
+	 */
+	public int getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * @return the aircraft's course in degrees
+	 */
+	public double getCourse() {
+		return course;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == null) {
@@ -65,6 +79,52 @@ public class Aircraft {
 		}
 	}
 	
+	/**
+	 * Hash code consistent with the case-insensitive equals, computed from the id without creating a new string.
+	 */
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		for (int i = 0; i < id.length(); i++) {
+			hash = 31*hash + foldCase(id.charAt(i));
+		}
+		return hash;
+	}
+	
+	/**
+	 * Key for indexing aircraft by id, equal for ids that are equal ignoring case. Ids made of upper case
+	 * letters and digits, like those given by the radar sites, are already keys, so no new string is created.
+	 * 
+	 * @param id An aircraft's registration identifier.
+	 * @return The id with the case of every character folded.
+	 */
+	static String idKey(String id) {
+		int i = 0;
+		while (i < id.length() && keyChar(id.charAt(i)) == id.charAt(i)) {
+			i++;
+		}
+		if (i == id.length()) {
+			return id;
+		}
+		char[] key = id.toCharArray();
+		for (; i < key.length; i++) {
+			key[i] = keyChar(key[i]);
+		}
+		return new String(key);
+	}
+	
+	// Folded character with ASCII letters turned back to upper case. No folded character is an upper case
+	// ASCII letter, so this keeps the folding one to one.
+	private static char keyChar(char c) {
+		char folded = foldCase(c);
+		return (folded >= 'a' && folded <= 'z') ? (char) (folded - 'a' + 'A') : folded;
+	}
+	
+	// Same folding as String.equalsIgnoreCase, which compares both the upper and lower case
+	private static char foldCase(char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+	
 	@Override
 	public String toString() {
 		return "Aircraft: " + id + " at " + altitude + " metres, on course: " + course
@@ -0,0 +1,72 @@
+package comp3506.assn1.application;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import comp3506.assn1.adts.ElementCodec;
+
+
+/**
+ * Binary form of an aircraft: the id as a length prefixed UTF-8 string followed by the position, speed and course.
+ * 
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+public class AircraftCodec implements ElementCodec<Aircraft> {
+	
+	// Bytes after the id: x, y, altitude and speed as ints, course as a double.
+	private static final int FIXED_SIZE = 4 * Integer.BYTES + Double.BYTES;
+	
+	@Override
+	public int encodedSize(Aircraft aircraft) {
+		return Short.BYTES + utf8Length(aircraft.getId()) + FIXED_SIZE;
+	}
+	
+	@Override
+	public void encode(Aircraft aircraft, ByteBuffer buffer) {
+		String id = aircraft.getId();
+		int length = utf8Length(id);
+		buffer.putShort((short) length);
+		if (length == id.length()) {
+			// Plain ASCII ids, the usual case, are written without encoding them into a new array first
+			for (int i = 0; i < length; i++) {
+				buffer.put((byte) id.charAt(i));
+			}
+		} else {
+			buffer.put(id.getBytes(StandardCharsets.UTF_8));
+		}
+		buffer.putInt(aircraft.getAirSpaceXCoord());
+		buffer.putInt(aircraft.getAirSpaceYCoord());
+		buffer.putInt(aircraft.getAltitude());
+		buffer.putInt(aircraft.getSpeed());
+		buffer.putDouble(aircraft.getCourse());
+	}
+	
+	@Override
+	public Aircraft decode(ByteBuffer buffer) {
+		byte[] id = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(id);
+		return new Aircraft(new String(id, StandardCharsets.UTF_8), buffer.getInt(), buffer.getInt(), 
+				            buffer.getInt(), buffer.getInt(), buffer.getDouble());
+	}
+	
+	// Encoded length of the id without allocating its bytes
+	private static int utf8Length(String id) {
+		int length = 0;
+		for (int i = 0; i < id.length(); i++) {
+			char c = id.charAt(i);
+			if (c < 0x80) {
+				length += 1;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < id.length() && Character.isLowSurrogate(id.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+	
+}
@@ -0,0 +1,63 @@
+package comp3506.assn1.application;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.TraversableQueue;
+
+
+/**
+ * Result of a sweep of the whole airspace for conflicts: the cells that are shared by several aircraft, and the
+ * pairs of aircraft that are in neighbouring cells. Aircraft that share a cell are only reported with their cell,
+ * not as pairs.
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+public class ConflictReport {
+
+	private TraversableQueue<IterableQueue<Aircraft>> sharedCells = new TraversableQueue<>();
+	private TraversableQueue<Aircraft[]> proximityPairs = new TraversableQueue<>();
+
+	/**
+	 * @return The aircraft of each cell that holds more than one aircraft, one queue per cell.
+	 */
+	public IterableQueue<IterableQueue<Aircraft>> getSharedCells() {
+		return sharedCells;
+	}
+
+	/**
+	 * @return Each pair of aircraft that are in different but neighbouring cells, as an array of two aircraft.
+	 */
+	public IterableQueue<Aircraft[]> getProximityPairs() {
+		return proximityPairs;
+	}
+
+	/**
+	 * @return true if no conflict was found, false otherwise.
+	 */
+	public boolean isClear() {
+		return sharedCells.size() == 0 && proximityPairs.size() == 0;
+	}
+
+	void addSharedCell(IterableQueue<Aircraft> aircraft) {
+		sharedCells.enqueue(aircraft);
+	}
+
+	void addProximityPair(Aircraft first, Aircraft second) {
+		proximityPairs.enqueue(new Aircraft[] { first, second });
+	}
+
+	/**
+	 * Append the conflicts found by another part of the sweep.
+	 *
+	 * @param other Report of the part of the airspace that follows this one.
+	 */
+	void merge(ConflictReport other) {
+		for (IterableQueue<Aircraft> cell : other.sharedCells) {
+			sharedCells.enqueue(cell);
+		}
+		for (Aircraft[] pair : other.proximityPairs) {
+			proximityPairs.enqueue(pair);
+		}
+	}
+
+}
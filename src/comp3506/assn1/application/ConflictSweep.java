@@ -0,0 +1,182 @@
+package comp3506.assn1.application;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.CubeCursor;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.TraversableQueue;
+
+
+/**
+ * Fork/join task that sweeps a part of the airspace for conflicts. A part that spans several altitude layers is
+ * split into two halves of its layers, and a single layer is split into y bands until there are enough parts for
+ * the pool. Each occupied cell is compared with the 13 neighbouring cells that follow it in cell order (x + 1 in
+ * its row, the next row and the next layer), so every neighbouring pair is found exactly once, by the part that
+ * owns its first cell. The occupied cells of the part are merged with the occupied cells of the rows that hold
+ * their following neighbours, so only the neighbours that are occupied are read from the airspace. Parts only
+ * read the airspace, which must not be changed during the sweep.
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+class ConflictSweep extends RecursiveTask<ConflictReport> {
+
+	private static final long serialVersionUID = 1L;
+
+	// Offsets (dy, dz) of the rows that hold the neighbouring cells that follow a cell in cell order: the next
+	// cell of its own row, and the cells from x - 1 to x + 1 of the next row and of the three rows above
+	private static final int[][] FOLLOWING_ROWS = { { 0, 0 }, { 1, 0 }, { -1, 1 }, { 0, 1 }, { 1, 1 } };
+
+	private final Cube<Aircraft> cube;
+	private final int firstLayer;
+	private final int lastLayer;
+	private final int firstRow;
+	private final int lastRow;
+	private final int minBandRows;	// Bands of fewer rows are not split further
+
+	/**
+	 * Sweep of the whole airspace, split into about four parts per thread of the pool.
+	 *
+	 * @param cube holding the aircraft of the airspace.
+	 * @param parallelism Number of threads of the pool that runs the sweep.
+	 */
+	ConflictSweep(Cube<Aircraft> cube, int parallelism) {
+		this(cube, 0, cube.getHeight(), 0, cube.getBreadth(), bandRows(cube, parallelism));
+	}
+
+	private ConflictSweep(Cube<Aircraft> cube, int firstLayer, int lastLayer, int firstRow, int lastRow,
+			              int minBandRows) {
+		this.cube = cube;
+		this.firstLayer = firstLayer;
+		this.lastLayer = lastLayer;
+		this.firstRow = firstRow;
+		this.lastRow = lastRow;
+		this.minBandRows = minBandRows;
+	}
+
+	// Each band of a layer walks all the occupied cells of the layer, so layers are only split into bands
+	// when there are fewer layers than parts
+	private static int bandRows(Cube<Aircraft> cube, int parallelism) {
+		int layers = cube.getHeight() + 1;
+		int bands = (4 * parallelism + layers - 1) / layers;
+		return Math.max((cube.getBreadth() + 1) / bands, 1);
+	}
+
+	/**
+	 * Split the part, or sweep it if it is a band of a single layer.
+	 *
+	 * Time-complexity O(c + p) per part (c is the number of occupied cells of its layer and of the layer above,
+	 * p is the number of aircraft pairs found)
+	 *
+	 * @return The conflicts of the part, in cell order.
+	 */
+	@Override
+	protected ConflictReport compute() {
+		ConflictSweep first;
+		ConflictSweep second;
+		if (firstLayer < lastLayer) {
+			int middle = (firstLayer + lastLayer) >>> 1;
+			first = new ConflictSweep(cube, firstLayer, middle, firstRow, lastRow, minBandRows);
+			second = new ConflictSweep(cube, middle + 1, lastLayer, firstRow, lastRow, minBandRows);
+		} else if (lastRow - firstRow + 1 >= 2 * minBandRows) {
+			int middle = (firstRow + lastRow) >>> 1;
+			first = new ConflictSweep(cube, firstLayer, lastLayer, firstRow, middle, minBandRows);
+			second = new ConflictSweep(cube, firstLayer, lastLayer, middle + 1, lastRow, minBandRows);
+		} else {
+			return sweep();
+		}
+		second.fork();
+		ConflictReport report = first.compute();
+		report.merge(second.join());
+		return report;
+	}
+
+	// Compare each occupied cell of the band with itself and with the cells that follow it
+	private ConflictReport sweep() {
+		ConflictReport report = new ConflictReport();
+		int z = firstLayer;
+		if (cube.isLayerEmpty(z)) {
+			return report;
+		}
+		long width = cube.getLength() + 1L;
+		// Sorted cell numbers y * width + x of the band and of the rows that its cells can touch
+		Cells layer = new Cells(cube, z, firstRow, Math.min(lastRow + 1, cube.getBreadth()), width);
+		Cells upper = (z < cube.getHeight()) 
+				? new Cells(cube, z + 1, Math.max(firstRow - 1, 0), Math.min(lastRow + 1, cube.getBreadth()), width) 
+				: new Cells();
+		// One pointer per row that holds following cells, each only moves forward as the cells are visited
+		int[] pointers = new int[FOLLOWING_ROWS.length];
+		CubeCursor<Aircraft> cell = cube.cursor();
+		CubeCursor<Aircraft> neighbour = cube.cursor();
+		for (int i = 0; i < layer.size && layer.codes[i] / width <= lastRow; i++) {
+			int x = (int) (layer.codes[i] % width);
+			int y = (int) (layer.codes[i] / width);
+			cell.seek(x, y, z);
+			IterableQueue<Aircraft> aircraft = cell.getAll();
+			if (aircraft.size() > 1) {
+				report.addSharedCell(copy(aircraft));
+			}
+			for (int k = 0; k < FOLLOWING_ROWS.length; k++) {
+				int row = y + FOLLOWING_ROWS[k][0];
+				Cells cells = (FOLLOWING_ROWS[k][1] == 0) ? layer : upper;
+				if (row < 0 || row > cube.getBreadth()) {
+					continue;
+				}
+				// The cell after this one in its own row, or the three cells around x in the other rows
+				long first = row * width + ((k == 0) ? x + 1 : Math.max(x - 1, 0));
+				long last = row * width + Math.min(x + 1, cube.getLength());
+				int p = pointers[k];
+				while (p < cells.size && cells.codes[p] < first) {
+					p++;
+				}
+				pointers[k] = p;
+				for (; p < cells.size && cells.codes[p] <= last; p++) {
+					neighbour.seek((int) (cells.codes[p] % width), row, z + FOLLOWING_ROWS[k][1]);
+					for (Aircraft firstAircraft : aircraft) {
+						for (Aircraft secondAircraft : neighbour.getAll()) {
+							report.addProximityPair(firstAircraft, secondAircraft);
+						}
+					}
+				}
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Sorted cell numbers of the occupied cells of some rows of a layer.
+	 */
+	private static class Cells {
+		private long[] codes = new long[16];
+		private int size = 0;
+
+		Cells() {
+		}
+
+		Cells(Cube<Aircraft> cube, int z, int firstRow, int lastRow, long width) {
+			if (cube.isLayerEmpty(z)) {
+				return;
+			}
+			cube.forEachOccupiedCell(z, (x, y, layer) -> {
+				if (y >= firstRow && y <= lastRow) {
+					if (size == codes.length) {
+						codes = Arrays.copyOf(codes, size * 2);
+					}
+					codes[size++] = y * width + x;
+				}
+			});
+		}
+	}
+
+	// The queue of a cell belongs to the cube, so the report keeps its own copy
+	private static IterableQueue<Aircraft> copy(IterableQueue<Aircraft> aircraft) {
+		TraversableQueue<Aircraft> copy = new TraversableQueue<>();
+		for (Aircraft each : aircraft) {
+			copy.enqueue(each);
+		}
+		return copy;
+	}
+
+}
@@ -1,9 +1,9 @@
 package comp3506.assn1.application;
 
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.Scanner;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 
@@ -19,6 +19,10 @@ public class OneSky {
 	public static final int AUSTRALIA_WIDTH = 5321;
 	public static final int AUSTRALIA_LENGTH = 3428;
 	public static final int FLIGHT_CEILING = 35;
+	private static final int RADAR_BATCH = 64;	// Most aircraft taken from the radar queue per processing step.
+	private static final int PIPELINE_AIRCRAFT = 200000;	// Aircraft identified per run of the pipeline mode.
+	private static final int PIPELINE_QUEUE_CAPACITY = 4096;
+	private static final int PARTITIONED_RADAR_SITES = 8;
 	private AirSpace australia = new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING);
 	private AirTrafficTracker tracker = new AirTrafficTracker(australia);
 	private List<Radar> radarSites = new ArrayList<>();
@@ -47,7 +51,7 @@ public class OneSky {
 	 * Process any aircraft that have been identified but not added to airspace model.
 	 */
 	public void processAircraft() {
-		tracker.processRadarQueue();
+		tracker.processRadarQueue(RADAR_BATCH);
 	}
 	
 	/**
@@ -71,6 +75,72 @@ public class OneSky {
 		}		
 	}
 	
+	/**
+	 * Start the pipeline simulation: radar sites on their own threads feed the airspace through a bounded queue.
+	 * The same number of aircraft is identified with 1, 2, 4, ... and finally maxRadarSites sites, sharing the
+	 * work between them, and the ingest throughput of each run is printed.
+	 * 
+	 * @param maxRadarSites Number of radar sites of the last run.
+	 * @throws InterruptedException If the main thread is interrupted while waiting for a run.
+	 */
+	public static void pipeline(int maxRadarSites) throws InterruptedException {
+		System.out.println("Radar sites run on " + (RadarPipeline.usesVirtualThreads() ? "virtual" : "platform") 
+				           + " threads, " + Runtime.getRuntime().availableProcessors() + " processors");
+		for (int sites = 1; sites <= maxRadarSites; sites = (sites == maxRadarSites) ? sites + 1 
+				                                                  : Math.min(sites * 2, maxRadarSites)) {
+			AirSpace airSpace = new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, PIPELINE_AIRCRAFT);
+			RadarPipeline pipeline = new RadarPipeline(airSpace, sites, PIPELINE_AIRCRAFT / sites, 
+					                                   PIPELINE_QUEUE_CAPACITY);
+			long start = System.nanoTime();
+			pipeline.start();
+			pipeline.awaitCompletion();
+			long elapsed = Math.max(System.nanoTime() - start, 1);
+			System.out.println(sites + " radar sites: " + pipeline.processed() + " aircraft in " 
+					           + elapsed / 1000000 + " ms, " + pipeline.processed() * 1000000 / elapsed + " aircraft/ms");
+		}
+	}
+	
+	/**
+	 * Start the partitioned simulation: PARTITIONED_RADAR_SITES radar sites on their own threads feed an airspace
+	 * split into strips, each updated by its own thread. The same aircraft are identified with 1, 2, 4, ... and
+	 * finally maxPartitions strips, and the ingest throughput of each run is printed.
+	 * 
+	 * @param maxPartitions Number of strips of the last run.
+	 * @throws InterruptedException If the main thread is interrupted while waiting for a run.
+	 */
+	public static void partitioned(int maxPartitions) throws InterruptedException {
+		System.out.println(PARTITIONED_RADAR_SITES + " radar sites, " + Runtime.getRuntime().availableProcessors() 
+				           + " processors");
+		ThreadFactory radarThreads = RadarPipeline.radarThreadFactory();
+		for (int partitions = 1; partitions <= maxPartitions; 
+				partitions = (partitions == maxPartitions) ? partitions + 1 : Math.min(partitions * 2, maxPartitions)) {
+			PartitionedAirSpace airSpace = new PartitionedAirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, 
+					                                               partitions, PIPELINE_QUEUE_CAPACITY);
+			List<Thread> threads = new ArrayList<>();
+			for (int i = 0; i < PARTITIONED_RADAR_SITES; i++) {
+				Radar radar = new Radar(airSpace::newAircraft, AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, 
+						                "R" + i + "-");
+				threads.add(radarThreads.newThread(() -> {
+					for (int report = 0; report < PIPELINE_AIRCRAFT / PARTITIONED_RADAR_SITES; report++) {
+						radar.aircraftIdentified();
+					}
+				}));
+			}
+			long start = System.nanoTime();
+			airSpace.start();
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			airSpace.close();
+			long elapsed = Math.max(System.nanoTime() - start, 1);
+			System.out.println(partitions + " partitions: " + airSpace.size() + " aircraft in " + elapsed / 1000000 
+					           + " ms, " + airSpace.size() * 1000000L / elapsed + " aircraft/ms");
+		}
+	}
+	
 	/**
 	 * Prompt a user at the console with a yes/no question and return the result.
 	 * 
@@ -102,15 +172,22 @@ public class OneSky {
 			
 			if (prompt(input, "Do you want to search for an aircraft in the tracking queue (Y/N)?")) {
 				System.out.println("Enter the aircraft id:");
-				String id = input.nextLine();
-				
-				Iterator<Aircraft> it = tracker.radarQueueIterator();
-				while (it.hasNext()) {
-					Aircraft aircraft = it.next();
-					System.out.println(aircraft);
-					if (aircraft.getId().equalsIgnoreCase(id)) {
-						System.out.println(aircraft + " was found in the tracking queue waiting to be processed.");
-					}
+				Aircraft aircraft = tracker.findQueued(input.nextLine());
+				if (aircraft != null) {
+					System.out.println(aircraft + " was found in the tracking queue waiting to be processed.");
+				} else {
+					System.out.println("The aircraft is not in the tracking queue.");
+				}
+			}
+			
+			if (prompt(input, "Do you want to search for an aircraft in the air space (Y/N)?")) {
+				System.out.println("Enter the aircraft id:");
+				Aircraft aircraft = australia.locate(input.nextLine());
+				if (aircraft != null) {
+					System.out.println(aircraft + " is in the air space at (" + aircraft.getAirSpaceXCoord() + ", "
+							           + aircraft.getAirSpaceYCoord() + ").");
+				} else {
+					System.out.println("The aircraft is not in the air space.");
 				}
 			}
 			
@@ -120,12 +197,17 @@ public class OneSky {
 	}
 
 	
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException {
 		if (args.length > 0 && args[0].equalsIgnoreCase("auto")) {		// Start automated simulation mode.
 			OneSky simulation = new OneSky(Integer.parseInt(args[1]));
 			simulation.automated();
+		} else if (args.length > 1 && args[0].equalsIgnoreCase("pipeline")) {	// Start pipeline simulation mode.
+			pipeline(Integer.parseInt(args[1]));
+		} else if (args.length > 1 && args[0].equalsIgnoreCase("partitioned")) {	// Start partitioned mode.
+			partitioned(Integer.parseInt(args[1]));
 		} else if (args.length > 0) {									// Output program usage pattern.
-			System.out.println("Usage: java OneSky auto numberOfIterations or java OneSky");
+			System.out.println("Usage: java OneSky auto numberOfIterations, java OneSky pipeline numberOfRadarSites, "
+					           + "java OneSky partitioned numberOfPartitions or java OneSky");
 		} else {														// Start interactive simulation mode.
 			OneSky simulation = new OneSky(0);
 			simulation.interactive();
@@ -0,0 +1,295 @@
+package comp3506.assn1.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.MpscBoundedQueue;
+import comp3506.assn1.adts.MpscBoundedQueue.Backpressure;
+
+
+/**
+ * Airspace split into strips along the x axis, each owned by its own consumer thread so that the strips are
+ * updated in parallel without sharing any lock. Aircraft reported from any number of threads are routed to the
+ * bounded queue of the strip that holds their x coordinate, and the consumer of a strip is the only thread that
+ * changes its airspace model.
+ *
+ * An aircraft in the first or last column of a strip is also copied, as a ghost, into the model of the strip on
+ * the other side of that edge. Every model therefore holds all the neighbours of the aircraft it owns, and
+ * conflicts across the edges are found without reading another strip's model. When an aircraft is reported in a
+ * new place, the strips that held its previous report but do not get the new one are told to remove it. The
+ * reports of one aircraft must come from one thread at a time, as they do from a radar site.
+ *
+ * The airspace is filled in a session: start the consumers, report aircraft, then close it. It may only be
+ * queried once it is closed. If a consumer fails to apply an update, the airspace stops taking reports: the
+ * consumers discard the updates still queued, so that no reporting thread stays blocked, and both newAircraft
+ * and close throw.
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+public class PartitionedAirSpace implements AutoCloseable {
+
+	private static final int BATCH = 256;	// Most updates a consumer takes from its queue at once.
+
+	// Kinds of the updates sent to a strip.
+	private static final int OWNED = 0;	// Add an aircraft whose x coordinate is in the strip.
+	private static final int GHOST = 1;	// Add a copy of an aircraft of a neighbouring strip.
+	private static final int REMOVE = 2;	// Remove a previous report of an aircraft.
+
+	private final AirSpace[] strips;
+	private final List<MpscBoundedQueue<Update>> queues = new ArrayList<>();
+	private final Thread[] consumers;
+	private final int stripWidth;	// Number of columns of each strip, the last one may have fewer.
+	private final Map<String, Aircraft> latestById = new ConcurrentHashMap<>();	// Last report of each aircraft.
+	private volatile boolean closing = false;
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();	// First failure of a consumer.
+
+	/**
+	 * Create an airspace split into strips. Nothing is processed until it is started.
+	 *
+	 * @param length of the airspace in kilometres.
+	 * @param breadth of the airspace in kilometres.
+	 * @param height of the airspace in kilometres.
+	 * @param partitions Number of strips, each with its own consumer thread.
+	 * @param queueCapacity Maximum number of updates waiting for each strip.
+	 * @throws IllegalArgumentException If the number of strips is not positive or larger than the number of
+	 *                                  columns, or the capacity is not positive.
+	 */
+	public PartitionedAirSpace(int length, int breadth, int height, int partitions, int queueCapacity)
+			throws IllegalArgumentException {
+		if (partitions <= 0 || partitions > length + 1) {
+			throw new IllegalArgumentException();
+		}
+		stripWidth = (length + partitions) / partitions;
+		strips = new AirSpace[partitions];
+		consumers = new Thread[partitions];
+		for (int i = 0; i < partitions; i++) {
+			strips[i] = new AirSpace(length, breadth, height);
+			MpscBoundedQueue<Update> queue = new MpscBoundedQueue<>(queueCapacity, Backpressure.BLOCK);
+			queues.add(queue);
+			AirSpace strip = strips[i];
+			consumers[i] = new Thread(() -> consume(strip, queue), "airspace-strip-" + i);
+		}
+	}
+
+	/**
+	 * Start the consumer threads of the strips.
+	 *
+	 * @throws IllegalThreadStateException If the airspace was already started.
+	 */
+	public void start() {
+		for (Thread consumer : consumers) {
+			consumer.start();
+		}
+	}
+
+	/**
+	 * Route an aircraft to the strip that owns its position, and to the neighbouring strip if it is on the edge
+	 * of its strip. May be called from several threads at the same time, while the airspace is started. Waits
+	 * while the queue of a strip is full.
+	 *
+	 * @param aircraft to add to the airspace, replacing any previous report of the same aircraft.
+	 * @throws IllegalStateException If a consumer has failed to apply an update, with the failure as its cause.
+	 */
+	public void newAircraft(Aircraft aircraft) throws IllegalStateException {
+		checkFailure();
+		Aircraft previous = latestById.put(Aircraft.idKey(aircraft.getId()), aircraft);
+		int first = firstStrip(aircraft);
+		int last = lastStrip(aircraft);
+		if (previous != null) {
+			for (int i = firstStrip(previous); i <= lastStrip(previous); i++) {
+				if (i < first || i > last) {
+					queues.get(i).enqueue(new Update(previous, REMOVE));
+				}
+			}
+		}
+		int owner = strip(aircraft.getAirSpaceXCoord());
+		for (int i = first; i <= last; i++) {
+			queues.get(i).enqueue(new Update(aircraft, (i == owner) ? OWNED : GHOST));
+		}
+	}
+
+	/**
+	 * Wait for the consumers to process every update routed so far, then stop them. The caller must make sure
+	 * that no aircraft is reported any more. If the calling thread is interrupted while waiting, close returns
+	 * early with the interrupt status of the thread set, and may be called again to wait again.
+	 *
+	 * @throws IllegalStateException If a consumer has failed to apply an update, with the failure as its cause.
+	 */
+	@Override
+	public void close() throws IllegalStateException {
+		closing = true;
+		try {
+			for (Thread consumer : consumers) {
+				consumer.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		checkFailure();
+	}
+
+	/**
+	 * @return Number of strips.
+	 */
+	public int getPartitions() {
+		return strips.length;
+	}
+
+	/**
+	 * @return Number of aircraft in the airspace, once it is closed.
+	 */
+	public int size() {
+		return latestById.size();
+	}
+
+	/**
+	 * Find an aircraft once the airspace is closed.
+	 *
+	 * @param id of the aircraft, ignoring case.
+	 * @return The aircraft, or null if it is not in the airspace.
+	 */
+	public Aircraft locate(String id) {
+		Aircraft latest = latestById.get(Aircraft.idKey(id));
+		return (latest == null) ? null : strips[strip(latest.getAirSpaceXCoord())].locate(id);
+	}
+
+	/**
+	 * Perform an action on every aircraft in the cell of the given aircraft and in the 26 cells around it,
+	 * including the given aircraft itself, once the airspace is closed. The cells on the other side of the edge
+	 * of a strip are read from the ghosts of the strip that owns the aircraft.
+	 *
+	 * @param aircraft whose neighbourhood is visited.
+	 * @param action to be performed on each aircraft in the neighbourhood.
+	 */
+	public void forEachNeighbour(Aircraft aircraft, Consumer<? super Aircraft> action) {
+		strips[strip(aircraft.getAirSpaceXCoord())].forEachNeighbour(aircraft, action);
+	}
+
+	/**
+	 * Sweep the whole airspace for conflicts once it is closed. Each strip is swept with its ghosts, and a
+	 * conflict is kept by the strip that owns its cell, or for a pair across an edge, by the strip on the left
+	 * of the edge, so that each conflict is reported once.
+	 *
+	 * @return Every cell shared by several aircraft and every pair of aircraft in neighbouring cells.
+	 */
+	public ConflictReport sweepConflicts() {
+		ConflictReport report = new ConflictReport();
+		for (int i = 0; i < strips.length; i++) {
+			ConflictReport part = strips[i].sweepConflicts();
+			for (IterableQueue<Aircraft> cell : part.getSharedCells()) {
+				if (strip(cell.iterator().next().getAirSpaceXCoord()) == i) {
+					report.addSharedCell(cell);
+				}
+			}
+			for (Aircraft[] pair : part.getProximityPairs()) {
+				if (Math.min(strip(pair[0].getAirSpaceXCoord()), strip(pair[1].getAirSpaceXCoord())) == i) {
+					report.addProximityPair(pair[0], pair[1]);
+				}
+			}
+		}
+		return report;
+	}
+
+	// Body of the consumer thread of a strip, which records its failure instead of dying with it
+	private void consume(AirSpace strip, MpscBoundedQueue<Update> queue) {
+		try {
+			drain(strip, queue);
+		} catch (RuntimeException | Error e) {
+			failure.compareAndSet(null, e);
+			// Keep draining without applying, so that no reporting thread stays blocked on a full queue
+			drain(null, queue);
+		}
+	}
+
+	// Apply the updates of one strip until the airspace is closed and the queue is empty. The updates are
+	// discarded once any consumer has failed, or if there is no strip to apply them to.
+	private void drain(AirSpace strip, MpscBoundedQueue<Update> queue) {
+		// Updates are applied in queue order, so the removal of a report never overtakes its addition
+		List<Update> batch = new ArrayList<>(BATCH);
+		while (true) {
+			// Read the flag before draining, so that the updates routed before it was set are all applied
+			boolean last = closing;
+			int drained = queue.drainTo(batch::add, BATCH);
+			if (strip != null && failure.get() == null) {
+				for (Update update : batch) {
+					apply(strip, update);
+				}
+			}
+			batch.clear();
+			if (drained == 0) {
+				if (last) {
+					break;
+				}
+				Thread.yield();
+			}
+		}
+	}
+
+	private static void apply(AirSpace strip, Update update) {
+		Aircraft aircraft = update.aircraft;
+		switch (update.kind) {
+		case OWNED:
+			if (strip.addAircraft(aircraft)) {
+				System.out.println(aircraft + " has entered an occupied cell in the air space!");
+			}
+			break;
+		case GHOST:
+			// Ghosts only share cells with other ghosts, which their owners report
+			strip.addAircraft(aircraft);
+			break;
+		default:
+			// Unless the strip has already been given a newer report of the aircraft
+			if (strip.locate(aircraft.getId()) == aircraft) {
+				strip.removeAircraft(aircraft.getId());
+			}
+		}
+	}
+
+	// Stop the caller if a consumer has failed
+	private void checkFailure() throws IllegalStateException {
+		Throwable cause = failure.get();
+		if (cause != null) {
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	// Strip that owns the column x
+	private int strip(int x) {
+		return x / stripWidth;
+	}
+
+	// First strip whose model holds the aircraft, the strip on the left if it is in the first column of its strip
+	private int firstStrip(Aircraft aircraft) {
+		int x = aircraft.getAirSpaceXCoord();
+		int owner = strip(x);
+		return (owner > 0 && x == owner * stripWidth) ? owner - 1 : owner;
+	}
+
+	// Last strip whose model holds the aircraft, the strip on the right if it is in the last column of its strip
+	private int lastStrip(Aircraft aircraft) {
+		int x = aircraft.getAirSpaceXCoord();
+		int owner = strip(x);
+		return (owner < strips.length - 1 && x == (owner + 1) * stripWidth - 1) ? owner + 1 : owner;
+	}
+
+	/**
+	 * An aircraft to be added to or removed from the model of a strip.
+	 */
+	private static class Update {
+		final Aircraft aircraft;
+		final int kind;
+
+		Update(Aircraft aircraft, int kind) {
+			this.aircraft = aircraft;
+			this.kind = kind;
+		}
+	}
+
+}
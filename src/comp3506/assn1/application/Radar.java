@@ -1,6 +1,7 @@
 package comp3506.assn1.application;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 
 /**
@@ -11,14 +12,36 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public class Radar {
 	
-	private AirTrafficTracker tracker;
+	private Consumer<Aircraft> sink;	// Receives each aircraft that is identified.
+	
+	// Dimensions of the air space in kilometres.
+	private int length;
+	private int breadth;
+	private int height;
 	
 	// aircraftIdTag and id are used to generate unique identifiers for each aircraft.
 	private String aircraftIdTag;
 	private int id;
 
 	public Radar(AirTrafficTracker tracker, String aircraftIdTag) {
-		this.tracker = tracker;
+		this(tracker::newAircraft, tracker.getLength(), tracker.getBreadth(), tracker.getHeight(), aircraftIdTag);
+	}
+	
+	/**
+	 * Create a radar site that hands the aircraft it identifies to something other than a tracker, e.g. a
+	 * partitioned airspace.
+	 * 
+	 * @param sink Receives each aircraft that is identified.
+	 * @param length of the air space covered by the site.
+	 * @param breadth of the air space covered by the site.
+	 * @param height of the air space covered by the site.
+	 * @param aircraftIdTag Prefix of the ids given to the aircraft.
+	 */
+	public Radar(Consumer<Aircraft> sink, int length, int breadth, int height, String aircraftIdTag) {
+		this.sink = sink;
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
 		this.aircraftIdTag = aircraftIdTag;
 		id = 10;
 	}
@@ -33,12 +56,12 @@ public class Radar {
 		final double HEADING_RANGE = 360;	// degrees
 		final int METRES_PER_KILOMETRE = 1000;
 		
-		tracker.newAircraft(new Aircraft(aircraftIdTag+id++, 
-										 ThreadLocalRandom.current().nextInt(0, tracker.getLength()), 
-										 ThreadLocalRandom.current().nextInt(0, tracker.getBreadth()), 
-										 ThreadLocalRandom.current().nextInt(0, tracker.getHeight()*METRES_PER_KILOMETRE), 
-										 ThreadLocalRandom.current().nextInt(MIN_AIRSPEED, MAX_AIRSPEED), 
-										 ThreadLocalRandom.current().nextDouble(NORTH, HEADING_RANGE)));
+		sink.accept(new Aircraft(aircraftIdTag+id++, 
+								 ThreadLocalRandom.current().nextInt(0, length), 
+								 ThreadLocalRandom.current().nextInt(0, breadth), 
+								 ThreadLocalRandom.current().nextInt(0, height*METRES_PER_KILOMETRE), 
+								 ThreadLocalRandom.current().nextInt(MIN_AIRSPEED, MAX_AIRSPEED), 
+								 ThreadLocalRandom.current().nextDouble(NORTH, HEADING_RANGE)));
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package comp3506.assn1.application;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import comp3506.assn1.adts.MpscBoundedQueue;
+
+
+/**
+ * Feeds the airspace from several radar sites at once. Each radar site runs on its own thread and hands the
+ * aircraft it identifies to the tracker's bounded radar queue, waiting for room when the queue is full. A single
+ * consumer thread drains the queue into the airspace in batches, as the airspace model has a single writer.
+ *
+ * The radar threads are virtual threads when the Java runtime provides them, and platform threads otherwise.
+ * Closing the pipeline stops the radar sites, waits for them to hand over their last aircraft and then for the
+ * consumer to add every queued aircraft to the airspace. If the consumer fails to add an aircraft, the radar
+ * sites are stopped and the aircraft still queued are discarded, so that no radar site stays blocked.
+ *
+ * @author Vu Anh LE <s4490763@student.uq.edu.au>
+ *
+ */
+public class RadarPipeline implements AutoCloseable {
+
+	private static final int BATCH = 256;	// Most aircraft the consumer takes from the queue at once.
+	private static final ThreadFactory VIRTUAL_THREADS = virtualThreadFactory();	// null if unavailable.
+
+	private final AirTrafficTracker tracker;
+	private final List<Thread> radarThreads = new ArrayList<>();
+	private final Thread consumerThread;
+	private volatile boolean stopping = false;	// Set when the radar sites must stop identifying aircraft.
+	private volatile boolean radarsDone = false;	// Set once every radar thread has finished.
+	private volatile long processed = 0;	// Only written by the consumer thread.
+	private volatile Throwable failure = null;	// What stopped the consumer, null while it works.
+
+	/**
+	 * Create a pipeline whose radar sites each identify up to reportsPerSite aircraft. Nothing runs until the
+	 * pipeline is started.
+	 *
+	 * @param airSpace to which the identified aircraft are added, only by the consumer thread. Other threads
+	 *                 may query it while the pipeline runs if it was created by AirSpace.withConcurrentQueries.
+	 * @param radarSites Number of radar sites, each on its own thread.
+	 * @param reportsPerSite Number of aircraft identified by each site, unless the pipeline is closed earlier.
+	 * @param queueCapacity Maximum number of aircraft waiting in the radar queue.
+	 * @throws IllegalArgumentException If the number of sites or the capacity is not positive, or the number
+	 *                                  of reports is negative.
+	 */
+	public RadarPipeline(AirSpace airSpace, int radarSites, int reportsPerSite, int queueCapacity)
+			throws IllegalArgumentException {
+		if (radarSites <= 0 || reportsPerSite < 0) {
+			throw new IllegalArgumentException();
+		}
+		tracker = new AirTrafficTracker(airSpace, 0, queueCapacity, MpscBoundedQueue.Backpressure.BLOCK);
+		ThreadFactory factory = radarThreadFactory();
+		for (int i = 0; i < radarSites; i++) {
+			Radar radar = new Radar(tracker, "R" + i + "-");
+			radarThreads.add(factory.newThread(() -> {
+				for (int report = 0; report < reportsPerSite && !stopping; report++) {
+					radar.aircraftIdentified();
+				}
+			}));
+		}
+		consumerThread = new Thread(this::consume, "radar-consumer");
+	}
+
+	/**
+	 * Start the consumer and the radar sites.
+	 *
+	 * @throws IllegalThreadStateException If the pipeline was already started.
+	 */
+	public void start() {
+		consumerThread.start();
+		for (Thread thread : radarThreads) {
+			thread.start();
+		}
+	}
+
+	/**
+	 * Wait for the radar sites to identify all their aircraft and for the consumer to add them to the airspace.
+	 * Only one thread may wait for or close the pipeline.
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting.
+	 * @throws IllegalStateException If the consumer failed to add an aircraft to the airspace, with the failure
+	 *                               as its cause.
+	 */
+	public void awaitCompletion() throws InterruptedException, IllegalStateException {
+		// The consumer keeps draining while the radar threads finish, so none stays blocked on a full queue
+		for (Thread thread : radarThreads) {
+			thread.join();
+		}
+		radarsDone = true;
+		consumerThread.join();
+		if (failure != null) {
+			throw new IllegalStateException(failure);
+		}
+	}
+
+	/**
+	 * Stop the radar sites, then wait until every aircraft they have identified has been added to the airspace.
+	 * Only one thread may wait for or close the pipeline. If the calling thread is interrupted while waiting,
+	 * close returns early with the interrupt status of the thread set, and awaitCompletion may be called to
+	 * wait again.
+	 *
+	 * @throws IllegalStateException If the consumer failed to add an aircraft to the airspace, with the failure
+	 *                               as its cause.
+	 */
+	@Override
+	public void close() throws IllegalStateException {
+		stopping = true;
+		try {
+			awaitCompletion();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return Number of aircraft added to the airspace so far, all of them once the pipeline has completed.
+	 */
+	public long processed() {
+		return processed;
+	}
+
+	/**
+	 * @return The tracker fed by the radar sites, e.g. to search the radar queue.
+	 */
+	public AirTrafficTracker getTracker() {
+		return tracker;
+	}
+
+	private void consume() {
+		try {
+			drain(false);
+		} catch (RuntimeException | Error e) {
+			// Stop the radar sites, and keep draining so that none stays blocked on a full queue
+			failure = e;
+			stopping = true;
+			drain(true);
+		}
+	}
+
+	// Drain the radar queue until the radar sites are done and the queue is empty
+	private void drain(boolean discard) {
+		while (true) {
+			// Read the flag before draining, so that the aircraft queued before it was set are all drained
+			boolean last = radarsDone;
+			int batch;
+			if (discard) {
+				batch = tracker.discardRadarQueue(BATCH);
+			} else {
+				batch = tracker.processRadarQueue(BATCH);
+				processed += batch;
+			}
+			if (batch == 0) {
+				if (last) {
+					break;
+				}
+				Thread.yield();
+			}
+		}
+	}
+
+	/**
+	 * @return true if the radar sites run on virtual threads.
+	 */
+	public static boolean usesVirtualThreads() {
+		return (VIRTUAL_THREADS != null);
+	}
+
+	/**
+	 * @return A factory of virtual threads if the runtime has them, of platform threads otherwise.
+	 */
+	static ThreadFactory radarThreadFactory() {
+		return (VIRTUAL_THREADS != null) ? VIRTUAL_THREADS : Executors.defaultThreadFactory();
+	}
+
+	// Virtual threads are only part of Java 21 and later, while this code is built for Java 8, so they are
+	// looked up by reflection. Returns null if the runtime does not have them.
+	private static ThreadFactory virtualThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+			return (ThreadFactory) factory.invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+}
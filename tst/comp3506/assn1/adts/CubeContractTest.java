@@ -0,0 +1,396 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of the behaviour shared by every Cube implementation. Each implementation's test class extends it and
+ * only adds the tests specific to that implementation.
+ */
+public abstract class CubeContractTest {
+
+	/**
+	 * @return An empty cube of the implementation under test.
+	 */
+	protected abstract <T> Cube<T> newCube(int length, int breadth, int height);
+
+	/**
+	 * @return true if the getAll of the cursors of the cube returns the queue the cube keeps for the cell.
+	 */
+	protected boolean cursorSharesCells() {
+		return false;
+	}
+
+	@Test
+	public void testGetWithOneElement() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		Object element = new Object();
+		testCube.add(1, 1, 1, element);
+		assertEquals(element, testCube.get(1, 1, 1));
+		testCube.add(10, 9, 1, element);
+		assertEquals(element, testCube.get(10, 9, 1));
+		assertNull(testCube.get(9, 10, 1));
+		assertNull(testCube.get(9, 10, 2));
+	}
+
+	@Test
+	public void testGetWithMultipleElement() {
+		Cube<Object> testCube = newCube(10, 10, 1);
+		Object element1 = new Object();
+		Object element2 = new Object();
+		Object element3 = new Object();
+
+		testCube.add(1, 1, 1, element1);
+		testCube.add(1, 1, 1, element2);
+		testCube.add(1, 1, 1, element3);
+
+		assertEquals(element1, testCube.get(1, 1, 1));
+		assertEquals(3, testCube.getAll(1, 1, 1).size());
+		assertTrue(testCube.isMultipleElementsAt(1, 1, 1));
+		testCube.remove(1, 1, 1, element1);
+		assertEquals(element2, testCube.get(1, 1, 1));
+		testCube.remove(1, 1, 1, element2);
+		assertFalse(testCube.isMultipleElementsAt(1, 1, 1));
+		testCube.remove(1, 1, 1, element3);
+		assertNull(testCube.get(1, 1, 1));
+		assertNull(testCube.getAll(1, 1, 1));
+	}
+
+	@Test
+	public void testNegativePosition() {
+		Cube<Object> testCube = newCube(5, 5, 5);
+		try {
+			testCube.add(-1, 0, 0, new Object());
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			testCube.get(0, 6, 0);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			testCube.remove(0, 0, 6, new Object());
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeArgument() {
+		newCube(10, 0, 5);
+	}
+
+	@Test
+	public void testRandomAddAndRemove() {
+		Random r = new Random(7505);
+		Cube<Object> testCube = newCube(100, 100, 35);
+		int[][] positions = new int[5000][];
+		Object[] objects = new Object[5000];
+		for (int i = 0; i < 5000; i++) {
+			positions[i] = new int[] { r.nextInt(101), r.nextInt(101), r.nextInt(36) };
+			objects[i] = new Object();
+			testCube.add(positions[i][0], positions[i][1], positions[i][2], objects[i]);
+		}
+		// Remove every second element, then check that the others are still there
+		for (int i = 0; i < 5000; i += 2) {
+			assertTrue(testCube.remove(positions[i][0], positions[i][1], positions[i][2], objects[i]));
+		}
+		for (int i = 1; i < 5000; i += 2) {
+			boolean found = false;
+			for (Object o : testCube.getAll(positions[i][0], positions[i][1], positions[i][2])) {
+				found |= (o == objects[i]);
+			}
+			assertTrue(found);
+		}
+	}
+
+	@Test
+	public void testQueryBox() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		Object inside1 = new Object();
+		Object inside2 = new Object();
+		testCube.add(2, 3, 1, inside1);
+		testCube.add(4, 4, 2, inside2);
+		testCube.add(5, 4, 2, new Object());
+		testCube.add(0, 0, 0, new Object());
+		IterableQueue<Object> result = testCube.queryBox(1, 1, 1, 4, 4, 2);
+		assertEquals(2, result.size());
+		assertNotNull(testCube.queryBox(6, 6, 3, 10, 10, 5));
+		assertEquals(0, testCube.queryBox(6, 6, 3, 10, 10, 5).size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testQueryInvertedBox() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		testCube.queryBox(5, 5, 5, 4, 5, 5);
+	}
+
+	@Test
+	public void testForEachNeighbour() {
+		Cube<Object> testCube = newCube(100, 100, 5);
+		// Neighbours on both sides of (32, 32), which is on the edge of a brick
+		testCube.add(32, 32, 2, new Object());
+		testCube.add(31, 33, 3, new Object());
+		testCube.add(33, 31, 1, new Object());
+		testCube.add(31, 31, 1, new Object());
+		testCube.add(31, 31, 1, new Object());
+		testCube.add(34, 32, 2, new Object());
+		testCube.add(32, 32, 4, new Object());
+		int[] count = { 0 };
+		testCube.forEachNeighbour(32, 32, 2, element -> count[0]++);
+		assertEquals(5, count[0]);
+		// Cells outside of the cube are ignored at the corners
+		testCube.add(0, 1, 0, new Object());
+		count[0] = 0;
+		testCube.forEachNeighbour(0, 0, 0, element -> count[0]++);
+		assertEquals(1, count[0]);
+		count[0] = 0;
+		testCube.forEachNeighbour(100, 100, 5, element -> count[0]++);
+		assertEquals(0, count[0]);
+	}
+
+	@Test
+	public void testRemoveInPlace() {
+		Cube<Object> testCube = newCube(100, 100, 10);
+		Object element = new Object();
+		testCube.add(3, 4, 5, 1);
+		testCube.add(3, 4, 5, element);
+		testCube.add(3, 4, 5, 2);
+		CubeCursor<Object> cursor = testCube.cursor();
+		assertTrue(cursor.seek(3, 4, 5));
+		IterableQueue<Object> queue = cursor.getAll();
+		assertTrue(testCube.remove(3, 4, 5, element));
+		// The cell keeps its queue, the element is unlinked from it
+		assertTrue(cursor.seek(3, 4, 5));
+		if (cursorSharesCells()) {
+			assertSame(queue, cursor.getAll());
+		}
+		assertEquals(2, cursor.getAll().size());
+		assertEquals(1, cursor.get());
+		assertEquals(2, testCube.size());
+		testCube.remove(3, 4, 5, 1);
+		testCube.remove(3, 4, 5, 2);
+		assertNull(testCube.getAll(3, 4, 5));
+		assertEquals(0, testCube.occupiedCells());
+	}
+
+	@Test
+	public void testGetAllIsACopy() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		Object element = new Object();
+		testCube.add(1, 1, 1, element);
+		// Emptying the returned queue in any way leaves the cell as it was
+		testCube.getAll(1, 1, 1).dequeue();
+		assertTrue(testCube.getAll(1, 1, 1).remove(element));
+		Iterator<Object> iterator = testCube.getAll(1, 1, 1).iterator();
+		iterator.next();
+		iterator.remove();
+		assertEquals(element, testCube.get(1, 1, 1));
+		assertEquals(1, testCube.getAll(1, 1, 1).size());
+		assertCounts(testCube, 1, 1, 0);
+		assertEquals(1, testCube.countOccupiedCells(0, 0, 10, 10, 1));
+	}
+
+	@Test
+	public void testMove() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		Object element = new Object();
+		Object other = new Object();
+		Object waiting = new Object();
+		testCube.add(1, 1, 1, element);
+		testCube.add(1, 1, 1, other);
+		testCube.add(2, 3, 4, waiting);
+		assertTrue(testCube.move(1, 1, 1, 2, 3, 4, element));
+		assertEquals(other, testCube.get(1, 1, 1));
+		assertFalse(testCube.isMultipleElementsAt(1, 1, 1));
+		// The moved element becomes the newest element of the destination
+		assertEquals(waiting, testCube.get(2, 3, 4));
+		assertEquals(2, testCube.getAll(2, 3, 4).size());
+		assertFalse(testCube.move(1, 1, 1, 2, 3, 4, element));
+		// Moving the last element of a cell drops the cell
+		assertTrue(testCube.move(1, 1, 1, 1, 2, 1, other));
+		assertNull(testCube.get(1, 1, 1));
+		assertNull(testCube.getAll(1, 1, 1));
+		assertEquals(other, testCube.get(1, 2, 1));
+		assertTrue(testCube.move(1, 2, 1, 1, 2, 1, other));
+		assertEquals(other, testCube.get(1, 2, 1));
+		assertEquals(3, testCube.queryBox(0, 0, 0, 10, 10, 5).size());
+	}
+
+	@Test
+	public void testMoveWithinCell() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		Object element = new Object();
+		Object other = new Object();
+		testCube.add(1, 1, 1, element);
+		testCube.add(1, 1, 1, other);
+		assertFalse(testCube.move(1, 1, 1, 1, 1, 1, new Object()));
+		// Moving an element to its own cell makes it the newest element of the cell
+		assertTrue(testCube.move(1, 1, 1, 1, 1, 1, element));
+		assertEquals(other, testCube.get(1, 1, 1));
+		Iterator<Object> iterator = testCube.getAll(1, 1, 1).iterator();
+		assertEquals(other, iterator.next());
+		assertEquals(element, iterator.next());
+		assertFalse(iterator.hasNext());
+		assertCounts(testCube, 2, 1, 1);
+		assertEquals(2, testCube.layerSize(1));
+		// A single element stays in its cell
+		testCube.add(2, 2, 2, element);
+		assertTrue(testCube.move(2, 2, 2, 2, 2, 2, element));
+		assertEquals(element, testCube.get(2, 2, 2));
+		assertCounts(testCube, 3, 2, 1);
+	}
+
+	@Test
+	public void testOccupiedCells() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		assertTrue(testCube.isLayerEmpty(3));
+		Object element = new Object();
+		testCube.add(1, 2, 3, element);
+		testCube.add(1, 2, 3, new Object());
+		testCube.add(9, 2, 3, new Object());
+		testCube.add(4, 7, 3, new Object());
+		testCube.add(4, 7, 4, new Object());
+		assertFalse(testCube.isLayerEmpty(3));
+		assertEquals(3, testCube.countOccupiedCells(0, 0, 10, 10, 3));
+		assertEquals(2, testCube.countOccupiedCells(0, 2, 9, 2, 3));
+		assertEquals(1, testCube.countOccupiedCells(2, 0, 10, 6, 3));
+		List<int[]> cells = new ArrayList<>();
+		testCube.forEachOccupiedCell(3, (x, y, z) -> cells.add(new int[] { x, y, z }));
+		assertEquals(3, cells.size());
+		assertArrayEquals(new int[] { 1, 2, 3 }, cells.get(0));
+		assertArrayEquals(new int[] { 9, 2, 3 }, cells.get(1));
+		assertArrayEquals(new int[] { 4, 7, 3 }, cells.get(2));
+		// Cells stay occupied until their last element leaves
+		testCube.remove(1, 2, 3, element);
+		assertEquals(3, testCube.countOccupiedCells(0, 0, 10, 10, 3));
+		testCube.removeAll(1, 2, 3);
+		testCube.removeAll(1, 2, 3);
+		assertTrue(testCube.move(9, 2, 3, 9, 3, 4, testCube.get(9, 2, 3)));
+		assertEquals(1, testCube.countOccupiedCells(0, 0, 10, 10, 3));
+		assertEquals(2, testCube.countOccupiedCells(0, 0, 10, 10, 4));
+		testCube.clear();
+		for (int z = 0; z <= 5; z++) {
+			assertTrue(testCube.isLayerEmpty(z));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOccupiedCellsOutOfBound() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		testCube.countOccupiedCells(0, 0, 11, 10, 3);
+	}
+
+	@Test
+	public void testCounters() {
+		Cube<Object> testCube = newCube(10, 10, 5);
+		assertEquals(0, testCube.size());
+		Object first = new Object();
+		Object second = new Object();
+		Object third = new Object();
+		Object fourth = new Object();
+		testCube.add(1, 1, 1, first);
+		testCube.add(1, 1, 1, second);
+		testCube.add(2, 2, 1, third);
+		testCube.add(3, 3, 4, fourth);
+		assertCounts(testCube, 4, 3, 1);
+		assertEquals(3, testCube.layerSize(1));
+		assertEquals(1, testCube.layerSize(4));
+		assertTrue(testCube.remove(1, 1, 1, first));
+		assertFalse(testCube.remove(1, 1, 1, first));
+		assertCounts(testCube, 3, 3, 0);
+		assertTrue(testCube.move(2, 2, 1, 1, 1, 1, third));
+		assertCounts(testCube, 3, 2, 1);
+		assertEquals(2, testCube.layerSize(1));
+		assertTrue(testCube.move(3, 3, 4, 3, 3, 2, fourth));
+		assertEquals(0, testCube.layerSize(4));
+		assertEquals(1, testCube.layerSize(2));
+		testCube.removeAll(1, 1, 1);
+		testCube.removeAll(1, 1, 1);
+		assertCounts(testCube, 1, 1, 0);
+		assertEquals(0, testCube.layerSize(1));
+		testCube.clear();
+		assertCounts(testCube, 0, 0, 0);
+		assertEquals(0, testCube.layerSize(2));
+	}
+
+	@Test
+	public void testCountersAgainstCells() {
+		Random r = new Random(3506);
+		// Wide enough for two bricks of a BrickCube, so that they switch between sparse and dense
+		Cube<Integer> testCube = newCube(40, 20, 3);
+		for (int i = 0; i < 20000; i++) {
+			int x = r.nextInt(41), y = r.nextInt(21), z = r.nextInt(4);
+			switch (r.nextInt(4)) {
+			case 0:
+				testCube.removeAll(x, y, z);
+				break;
+			case 1:
+				testCube.remove(x, y, z, r.nextInt(4));
+				break;
+			case 2:
+				Integer moved = testCube.get(x, y, z);
+				if (moved != null) {
+					testCube.move(x, y, z, r.nextInt(41), r.nextInt(21), r.nextInt(4), moved);
+				}
+				break;
+			default:
+				testCube.add(x, y, z, r.nextInt(4));
+			}
+		}
+		int size = 0, occupiedCells = 0, multiOccupiedCells = 0;
+		for (int z = 0; z <= 3; z++) {
+			int layerSize = testCube.queryBox(0, 0, z, 40, 20, z).size();
+			assertEquals(layerSize, testCube.layerSize(z));
+			size += layerSize;
+			for (int y = 0; y <= 20; y++) {
+				for (int x = 0; x <= 40; x++) {
+					if (testCube.get(x, y, z) != null) {
+						occupiedCells++;
+					}
+					if (testCube.isMultipleElementsAt(x, y, z)) {
+						multiOccupiedCells++;
+					}
+				}
+			}
+		}
+		assertCounts(testCube, size, occupiedCells, multiOccupiedCells);
+	}
+
+	@Test
+	public void testStream() {
+		Cube<Integer> testCube = newCube(100, 100, 5);
+		testCube.add(40, 7, 3, 3);
+		testCube.add(1, 2, 3, 1);
+		testCube.add(1, 2, 3, 2);
+		testCube.add(0, 0, 5, 4);
+		testCube.add(100, 100, 0, 0);
+		List<Integer> elements = new ArrayList<>();
+		testCube.stream().forEach(elements::add);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4), elements);
+		assertEquals(Integer.valueOf(0), testCube.stream().findFirst().get());
+		assertEquals(10, testCube.parallelStream().mapToInt(Integer::intValue).sum());
+		List<int[]> cells = new ArrayList<>();
+		testCube.forEachOccupiedCell((x, y, z) -> cells.add(new int[] { x, y, z }));
+		assertEquals(4, cells.size());
+		assertArrayEquals(new int[] { 100, 100, 0 }, cells.get(0));
+		assertArrayEquals(new int[] { 0, 0, 5 }, cells.get(3));
+		testCube.clear();
+		assertEquals(0, testCube.stream().count());
+	}
+
+	protected static void assertCounts(Cube<?> testCube, int size, int occupiedCells, int multiOccupiedCells) {
+		assertEquals(size, testCube.size());
+		assertEquals(occupiedCells, testCube.occupiedCells());
+		assertEquals(multiOccupiedCells, testCube.multiOccupiedCells());
+	}
+
+}
@@ -2,11 +2,25 @@ package comp3506.assn1.adts;
 
 import static org.junit.Assert.*;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
+import org.junit.Assume;
 import org.junit.Test;
 
-public class MyBoundedCubeTest {
+public class MyBoundedCubeTest extends CubeContractTest {
+
+	@Override
+	protected <T> Cube<T> newCube(int length, int breadth, int height) {
+		return new BoundedCube<>(length, breadth, height);
+	}
+
+	@Override
+	protected boolean cursorSharesCells() {
+		return true;
+	}
 
 	@Test
 	public void testGetWithOneElement() {
@@ -222,6 +236,66 @@ public class MyBoundedCubeTest {
 		testCube.add(1, 1, 1, new Object());
 	}
 
+	@Test
+	public void testQueryBox() {
+		Cube<Object> testCube = new BoundedCube<>(10, 10, 5);
+		testCube.add(2, 3, 1, new Object());
+		testCube.add(4, 4, 2, new Object());
+		testCube.add(4, 4, 2, new Object());
+		testCube.add(5, 4, 2, new Object());
+		testCube.add(0, 0, 0, new Object());
+		assertEquals(3, testCube.queryBox(1, 1, 1, 4, 4, 2).size());
+		assertEquals(5, testCube.queryBox(0, 0, 0, 10, 10, 5).size());
+		assertEquals(0, testCube.queryBox(6, 6, 3, 10, 10, 5).size());
+		// The query must not disturb the cursors
+		assertEquals(2, testCube.getAll(4, 4, 2).size());
+	}
+
+	@Test
+	public void testCursor() {
+		Cube<Object> testCube = new BoundedCube<>(100, 100, 5);
+		Object element = new Object();
+		testCube.add(10, 20, 3, element);
+		testCube.add(10, 20, 3, new Object());
+		testCube.add(50, 50, 1, new Object());
+		CubeCursor<Object> cursor = testCube.cursor();
+		assertNull(cursor.getAll());
+		assertTrue(cursor.seek(10, 20, 3));
+		assertEquals(element, cursor.get());
+		assertEquals(2, cursor.getAll().size());
+		assertFalse(cursor.seek(11, 20, 3));
+		assertNull(cursor.get());
+		assertFalse(cursor.seek(10, 21, 3));
+		assertTrue(cursor.seek(50, 50, 1));
+		assertTrue(cursor.seek(10, 20, 3));
+		// The cursor must recover when the cell it was on has been removed
+		testCube.removeAll(10, 20, 3);
+		assertFalse(cursor.seek(10, 20, 3));
+		testCube.remove(50, 50, 1, testCube.get(50, 50, 1));
+		assertFalse(cursor.seek(50, 50, 1));
+		testCube.add(50, 50, 1, element);
+		assertTrue(cursor.seek(50, 50, 1));
+		testCube.clear();
+		assertFalse(cursor.seek(50, 50, 1));
+	}
+
+	@Test
+	public void testInterleavedCursors() {
+		Cube<Object> testCube = new BoundedCube<>(5321, 3428, 35);
+		for (int i = 0; i <= 3000; i++) {
+			testCube.add(i, i, 1, new Object());
+			testCube.add(5321 - i, 3428 - i, 30, new Object());
+		}
+		CubeCursor<Object> first = testCube.cursor();
+		CubeCursor<Object> second = testCube.cursor();
+		// Two scans in different regions, each keeping its own locality
+		for (int i = 0; i <= 3000; i++) {
+			assertTrue(first.seek(i, i, 1));
+			assertTrue(second.seek(5321 - i, 3428 - i, 30));
+			assertFalse(second.seek(5321 - i, 3428 - i, 29));
+		}
+	}
+
 	@Test
 	public void testPerformanceOneCell() {
 		Cube<Object> testCube = new BoundedCube<>(5321, 3428, 35);
@@ -253,6 +327,128 @@ public class MyBoundedCubeTest {
 		testCube.clear();
 	}
 
+	@Test
+	public void testRandomAccessInLongRows() {
+		Random r = new Random(3506);
+		// Few rows, so the x lists are long enough to use their skip pointers
+		Cube<Object> testCube = new BoundedCube<>(5000, 1, 1);
+		int[][] counts = new int[2][5001];
+		for (int i = 0; i < 50000; i++) {
+			int x = r.nextInt(5001), y = r.nextInt(2);
+			if (r.nextInt(3) == 0) {
+				testCube.removeAll(x, y, 1);
+				counts[y][x] = 0;
+			} else {
+				testCube.add(x, y, 1, new Object());
+				counts[y][x]++;
+			}
+			int probe = r.nextInt(5001);
+			assertEquals(counts[y][probe] > 1, testCube.isMultipleElementsAt(probe, y, 1));
+		}
+		for (int y = 0; y <= 1; y++) {
+			int total = 0;
+			for (int x = 0; x <= 5000; x++) {
+				IterableQueue<Object> cell = testCube.getAll(x, y, 1);
+				assertEquals(counts[y][x], (cell == null) ? 0 : cell.size());
+				total += counts[y][x];
+			}
+			assertEquals(total, testCube.queryBox(0, y, 1, 5000, y, 1).size());
+		}
+	}
+
+	@Test
+	public void testPerformanceRandomAccessLarge() {
+		final int aircraft = 200000;
+		Random r = new Random(7505);
+		Cube<Object> testCube = new BoundedCube<>(5321, 3428, 35);
+		long start = System.nanoTime();
+		for (int i = 0; i < aircraft; i++) {
+			testCube.add(r.nextInt(5321), r.nextInt(3428), r.nextInt(35), new Object());
+		}
+		long added = System.nanoTime() - start;
+		int found = 0;
+		start = System.nanoTime();
+		for (int i = 0; i < aircraft; i++) {
+			found += (testCube.get(r.nextInt(5321), r.nextInt(3428), r.nextInt(35)) != null) ? 1 : 0;
+		}
+		long read = System.nanoTime() - start;
+		System.out.println("BoundedCube random access with " + aircraft + " aircraft: " + added / aircraft
+				+ " ns per add, " + read / aircraft + " ns per get (" + found + " found)");
+		assertEquals(aircraft, testCube.size());
+	}
+
+	@Test
+	public void testAddAll() {
+		Cube<int[]> testCube = new BoundedCube<>(10, 10, 5);
+		List<int[]> batch = new ArrayList<>();
+		int[] first = { 3, 3, 3 };
+		int[] second = { 3, 3, 3 };
+		batch.add(new int[] { 9, 1, 4 });
+		batch.add(first);
+		batch.add(new int[] { 0, 0, 0 });
+		batch.add(second);
+		batch.add(new int[] { 2, 3, 3 });
+		testCube.add(3, 3, 3, new int[] { 3, 3, 3 });
+		testCube.addAll(batch, POSITION);
+		assertEquals(3, testCube.getAll(3, 3, 3).size());
+		assertEquals(6, testCube.size());
+		assertEquals(4, testCube.occupiedCells());
+		assertEquals(1, testCube.multiOccupiedCells());
+		assertNotNull(testCube.get(9, 1, 4));
+		assertNotNull(testCube.get(0, 0, 0));
+		assertNotNull(testCube.get(2, 3, 3));
+		// Elements of the same cell keep the order of the batch
+		testCube.removeAll(0, 0, 0);
+		Cube<int[]> orderCube = new BoundedCube<>(10, 10, 5);
+		orderCube.addAll(batch, POSITION);
+		assertSame(first, orderCube.get(3, 3, 3));
+	}
+
+	@Test
+	public void testAddAllOutOfBound() {
+		Cube<int[]> testCube = new BoundedCube<>(10, 10, 5);
+		List<int[]> batch = new ArrayList<>();
+		batch.add(new int[] { 1, 1, 1 });
+		batch.add(new int[] { 1, 1, 6 });
+		try {
+			testCube.addAll(batch, POSITION);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+		assertNull(testCube.get(1, 1, 1));
+	}
+
+	@Test
+	public void testPerformanceRandomAccessBulk() {
+		Random r = new Random();
+		Cube<int[]> testCube = new BoundedCube<>(5321, 3428, 35);
+		List<int[]> batch = new ArrayList<>();
+		for (int i = 0; i <= 20000; i++) {
+			batch.add(new int[] { r.nextInt(5321), r.nextInt(3428), r.nextInt(35) });
+		}
+		testCube.addAll(batch, POSITION);
+		assertEquals(batch.get(0), testCube.get(batch.get(0)[0], batch.get(0)[1], batch.get(0)[2]));
+		testCube.clear();
+	}
+
+	// Elements of the bulk tests are their own position
+	private static final CoordinateExtractor<int[]> POSITION = new CoordinateExtractor<int[]>() {
+		@Override
+		public int x(int[] element) {
+			return element[0];
+		}
+
+		@Override
+		public int y(int[] element) {
+			return element[1];
+		}
+
+		@Override
+		public int z(int[] element) {
+			return element[2];
+		}
+	};
+
 	@Test
 	public void testClearAllLayers() {
 		Random r = new Random();
@@ -269,4 +465,102 @@ public class MyBoundedCubeTest {
 
 	}
 
+	@Test
+	public void testCursorAfterNodesAreReused() {
+		Cube<Object> testCube = new BoundedCube<>(100, 100, 5);
+		Object element = new Object();
+		testCube.add(10, 20, 3, element);
+		testCube.add(30, 20, 3, new Object());
+		testCube.add(30, 40, 3, new Object());
+		CubeCursor<Object> cursor = testCube.cursor();
+		assertTrue(cursor.seek(10, 20, 3));
+		assertTrue(cursor.seek(30, 40, 3));
+		// The removed nodes and row are reused by cells of other rows and layers
+		testCube.removeAll(10, 20, 3);
+		testCube.removeAll(30, 40, 3);
+		testCube.add(5, 60, 3, element);
+		testCube.add(70, 90, 3, new Object());
+		testCube.add(70, 90, 2, new Object());
+		assertFalse(cursor.seek(10, 20, 3));
+		assertTrue(cursor.seek(30, 20, 3));
+		assertFalse(cursor.seek(30, 40, 3));
+		assertTrue(cursor.seek(5, 60, 3));
+		assertEquals(element, cursor.get());
+		assertTrue(cursor.seek(70, 90, 3));
+		assertTrue(cursor.seek(70, 90, 2));
+		assertFalse(cursor.seek(30, 90, 2));
+		assertEquals(3, testCube.queryBox(0, 0, 3, 100, 100, 3).size());
+	}
+
+	@Test
+	public void testGetAllAfterCellIsReused() {
+		Cube<Object> testCube = new BoundedCube<>(10, 10, 5);
+		Object element = new Object();
+		testCube.add(2, 2, 2, element);
+		IterableQueue<Object> held = testCube.getAll(2, 2, 2);
+		// The queue of the emptied cell goes back to the pool and is reused by the new cell
+		testCube.remove(2, 2, 2, element);
+		testCube.add(5, 5, 5, "y");
+		assertEquals(1, held.size());
+		assertSame(element, held.iterator().next());
+		// Changing the returned queue does not change the cube
+		testCube.getAll(5, 5, 5).dequeue();
+		assertEquals("y", testCube.get(5, 5, 5));
+		assertEquals(1, testCube.size());
+	}
+
+	@Test
+	public void testSteadyStateAllocatesNothing() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		final int aircraft = 20000;
+		final int operations = 100000;
+		Random r = new Random(7505);
+		Cube<Object> testCube = new BoundedCube<>(5321, 3428, 35);
+		Object[] elements = new Object[aircraft];
+		int[][] positions = new int[aircraft][];
+		for (int i = 0; i < aircraft; i++) {
+			elements[i] = new Object();
+			positions[i] = new int[] { r.nextInt(5322), r.nextInt(3429), r.nextInt(36) };
+			testCube.add(positions[i][0], positions[i][1], positions[i][2], elements[i]);
+		}
+		// Warm up until the spare nodes cover the churn, then measure
+		long bytes = 0;
+		for (int round = 0; round < 5; round++) {
+			long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			churn(testCube, elements, positions, r, operations);
+			bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+		}
+		System.out.println("BoundedCube steady state: " + bytes + " bytes allocated over " + operations
+				+ " add/remove/move operations");
+		assertEquals(aircraft, testCube.size());
+		// Rebuilding the queue of the cell on every remove took about 150 bytes per
+		// operation, what is left is the occasional growth of an occupancy container
+		assertTrue(bytes < operations);
+	}
+
+	// Move some aircraft to a neighbouring cell, and take off and land others
+	private static void churn(Cube<Object> testCube, Object[] elements, int[][] positions, Random r,
+			                  int operations) {
+		for (int n = 0; n < operations; n++) {
+			int i = r.nextInt(elements.length);
+			int[] p = positions[i];
+			if (n % 4 == 0) {
+				assertTrue(testCube.remove(p[0], p[1], p[2], elements[i]));
+				p[0] = r.nextInt(5322);
+				p[1] = r.nextInt(3429);
+				p[2] = r.nextInt(36);
+				testCube.add(p[0], p[1], p[2], elements[i]);
+			} else {
+				int x = Math.min(Math.max(p[0] + r.nextInt(3) - 1, 0), 5321);
+				int y = Math.min(Math.max(p[1] + r.nextInt(3) - 1, 0), 3428);
+				assertTrue(testCube.move(p[0], p[1], p[2], x, y, p[2], elements[i]));
+				p[0] = x;
+				p[1] = y;
+			}
+		}
+	}
+
 }
@@ -0,0 +1,142 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MyBrickCubeTest extends CubeContractTest {
+
+	@Override
+	protected <T> Cube<T> newCube(int length, int breadth, int height) {
+		return new BrickCube<>(length, breadth, height);
+	}
+
+	@Override
+	protected boolean cursorSharesCells() {
+		return true;
+	}
+
+	@Test
+	public void testRemoveAllAndClear() {
+		Cube<Object> testCube = new BrickCube<>(5321, 3428, 35);
+		testCube.add(1, 1, 1, new Object());
+		testCube.add(1, 1, 1, new Object());
+		testCube.add(5321, 3428, 35, new Object());
+		testCube.removeAll(1, 1, 1);
+		testCube.removeAll(1, 1, 1);
+		assertNull(testCube.get(1, 1, 1));
+		assertNotNull(testCube.get(5321, 3428, 35));
+		testCube.clear();
+		assertNull(testCube.get(5321, 3428, 35));
+		assertArrayEquals(new int[] { 0, 0 }, ((BrickCube<Object>) testCube).countBricks());
+	}
+
+	@Test
+	public void testBricksAdaptToDensity() {
+		BrickCube<Object> testCube = new BrickCube<>(100, 100, 2);
+		// A few cells of one brick keep it sparse
+		for (int x = 0; x < BrickCube.DENSE_LIMIT; x++) {
+			testCube.add(x % 32, x / 32, 1, new Object());
+		}
+		assertArrayEquals(new int[] { 1, 0 }, testCube.countBricks());
+		// One more occupied cell makes it dense
+		testCube.add(31, 31, 1, new Object());
+		assertArrayEquals(new int[] { 1, 1 }, testCube.countBricks());
+		assertNotNull(testCube.get(31, 31, 1));
+		assertNotNull(testCube.get(5, 1, 1));
+		// Other bricks are only allocated when used
+		testCube.add(32, 0, 1, new Object());
+		testCube.add(100, 100, 2, new Object());
+		assertArrayEquals(new int[] { 3, 1 }, testCube.countBricks());
+		// Emptying cells below the sparse limit makes the brick sparse again
+		for (int x = 0; x < BrickCube.DENSE_LIMIT - BrickCube.SPARSE_LIMIT + 1; x++) {
+			testCube.removeAll(x % 32, x / 32, 1);
+		}
+		assertArrayEquals(new int[] { 3, 1 }, testCube.countBricks());
+		testCube.removeAll(33 % 32, 33 / 32, 1);
+		assertArrayEquals(new int[] { 3, 0 }, testCube.countBricks());
+		assertEquals(BrickCube.SPARSE_LIMIT - 1, testCube.countOccupiedCells(0, 0, 31, 31, 1));
+		assertEquals(BrickCube.SPARSE_LIMIT - 1, testCube.queryBox(0, 0, 1, 31, 31, 1).size());
+		assertNotNull(testCube.get(31, 31, 1));
+		// A brick is released with its last cell
+		assertTrue(testCube.move(32, 0, 1, 31, 0, 1, testCube.get(32, 0, 1)));
+		assertArrayEquals(new int[] { 2, 0 }, testCube.countBricks());
+	}
+
+	@Test
+	public void testRandomQueryBox() {
+		Random r = new Random(3506);
+		int[][] positions = new int[3000][];
+		// Boxes that cross the borders of sparse and dense bricks
+		Cube<Object> testCube = new BrickCube<>(200, 150, 35);
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = (i % 2 == 0) ? new int[] { r.nextInt(201), r.nextInt(151), r.nextInt(36) }
+					: new int[] { 20 + r.nextInt(30), 20 + r.nextInt(30), r.nextInt(3) };
+			testCube.add(positions[i][0], positions[i][1], positions[i][2], new Object());
+		}
+		for (int i = 0; i < 200; i++) {
+			int x0 = r.nextInt(201), y0 = r.nextInt(151), z0 = r.nextInt(36);
+			int x1 = x0 + r.nextInt(201 - x0), y1 = y0 + r.nextInt(151 - y0), z1 = z0 + r.nextInt(36 - z0);
+			// Count the elements inside the box by brute force
+			int expected = 0;
+			for (int[] p : positions) {
+				if (p[0] >= x0 && p[0] <= x1 && p[1] >= y0 && p[1] <= y1 && p[2] >= z0 && p[2] <= z1) {
+					expected++;
+				}
+			}
+			assertEquals(expected, testCube.queryBox(x0, y0, z0, x1, y1, z1).size());
+		}
+	}
+
+	@Test
+	public void testMoveAcrossBricks() {
+		Cube<Object> testCube = new BrickCube<>(100, 100, 5);
+		Object element = new Object();
+		Object other = new Object();
+		testCube.add(1, 1, 1, element);
+		testCube.add(1, 1, 1, other);
+		assertFalse(testCube.move(2, 2, 2, 3, 3, 3, element));
+		assertFalse(testCube.move(1, 1, 1, 3, 3, 3, new Object()));
+		assertTrue(testCube.move(1, 1, 1, 1, 1, 1, element));
+		assertTrue(testCube.move(1, 1, 1, 90, 40, 3, element));
+		assertEquals(other, testCube.get(1, 1, 1));
+		assertEquals(element, testCube.get(90, 40, 3));
+		assertTrue(testCube.move(1, 1, 1, 90, 40, 3, other));
+		assertNull(testCube.getAll(1, 1, 1));
+		assertEquals(2, testCube.getAll(90, 40, 3).size());
+		assertEquals(element, testCube.get(90, 40, 3));
+	}
+
+	@Test
+	public void testPerformanceClusteredTraffic() {
+		final int aircraft = 200000;
+		for (int round = 0; round < 4; round++) {
+			Cube<Object> testCube = (round % 2 == 0) ? new HashedCube<>(5321, 3428, 35)
+					: new BrickCube<>(5321, 3428, 35);
+			Random r = new Random(7505);
+			long start = System.nanoTime();
+			for (int i = 0; i < aircraft; i++) {
+				// Most of the traffic is around a few busy airports
+				int airport = r.nextInt(8) * 600;
+				boolean busy = i % 4 != 0;
+				testCube.add(busy ? airport + r.nextInt(64) : r.nextInt(5322),
+						     busy ? airport / 2 + r.nextInt(64) : r.nextInt(3429), r.nextInt(36), new Object());
+			}
+			long added = System.nanoTime() - start;
+			int[] count = { 0 };
+			start = System.nanoTime();
+			for (int i = 0; i < aircraft; i++) {
+				int airport = r.nextInt(8) * 600;
+				testCube.forEachNeighbour(airport + r.nextInt(64), airport / 2 + r.nextInt(64), r.nextInt(36),
+						                  element -> count[0]++);
+			}
+			long neighbours = System.nanoTime() - start;
+			System.out.println(testCube.getClass().getSimpleName() + " with " + aircraft
+					+ " clustered aircraft: add " + added / 1000000 + " ms, " + aircraft + " neighbourhoods "
+					+ neighbours / 1000000 + " ms (" + count[0] + " neighbours)");
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class MyConcurrentBoundedCubeTest extends CubeContractTest {
+
+	@Override
+	protected <T> Cube<T> newCube(int length, int breadth, int height) {
+		return new ConcurrentBoundedCube<>(length, breadth, height);
+	}
+
+	@Test
+	public void testQueryBoxAndNeighbours() {
+		Cube<Object> testCube = new ConcurrentBoundedCube<>(10, 10, 5);
+		testCube.add(5, 5, 2, new Object());
+		testCube.add(4, 6, 3, new Object());
+		testCube.add(6, 4, 1, new Object());
+		testCube.add(5, 5, 4, new Object());
+		assertEquals(4, testCube.queryBox(0, 0, 0, 10, 10, 5).size());
+		int[] count = { 0 };
+		testCube.forEachNeighbour(5, 5, 2, element -> count[0]++);
+		assertEquals(3, count[0]);
+		testCube.clear();
+		assertEquals(0, testCube.queryBox(0, 0, 0, 10, 10, 5).size());
+	}
+
+	@Test(timeout = 10000)
+	public void testVisitorMayChangeCube() {
+		Cube<Object> testCube = new ConcurrentBoundedCube<>(10, 10, 5);
+		Object element = new Object();
+		testCube.add(5, 5, 2, element);
+		testCube.add(5, 5, 3, new Object());
+		// No layer lock is held while the action runs, so moving across layers from another thread cannot deadlock
+		testCube.forEachNeighbour(5, 5, 2, visited -> {
+			Thread mover = new Thread(() -> testCube.move(5, 5, 2, 5, 5, 3, element));
+			mover.start();
+			try {
+				mover.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertNull(testCube.get(5, 5, 2));
+		assertEquals(2, testCube.getAll(5, 5, 3).size());
+		testCube.forEachOccupiedCell(3, (x, y, z) -> testCube.removeAll(x, y, z));
+		assertTrue(testCube.isLayerEmpty(3));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBoundPosition() {
+		Cube<Object> testCube = new ConcurrentBoundedCube<>(5, 5, 5);
+		testCube.add(5, 5, 6, new Object());
+	}
+
+	@Test
+	public void testConcurrentStress() throws InterruptedException {
+		final int threads = 8;
+		final int operations = 5000;
+		Cube<Object> testCube = new ConcurrentBoundedCube<>(200, 200, 35);
+		AtomicInteger failures = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final long seed = t;
+			Thread worker = new Thread(() -> {
+				Random r = new Random(seed);
+				try {
+					start.await();
+					for (int i = 0; i < operations; i++) {
+						int x = r.nextInt(201), y = r.nextInt(201), z = r.nextInt(36);
+						Object element = new Object();
+						testCube.add(x, y, z, element);
+						testCube.isMultipleElementsAt(x, y, z);
+						// Every second element is removed again
+						if (i % 2 == 0 && !testCube.remove(x, y, z, element)) {
+							failures.incrementAndGet();
+						}
+					}
+				} catch (RuntimeException | InterruptedException e) {
+					failures.incrementAndGet();
+				}
+			});
+			workers.add(worker);
+			worker.start();
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		assertEquals(0, failures.get());
+		assertEquals(threads * operations / 2, testCube.queryBox(0, 0, 0, 200, 200, 35).size());
+		assertEquals(threads * operations / 2, testCube.size());
+	}
+
+	@Test
+	public void testPerformanceThroughputScaling() throws InterruptedException {
+		final int operations = 200000;
+		for (int threads : new int[] { 1, 2, 4, 8 }) {
+			Cube<Object> testCube = new ConcurrentBoundedCube<>(5321, 3428, 35);
+			List<Thread> workers = new ArrayList<>();
+			final int perThread = operations / threads;
+			for (int t = 0; t < threads; t++) {
+				final long seed = t;
+				workers.add(new Thread(() -> {
+					Random r = new Random(seed);
+					Object element = new Object();
+					for (int i = 0; i < perThread; i++) {
+						// Aircraft stay in a small area so the layers are not too long
+						int x = r.nextInt(100), y = r.nextInt(100), z = r.nextInt(36);
+						testCube.add(x, y, z, element);
+						testCube.remove(x, y, z, element);
+					}
+				}));
+			}
+			long start = System.nanoTime();
+			for (Thread worker : workers) {
+				worker.start();
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			long elapsed = System.nanoTime() - start;
+			System.out.println("ConcurrentBoundedCube " + threads + " thread(s): "
+					+ (2L * perThread * threads * 1000000L / Math.max(elapsed, 1)) + " ops/ms ("
+					+ Runtime.getRuntime().availableProcessors() + " cores)");
+		}
+	}
+
+}
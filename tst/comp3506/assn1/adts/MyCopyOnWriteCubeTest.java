@@ -0,0 +1,169 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.Test;
+
+public class MyCopyOnWriteCubeTest extends CubeContractTest {
+
+	@Override
+	protected <T> Cube<T> newCube(int length, int breadth, int height) {
+		return new CopyOnWriteCube<>(length, breadth, height);
+	}
+
+	@Test
+	public void testRemoveAllAndClear() {
+		Cube<Object> testCube = new CopyOnWriteCube<>(10, 10, 5);
+		Object element1 = new Object();
+		Object element2 = new Object();
+		Object element3 = new Object();
+		testCube.add(1, 1, 1, element1);
+		testCube.add(1, 1, 1, element2);
+		testCube.add(1, 1, 1, element3);
+		testCube.add(10, 10, 5, new Object());
+		assertEquals(element1, testCube.get(1, 1, 1));
+		assertEquals(3, testCube.getAll(1, 1, 1).size());
+		assertTrue(testCube.isMultipleElementsAt(1, 1, 1));
+		assertTrue(testCube.remove(1, 1, 1, element1));
+		assertFalse(testCube.remove(1, 1, 1, element1));
+		assertEquals(element2, testCube.get(1, 1, 1));
+		testCube.removeAll(1, 1, 1);
+		assertNull(testCube.get(1, 1, 1));
+		assertNull(testCube.getAll(1, 1, 1));
+		assertFalse(testCube.isMultipleElementsAt(1, 1, 1));
+		assertNotNull(testCube.get(10, 10, 5));
+		testCube.clear();
+		assertNull(testCube.get(10, 10, 5));
+	}
+
+	@Test
+	public void testRemoveLastElementOfCell() {
+		Cube<Object> testCube = new CopyOnWriteCube<>(10, 10, 5);
+		Object element = new Object();
+		testCube.add(3, 2, 1, new Object());
+		testCube.add(1, 2, 1, element);
+		testCube.add(2, 2, 1, new Object());
+		assertTrue(testCube.remove(1, 2, 1, element));
+		assertNull(testCube.get(1, 2, 1));
+		assertNotNull(testCube.get(2, 2, 1));
+		assertNotNull(testCube.get(3, 2, 1));
+	}
+
+	@Test
+	public void testQueryBoxAndNeighbours() {
+		Cube<Object> testCube = new CopyOnWriteCube<>(10, 10, 5);
+		testCube.add(5, 5, 2, new Object());
+		testCube.add(4, 6, 3, new Object());
+		testCube.add(6, 4, 1, new Object());
+		testCube.add(9, 5, 2, new Object());
+		testCube.add(5, 5, 4, new Object());
+		assertEquals(5, testCube.queryBox(0, 0, 0, 10, 10, 5).size());
+		assertEquals(1, testCube.queryBox(8, 0, 0, 10, 10, 5).size());
+		int[] count = { 0 };
+		testCube.forEachNeighbour(5, 5, 2, element -> count[0]++);
+		assertEquals(3, count[0]);
+	}
+
+	@Test
+	public void testReadersDuringWrites() throws InterruptedException {
+		Cube<Object> testCube = new CopyOnWriteCube<>(100, 100, 35);
+		Object fixed = new Object();
+		testCube.add(50, 50, 10, fixed);
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicInteger failures = new AtomicInteger();
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread reader = new Thread(() -> {
+				while (running.get()) {
+					// The fixed element is never removed, so readers must always see it
+					if (testCube.get(50, 50, 10) != fixed) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+			readers.add(reader);
+			reader.start();
+		}
+		Random r = new Random();
+		for (int i = 0; i < 20000; i++) {
+			Object element = new Object();
+			int x = r.nextInt(101), y = r.nextInt(101);
+			testCube.add(x, y, 10, element);
+			testCube.remove(x, y, 10, element);
+		}
+		running.set(false);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		assertEquals(0, failures.get());
+		assertEquals(1, testCube.queryBox(0, 0, 0, 100, 100, 35).size());
+	}
+
+	@Test
+	public void testPerformanceMixedReadWrite() throws InterruptedException {
+		for (int readPercent : new int[] { 95, 50 }) {
+			// HashedCube is the cube of AirSpace, it needs a lock to be shared between threads
+			long locked = mixedThroughput(new HashedCube<>(5321, 3428, 35), new ReentrantReadWriteLock(), readPercent);
+			long copyOnWrite = mixedThroughput(new CopyOnWriteCube<>(5321, 3428, 35), null, readPercent);
+			System.out.println(readPercent + "/" + (100 - readPercent) + " read/write: locked HashedCube "
+					+ locked + " ops/ms, CopyOnWriteCube " + copyOnWrite + " ops/ms");
+		}
+	}
+
+	// Run a mix of reads and writes on 4 threads against 20000 aircraft, under the lock if one is given
+	private long mixedThroughput(Cube<Object> testCube, ReadWriteLock lock, int readPercent)
+			throws InterruptedException {
+		final int threads = 4;
+		final int operations = 20000;
+		Random setup = new Random(7505);
+		for (int i = 0; i < 20000; i++) {
+			testCube.add(setup.nextInt(5321), setup.nextInt(3428), setup.nextInt(36), new Object());
+		}
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final long seed = t;
+			workers.add(new Thread(() -> {
+				Random r = new Random(seed);
+				Object element = new Object();
+				for (int i = 0; i < operations; i++) {
+					int x = r.nextInt(5321), y = r.nextInt(3428), z = r.nextInt(36);
+					boolean read = (r.nextInt(100) < readPercent);
+					Lock held = (lock == null) ? null : read ? lock.readLock() : lock.writeLock();
+					if (held != null) {
+						held.lock();
+					}
+					try {
+						if (read) {
+							testCube.isMultipleElementsAt(x, y, z);
+						} else {
+							testCube.add(x, y, z, element);
+							testCube.remove(x, y, z, element);
+						}
+					} finally {
+						if (held != null) {
+							held.unlock();
+						}
+					}
+				}
+			}));
+		}
+		long start = System.nanoTime();
+		for (Thread worker : workers) {
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		return (long) threads * operations * 1000000L / Math.max(System.nanoTime() - start, 1);
+	}
+
+}
@@ -0,0 +1,95 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+
+import org.junit.Test;
+
+public class MyCubeSpliteratorTest {
+
+	@Test
+	public void testSplitAlongLayersAndRows() {
+		Cube<Integer> testCube = new HashedCube<>(10, 99, 3);
+		for (int z = 0; z <= 3; z++) {
+			for (int y = 0; y <= 99; y++) {
+				testCube.add(y % 11, y, z, z * 100 + y);
+			}
+		}
+		Spliterator<Integer> suffix = testCube.spliterator();
+		assertEquals(400, suffix.estimateSize());
+		// Four layers of 100 rows are split in the middle layer boundary
+		Spliterator<Integer> prefix = suffix.trySplit();
+		assertEquals(200, prefix.estimateSize());
+		assertEquals(200, suffix.estimateSize());
+		Spliterator<Integer> first = prefix.trySplit();
+		assertEquals(100, first.estimateSize());
+		// A single layer is split into y ranges
+		Spliterator<Integer> rows = first.trySplit();
+		assertEquals(50, rows.estimateSize());
+		List<Integer> elements = new ArrayList<>();
+		rows.forEachRemaining(elements::add);
+		first.forEachRemaining(elements::add);
+		prefix.forEachRemaining(elements::add);
+		suffix.forEachRemaining(elements::add);
+		assertEquals(400, elements.size());
+		for (int i = 0; i < elements.size(); i++) {
+			assertEquals(Integer.valueOf(i), elements.get(i));
+		}
+	}
+
+	@Test
+	public void testSmallRangeIsNotSplit() {
+		Cube<Integer> testCube = new BoundedCube<>(10, 20, 1);
+		testCube.add(1, 1, 1, 1);
+		Spliterator<Integer> spliterator = testCube.spliterator();
+		// The two layers of 21 rows are split once
+		assertEquals(21, spliterator.trySplit().estimateSize());
+		assertNull(spliterator.trySplit());
+		assertTrue(spliterator.tryAdvance(element -> assertEquals(Integer.valueOf(1), element)));
+		assertFalse(spliterator.tryAdvance(element -> fail()));
+	}
+
+	@Test
+	public void testTryAdvanceThenSplit() {
+		Cube<Integer> testCube = new HashedCube<>(10, 200, 2);
+		for (int y = 0; y <= 200; y++) {
+			testCube.add(0, y, 1, y);
+		}
+		Spliterator<Integer> spliterator = testCube.spliterator();
+		List<Integer> elements = new ArrayList<>();
+		assertTrue(spliterator.tryAdvance(elements::add));
+		// Buffered elements are not handed to another part
+		assertNull(spliterator.trySplit());
+		spliterator.forEachRemaining(elements::add);
+		assertEquals(201, elements.size());
+		assertEquals(Integer.valueOf(200), elements.get(200));
+	}
+
+	@Test
+	public void testPerformanceStream() {
+		final int elements = 200000;
+		Random r = new Random(7505);
+		Cube<Integer> testCube = new HashedCube<>(5321, 3428, 35);
+		for (int i = 0; i < elements; i++) {
+			testCube.add(r.nextInt(5322), r.nextInt(3429), r.nextInt(36), i);
+		}
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			long sequential = testCube.stream().mapToLong(Integer::longValue).sum();
+			long sequentialTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			long parallel = testCube.parallelStream().mapToLong(Integer::longValue).sum();
+			long parallelTime = System.nanoTime() - start;
+			assertEquals((long) elements * (elements - 1) / 2, sequential);
+			assertEquals(sequential, parallel);
+			System.out.println("CubeSpliterator " + elements + " elements: sequential " + sequentialTime / 1000000
+					+ " ms, parallel " + parallelTime / 1000000 + " ms on "
+					+ Runtime.getRuntime().availableProcessors() + " cores");
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MyHashedCubeTest extends CubeContractTest {
+
+	@Override
+	protected <T> Cube<T> newCube(int length, int breadth, int height) {
+		return new HashedCube<>(length, breadth, height);
+	}
+
+	@Override
+	protected boolean cursorSharesCells() {
+		return true;
+	}
+
+	@Test
+	public void testRemoveElementAt() {
+		Cube<Object> testCube = new HashedCube<>(5321, 3428, 35);
+		Object element = new Object();
+		assertFalse(testCube.remove(1, 1, 1, element));
+		testCube.add(1, 1, 1, element);
+		for (int i = 0; i <= 100; i++) {
+			testCube.add(1, 1, 1, new Object());
+		}
+		testCube.add(1, 1, 1, element);
+		assertFalse(testCube.remove(1, 1, 1, new Object()));
+		assertTrue(testCube.remove(1, 1, 1, element));
+		assertFalse(testCube.remove(1, 1, 1, element));
+		assertEquals(101, testCube.getAll(1, 1, 1).size());
+	}
+
+	@Test
+	public void testRemoveAllAndClear() {
+		Cube<Object> testCube = new HashedCube<>(5, 5, 5);
+		testCube.add(0, 0, 0, new Object());
+		testCube.add(5, 5, 5, new Object());
+		testCube.add(5, 5, 5, new Object());
+		testCube.removeAll(5, 5, 5);
+		assertNull(testCube.get(5, 5, 5));
+		assertNotNull(testCube.get(0, 0, 0));
+		testCube.clear();
+		assertNull(testCube.get(0, 0, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDimensionTooLarge() {
+		new HashedCube<>(1 << 22, 1, 1);
+	}
+
+	@Test
+	public void testRandomQueryBox() {
+		Random r = new Random(3506);
+		int[][] positions = new int[3000][];
+		Cube<Object> testCube = new HashedCube<>(200, 150, 35);
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = new int[] { r.nextInt(201), r.nextInt(151), r.nextInt(36) };
+			testCube.add(positions[i][0], positions[i][1], positions[i][2], new Object());
+		}
+		for (int i = 0; i < 200; i++) {
+			int x0 = r.nextInt(201), y0 = r.nextInt(151), z0 = r.nextInt(36);
+			int x1 = x0 + r.nextInt(201 - x0), y1 = y0 + r.nextInt(151 - y0), z1 = z0 + r.nextInt(36 - z0);
+			// Count the elements inside the box by brute force
+			int expected = 0;
+			for (int[] p : positions) {
+				if (p[0] >= x0 && p[0] <= x1 && p[1] >= y0 && p[1] <= y1 && p[2] >= z0 && p[2] <= z1) {
+					expected++;
+				}
+			}
+			assertEquals(expected, testCube.queryBox(x0, y0, z0, x1, y1, z1).size());
+		}
+	}
+
+	@Test
+	public void testAddAll() {
+		Random r = new Random(3506);
+		List<int[]> batch = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			batch.add(new int[] { r.nextInt(51), r.nextInt(51), r.nextInt(6) });
+		}
+		Cube<int[]> testCube = new HashedCube<>(50, 50, 5);
+		testCube.add(3, 3, 3, new int[] { 3, 3, 3 });
+		testCube.addAll(batch, POSITION);
+		assertEquals(3001, testCube.queryBox(0, 0, 0, 50, 50, 5).size());
+		assertEquals(3001, testCube.size());
+		// Elements of the same cell keep the order of the batch
+		Cube<int[]> orderCube = new HashedCube<>(50, 50, 5);
+		orderCube.addAll(batch, POSITION);
+		for (int[] position : batch) {
+			assertSame(orderCube.get(position[0], position[1], position[2]), first(batch, position));
+		}
+		assertEquals(3000, orderCube.queryBox(0, 0, 0, 50, 50, 5).size());
+	}
+
+	@Test
+	public void testAddAllOutOfBound() {
+		Cube<int[]> testCube = new HashedCube<>(10, 10, 5);
+		List<int[]> batch = new ArrayList<>();
+		batch.add(new int[] { 1, 1, 1 });
+		batch.add(new int[] { 1, 1, 6 });
+		try {
+			testCube.addAll(batch, POSITION);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+		assertNull(testCube.get(1, 1, 1));
+	}
+
+	@Test
+	public void testPerformanceQueryBox() {
+		Random r = new Random();
+		Cube<Object> testCube = new HashedCube<>(5321, 3428, 35);
+		for (int i = 0; i <= 200000; i++) {
+			testCube.add(r.nextInt(5321), r.nextInt(3428), r.nextInt(35), new Object());
+		}
+		// Sectors of 100km x 100km over all altitudes
+		for (int i = 0; i < 1000; i++) {
+			int x = r.nextInt(5221);
+			int y = r.nextInt(3328);
+			testCube.queryBox(x, y, 0, x + 100, y + 100, 35);
+		}
+	}
+
+	@Test
+	public void testDefaultCursor() {
+		Cube<Object> testCube = new HashedCube<>(10, 10, 5);
+		Object element = new Object();
+		testCube.add(1, 2, 3, element);
+		CubeCursor<Object> cursor = testCube.cursor();
+		assertTrue(cursor.seek(1, 2, 3));
+		assertEquals(element, cursor.get());
+		assertFalse(cursor.seek(3, 2, 1));
+		assertNull(cursor.get());
+		assertNull(cursor.getAll());
+	}
+
+	@Test
+	public void testPerformanceRandomAccess() {
+		Random r = new Random();
+		Cube<Object> testCube = new HashedCube<>(5321, 3428, 35);
+		for (int i = 0; i <= 200000; i++) {
+			testCube.add(r.nextInt(5321), r.nextInt(3428), r.nextInt(35), new Object());
+		}
+		for (int i = 0; i <= 200000; i++) {
+			testCube.isMultipleElementsAt(r.nextInt(5321), r.nextInt(3428), r.nextInt(35));
+		}
+		testCube.clear();
+	}
+
+	// First element of the batch at the same position as the given element
+	private static int[] first(List<int[]> batch, int[] position) {
+		for (int[] element : batch) {
+			if (Arrays.equals(element, position)) {
+				return element;
+			}
+		}
+		return null;
+	}
+
+	// Elements of the bulk tests are their own position
+	private static final CoordinateExtractor<int[]> POSITION = new CoordinateExtractor<int[]>() {
+		@Override
+		public int x(int[] element) {
+			return element[0];
+		}
+
+		@Override
+		public int y(int[] element) {
+			return element[1];
+		}
+
+		@Override
+		public int z(int[] element) {
+			return element[2];
+		}
+	};
+
+}
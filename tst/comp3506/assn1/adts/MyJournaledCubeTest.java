@@ -0,0 +1,217 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MyJournaledCubeTest {
+
+	private Path log;
+
+	@Before
+	public void createLog() throws IOException {
+		log = Files.createTempFile("cube", ".journal");
+	}
+
+	@After
+	public void deleteLog() throws IOException {
+		Files.delete(log);
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(new HashedCube<>(10, 10, 5), INTEGER, log, 0)) {
+			testCube.add(1, 1, 1, 1);
+			testCube.add(1, 1, 1, 2);
+			testCube.add(2, 2, 2, 3);
+			testCube.add(3, 3, 3, 4);
+			testCube.add(4, 4, 4, 5);
+			assertTrue(testCube.remove(1, 1, 1, 1));
+			assertFalse(testCube.remove(1, 1, 1, 1));
+			assertTrue(testCube.move(2, 2, 2, 5, 5, 5, 3));
+			testCube.removeAll(3, 3, 3);
+		}
+		Cube<Integer> restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 0)) {
+			assertEquals(8, testCube.getReplayedRecords());
+			assertEquals(Integer.valueOf(2), restored.get(1, 1, 1));
+			assertFalse(restored.isMultipleElementsAt(1, 1, 1));
+			assertNull(restored.get(2, 2, 2));
+			assertEquals(Integer.valueOf(3), restored.get(5, 5, 5));
+			assertNull(restored.get(3, 3, 3));
+			assertEquals(3, restored.queryBox(0, 0, 0, 10, 10, 5).size());
+			// The replayed log keeps growing
+			testCube.clear();
+		}
+		restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 0)) {
+			assertEquals(9, testCube.getReplayedRecords());
+			assertEquals(0, restored.queryBox(0, 0, 0, 10, 10, 5).size());
+		}
+	}
+
+	@Test
+	public void testOnlyCommittedRecordsSurvive() throws IOException {
+		JournaledCube<Integer> crashed = new JournaledCube<>(new HashedCube<>(10, 10, 5), INTEGER, log, 0);
+		crashed.add(1, 1, 1, 1);
+		crashed.commit();
+		crashed.add(2, 2, 2, 2);
+		// The process dies before the second add is committed
+		Cube<Integer> restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 0)) {
+			assertEquals(1, testCube.getReplayedRecords());
+			assertEquals(Integer.valueOf(1), restored.get(1, 1, 1));
+			assertNull(restored.get(2, 2, 2));
+		}
+	}
+
+	@Test
+	public void testTornRecord() throws IOException {
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(new HashedCube<>(10, 10, 5), INTEGER, log, 0)) {
+			testCube.add(1, 1, 1, 1);
+			testCube.add(2, 2, 2, 2);
+		}
+		// Cut the last record short, as if the write had been interrupted
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+		Cube<Integer> restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 0)) {
+			assertEquals(1, testCube.getReplayedRecords());
+			assertNull(restored.get(2, 2, 2));
+			testCube.add(3, 3, 3, 3);
+		}
+		// New records are appended after the last valid one
+		restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 0)) {
+			assertEquals(2, testCube.getReplayedRecords());
+			assertEquals(Integer.valueOf(3), restored.get(3, 3, 3));
+		}
+	}
+
+	@Test
+	public void testDamagedRecord() throws IOException {
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(new HashedCube<>(10, 10, 5), INTEGER, log, 0)) {
+			testCube.add(1, 1, 1, 1);
+			testCube.add(2, 2, 2, 2);
+			testCube.add(3, 3, 3, 3);
+		}
+		// Flip a byte in the element of the second record
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long position = 12 + RECORD_SIZE + 4 + 13;
+			ByteBuffer b = ByteBuffer.allocate(1);
+			channel.read(b, position);
+			b.put(0, (byte) ~b.get(0));
+			b.rewind();
+			channel.write(b, position);
+		}
+		Cube<Integer> restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 0)) {
+			assertEquals(1, testCube.getReplayedRecords());
+			assertNull(restored.get(2, 2, 2));
+			assertNull(restored.get(3, 3, 3));
+		}
+	}
+
+	@Test
+	public void testOtherEpochIsDiscarded() throws IOException {
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(new HashedCube<>(10, 10, 5), INTEGER, log, 4)) {
+			testCube.add(1, 1, 1, 1);
+		}
+		Cube<Integer> restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 5)) {
+			assertEquals(0, testCube.getReplayedRecords());
+			assertEquals(5, testCube.getEpoch());
+			assertNull(restored.get(1, 1, 1));
+			testCube.add(2, 2, 2, 2);
+			testCube.reset(6);
+			testCube.add(3, 3, 3, 3);
+		}
+		restored = new HashedCube<>(10, 10, 5);
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(restored, INTEGER, log, 6)) {
+			assertEquals(1, testCube.getReplayedRecords());
+			assertNull(restored.get(2, 2, 2));
+			assertEquals(Integer.valueOf(3), restored.get(3, 3, 3));
+		}
+	}
+
+	@Test
+	public void testOutOfBoundIsNotLogged() throws IOException {
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(new HashedCube<>(10, 10, 5), INTEGER, log, 0)) {
+			try {
+				testCube.add(1, 1, 6, 1);
+				fail();
+			} catch (IndexOutOfBoundsException e) {
+			}
+		}
+		try (JournaledCube<Integer> testCube = new JournaledCube<>(new HashedCube<>(10, 10, 5), INTEGER, log, 0)) {
+			assertEquals(0, testCube.getReplayedRecords());
+		}
+	}
+
+	@Test
+	public void testPerformanceLogging() throws IOException {
+		final int operations = 200000;
+		final int groupSize = 1000;
+		Random r = new Random(7505);
+		int[][] positions = new int[operations][];
+		for (int i = 0; i < operations; i++) {
+			positions[i] = new int[] { r.nextInt(5321), r.nextInt(3428), r.nextInt(36) };
+		}
+		for (int round = 0; round < 3; round++) {
+			long plain = mutate(new HashedCube<>(5321, 3428, 35), positions, groupSize);
+			long journaled;
+			try (JournaledCube<Integer> testCube = new JournaledCube<>(new HashedCube<>(5321, 3428, 35), INTEGER,
+					log, round)) {
+				journaled = mutate(testCube, positions, groupSize);
+			}
+			System.out.println("JournaledCube: " + plain / (2 * operations) + " ns per plain mutation, "
+					+ journaled / (2 * operations) + " ns per logged mutation (commit every " + groupSize + ")");
+		}
+	}
+
+	// Add and remove an element at each position, committing after every group
+	private long mutate(Cube<Integer> testCube, int[][] positions, int groupSize) throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < positions.length; i++) {
+			int[] p = positions[i];
+			testCube.add(p[0], p[1], p[2], i);
+			testCube.remove(p[0], p[1], p[2], i);
+			if (i % groupSize == groupSize - 1 && testCube instanceof JournaledCube) {
+				((JournaledCube<Integer>) testCube).commit();
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	// Length, operation, coordinates, element and checksum of an add
+	private static final int RECORD_SIZE = 4 + 1 + 12 + 4 + 4;
+
+	private static final ElementCodec<Integer> INTEGER = new ElementCodec<Integer>() {
+		@Override
+		public int encodedSize(Integer element) {
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void encode(Integer element, ByteBuffer buffer) {
+			buffer.putInt(element);
+		}
+
+		@Override
+		public Integer decode(ByteBuffer buffer) {
+			return buffer.getInt();
+		}
+	};
+
+}
@@ -0,0 +1,93 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class MyMortonIndexTest {
+
+	@Test
+	public void testEncodeDecode() {
+		Random r = new Random();
+		for (int i = 0; i < 1000; i++) {
+			int x = r.nextInt(MortonIndex.MAX_COORDINATE + 1);
+			int y = r.nextInt(MortonIndex.MAX_COORDINATE + 1);
+			int z = r.nextInt(MortonIndex.MAX_COORDINATE + 1);
+			long code = MortonIndex.encode(x, y, z);
+			assertEquals(x, MortonIndex.decodeX(code));
+			assertEquals(y, MortonIndex.decodeY(code));
+			assertEquals(z, MortonIndex.decodeZ(code));
+		}
+		assertEquals(7, MortonIndex.encode(1, 1, 1));
+	}
+
+	@Test
+	public void testAddRemove() {
+		Random r = new Random(7505);
+		MortonIndex index = new MortonIndex();
+		TreeSet<Long> expected = new TreeSet<>();
+		for (int i = 0; i < 20000; i++) {
+			long code = r.nextInt(5000);
+			if (r.nextBoolean()) {
+				assertEquals(expected.add(code), index.add(code));
+			} else {
+				assertEquals(expected.remove(code), index.remove(code));
+			}
+		}
+		assertEquals(expected.size(), index.size());
+		index.clear();
+		assertEquals(0, index.size());
+		assertFalse(index.remove(1));
+	}
+
+	@Test
+	public void testForEachInBoxIsOrdered() {
+		MortonIndex index = new MortonIndex();
+		for (int x = 0; x < 16; x++) {
+			for (int y = 0; y < 16; y++) {
+				index.add(MortonIndex.encode(x, y, 3));
+			}
+		}
+		long[] last = { -1 };
+		int[] count = { 0 };
+		index.forEachInBox(3, 5, 3, 9, 12, 3, code -> {
+			assertTrue(code > last[0]);
+			assertTrue(MortonIndex.decodeX(code) >= 3 && MortonIndex.decodeX(code) <= 9);
+			assertTrue(MortonIndex.decodeY(code) >= 5 && MortonIndex.decodeY(code) <= 12);
+			last[0] = code;
+			count[0]++;
+		});
+		assertEquals(7 * 8, count[0]);
+	}
+
+	@Test
+	public void testAddAll() {
+		Random r = new Random(3506);
+		TreeSet<Long> expected = new TreeSet<>();
+		while (expected.size() < 5000) {
+			expected.add((long) r.nextInt(1 << 20));
+		}
+		long[] codes = new long[expected.size()];
+		int i = 0;
+		for (long code : expected) {
+			codes[i++] = code;
+		}
+		// Built directly when the index is empty, then merged one by one
+		MortonIndex index = new MortonIndex();
+		index.addAll(codes, 4000);
+		index.addAll(Arrays.copyOfRange(codes, 4000, codes.length), codes.length - 4000);
+		assertEquals(expected.size(), index.size());
+		for (long code : expected) {
+			assertFalse(index.add(code));
+		}
+		for (long code : expected) {
+			assertTrue(index.remove(code));
+		}
+		assertEquals(0, index.size());
+	}
+
+}
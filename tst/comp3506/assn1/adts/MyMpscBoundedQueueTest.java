@@ -0,0 +1,190 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import comp3506.assn1.adts.MpscBoundedQueue.Backpressure;
+
+public class MyMpscBoundedQueueTest {
+
+	@Test
+	public void testQueue() {
+		MpscBoundedQueue<Integer> testQueue = new MpscBoundedQueue<>(5, Backpressure.REJECT);
+		assertEquals(8, testQueue.capacity());
+		assertEquals(0, testQueue.size());
+		assertNull(testQueue.poll());
+		// Wrap around the slots a few times
+		for (int i = 0; i < 20; i++) {
+			testQueue.enqueue(i);
+			testQueue.enqueue(-i);
+			assertEquals(Integer.valueOf(i), testQueue.dequeue());
+			assertEquals(Integer.valueOf(-i), testQueue.dequeue());
+		}
+		assertEquals(0, testQueue.size());
+		testQueue.enqueue(1);
+		testQueue.enqueue(2);
+		testQueue.enqueue(3);
+		testQueue.dequeue();
+		Iterator<Integer> it = testQueue.iterator();
+		assertEquals(Integer.valueOf(2), it.next());
+		assertEquals(Integer.valueOf(3), it.next());
+		assertFalse(it.hasNext());
+		assertEquals(2, testQueue.size());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testDequeueEmptyQueue() {
+		new MpscBoundedQueue<>(4, Backpressure.BLOCK).dequeue();
+	}
+
+	@Test
+	public void testSmallestCapacity() {
+		MpscBoundedQueue<Integer> testQueue = new MpscBoundedQueue<>(1, Backpressure.REJECT);
+		assertEquals(2, testQueue.capacity());
+		assertTrue(testQueue.offer(1));
+		assertTrue(testQueue.offer(2));
+		assertFalse(testQueue.offer(3));
+		assertEquals(Integer.valueOf(1), testQueue.dequeue());
+		assertEquals(Integer.valueOf(2), testQueue.dequeue());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacity() {
+		new MpscBoundedQueue<>(0, Backpressure.BLOCK);
+	}
+
+	@Test
+	public void testReject() {
+		MpscBoundedQueue<Integer> testQueue = new MpscBoundedQueue<>(4, Backpressure.REJECT);
+		for (int i = 0; i < 4; i++) {
+			testQueue.enqueue(i);
+		}
+		assertFalse(testQueue.offer(4));
+		try {
+			testQueue.enqueue(4);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(4, testQueue.size());
+		}
+		assertEquals(Integer.valueOf(0), testQueue.dequeue());
+		assertTrue(testQueue.offer(4));
+	}
+
+	@Test
+	public void testDropOldest() {
+		MpscBoundedQueue<Integer> testQueue = new MpscBoundedQueue<>(4, Backpressure.DROP_OLDEST);
+		for (int i = 0; i < 10; i++) {
+			testQueue.enqueue(i);
+		}
+		assertEquals(6, testQueue.dropped());
+		List<Integer> discarded = new ArrayList<>();
+		MpscBoundedQueue<Integer> reportingQueue = new MpscBoundedQueue<>(2, Backpressure.DROP_OLDEST, discarded::add);
+		for (int i = 0; i < 5; i++) {
+			reportingQueue.enqueue(i);
+		}
+		assertEquals(Arrays.asList(0, 1, 2), discarded);
+		assertEquals(4, testQueue.size());
+		for (int i = 6; i < 10; i++) {
+			assertEquals(Integer.valueOf(i), testQueue.dequeue());
+		}
+	}
+
+	@Test
+	public void testBlock() throws InterruptedException {
+		MpscBoundedQueue<Integer> testQueue = new MpscBoundedQueue<>(2, Backpressure.BLOCK);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 1000; i++) {
+				testQueue.enqueue(i);
+			}
+		});
+		producer.start();
+		// The producer waits for room, so nothing is lost
+		for (int i = 0; i < 1000; i++) {
+			while (testQueue.size() == 0) {
+				Thread.yield();
+			}
+			assertEquals(Integer.valueOf(i), testQueue.dequeue());
+		}
+		producer.join();
+	}
+
+	@Test
+	public void testDrainTo() {
+		MpscBoundedQueue<Integer> testQueue = new MpscBoundedQueue<>(4, Backpressure.REJECT);
+		for (int i = 0; i < 4; i++) {
+			testQueue.enqueue(i);
+		}
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(2, testQueue.drainTo(drained::add, 2));
+		assertTrue(testQueue.offer(4));
+		assertEquals(3, testQueue.drainTo(drained::add, 8));
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4), drained);
+	}
+
+	@Test
+	public void testConcurrentProducers() throws InterruptedException {
+		final int producers = 4;
+		final int elements = 20000;
+		MpscBoundedQueue<int[]> testQueue = new MpscBoundedQueue<>(64, Backpressure.BLOCK);
+		List<Thread> threads = startProducers(testQueue, producers, elements);
+		// Each producer's elements arrive in the order they were enqueued
+		int[] next = new int[producers];
+		for (int received = 0; received < producers * elements; received++) {
+			while (testQueue.size() == 0) {
+				Thread.yield();
+			}
+			int[] element = testQueue.dequeue();
+			assertEquals(next[element[0]]++, element[1]);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, testQueue.size());
+	}
+
+	@Test
+	public void testPerformanceProducers() throws InterruptedException {
+		final int elements = 200000;
+		for (int producers : new int[] { 2, 8, 32 }) {
+			MpscBoundedQueue<int[]> testQueue = new MpscBoundedQueue<>(1024, Backpressure.BLOCK);
+			long start = System.nanoTime();
+			List<Thread> threads = startProducers(testQueue, producers, elements / producers);
+			int total = (elements / producers) * producers;
+			for (int received = 0; received < total; received++) {
+				while (testQueue.size() == 0) {
+					Thread.yield();
+				}
+				testQueue.dequeue();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			long elapsed = System.nanoTime() - start;
+			System.out.println("MpscBoundedQueue with " + producers + " producers: " + total * 1000000L / elapsed
+					+ " elements/ms (" + Runtime.getRuntime().availableProcessors() + " cores)");
+		}
+	}
+
+	// Start the producers, each enqueues its number and the count of its elements
+	private static List<Thread> startProducers(MpscBoundedQueue<int[]> testQueue, int producers, int elements) {
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < elements; i++) {
+					testQueue.enqueue(new int[] { producer, i });
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		return threads;
+	}
+
+}
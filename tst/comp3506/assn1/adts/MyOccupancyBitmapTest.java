@@ -0,0 +1,122 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class MyOccupancyBitmapTest {
+
+	private static final int WIDTH = 5322;
+
+	@Test
+	public void testAddRemove() {
+		OccupancyBitmap bitmap = new OccupancyBitmap(WIDTH);
+		assertTrue(bitmap.isEmpty());
+		assertTrue(bitmap.add(3, 2));
+		assertFalse(bitmap.add(3, 2));
+		assertTrue(bitmap.contains(3, 2));
+		assertFalse(bitmap.contains(2, 3));
+		assertEquals(1, bitmap.cardinality());
+		assertTrue(bitmap.remove(3, 2));
+		assertFalse(bitmap.remove(3, 2));
+		assertTrue(bitmap.isEmpty());
+	}
+
+	@Test
+	public void testRandomAgainstSet() {
+		Random r = new Random(3506);
+		OccupancyBitmap bitmap = new OccupancyBitmap(WIDTH);
+		Set<Long> expected = new HashSet<>();
+		for (int i = 0; i < 60000; i++) {
+			// Half of the cells fall in a small busy area, so some chunks become bitmaps
+			int x = (i % 2 == 0) ? r.nextInt(200) : r.nextInt(WIDTH);
+			int y = (i % 2 == 0) ? r.nextInt(100) : r.nextInt(3429);
+			long cell = (long) y * WIDTH + x;
+			if (r.nextInt(4) == 0) {
+				assertEquals(expected.remove(cell), bitmap.remove(x, y));
+			} else {
+				assertEquals(expected.add(cell), bitmap.add(x, y));
+			}
+		}
+		assertEquals(expected.size(), bitmap.cardinality());
+		for (int i = 0; i < 200; i++) {
+			int x0 = r.nextInt(WIDTH), y0 = r.nextInt(3429);
+			int x1 = x0 + r.nextInt(WIDTH - x0), y1 = y0 + r.nextInt(Math.min(3429 - y0, 300));
+			int count = 0;
+			for (long cell : expected) {
+				long x = cell % WIDTH, y = cell / WIDTH;
+				if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+					count++;
+				}
+			}
+			assertEquals(count, bitmap.count(x0, y0, x1, y1));
+		}
+		List<Long> visited = new ArrayList<>();
+		bitmap.forEach(7, (x, y, z) -> {
+			assertEquals(7, z);
+			visited.add((long) y * WIDTH + x);
+		});
+		assertEquals(expected.size(), visited.size());
+		assertTrue(visited.containsAll(expected));
+		for (int i = 1; i < visited.size(); i++) {
+			assertTrue(visited.get(i - 1) < visited.get(i));
+		}
+	}
+
+	@Test
+	public void testDenseChunkShrinksBack() {
+		OccupancyBitmap bitmap = new OccupancyBitmap(WIDTH);
+		// The first 12 rows are in the same chunk of 65536 cells
+		for (int y = 0; y < 12; y++) {
+			for (int x = 0; x < 500; x++) {
+				bitmap.add(x, y);
+			}
+		}
+		assertEquals(6000, bitmap.count(0, 0, WIDTH - 1, 11));
+		assertEquals(64, bitmap.count(0, 0, 63, 0));
+		assertEquals(2, bitmap.count(63, 0, 64, 0));
+		for (int y = 0; y < 12; y++) {
+			for (int x = 0; x < 500; x += 2) {
+				bitmap.remove(x, y);
+			}
+		}
+		assertEquals(3000, bitmap.cardinality());
+		assertEquals(250, bitmap.count(0, 5, WIDTH - 1, 5));
+		assertTrue(bitmap.contains(1, 5));
+		assertFalse(bitmap.contains(2, 5));
+		bitmap.clear();
+		assertTrue(bitmap.isEmpty());
+		assertEquals(0, bitmap.count(0, 0, WIDTH - 1, 11));
+	}
+
+	@Test
+	public void testPerformanceCountAndEnumerate() {
+		Random r = new Random(7505);
+		OccupancyBitmap bitmap = new OccupancyBitmap(WIDTH);
+		for (int i = 0; i < 500000; i++) {
+			bitmap.add(r.nextInt(WIDTH), r.nextInt(3429));
+		}
+		long start = System.nanoTime();
+		int counted = 0;
+		for (int i = 0; i < 1000; i++) {
+			int x = r.nextInt(WIDTH - 100), y = r.nextInt(3429 - 100);
+			counted += bitmap.count(x, y, x + 100, y + 100);
+		}
+		long elapsed = System.nanoTime() - start;
+		int[] visited = { 0 };
+		long enumerated = System.nanoTime();
+		bitmap.forEach(0, (x, y, z) -> visited[0]++);
+		enumerated = System.nanoTime() - enumerated;
+		assertEquals(bitmap.cardinality(), visited[0]);
+		assertTrue(counted > 0);
+		System.out.println("OccupancyBitmap " + bitmap.cardinality() + " cells: " + elapsed / 1000 / 1000
+				+ " us per 101x101 count, " + enumerated / visited[0] + " ns per enumerated cell");
+	}
+
+}
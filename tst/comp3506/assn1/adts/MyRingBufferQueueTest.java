@@ -0,0 +1,176 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+public class MyRingBufferQueueTest {
+
+	@Test
+	public void testEmptyQueue() {
+		IterableQueue<Object> testQueue = new RingBufferQueue<>();
+		assertEquals(0, testQueue.size());
+		assertFalse(testQueue.iterator().hasNext());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testDequeueEmptyQueue() {
+		new RingBufferQueue<>().dequeue();
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testIteratorPastEnd() {
+		IterableQueue<Object> testQueue = new RingBufferQueue<>();
+		testQueue.enqueue(1);
+		Iterator<Object> it = testQueue.iterator();
+		it.next();
+		it.next();
+	}
+
+	@Test
+	public void testWrapAroundAndGrow() {
+		IterableQueue<Integer> testQueue = new RingBufferQueue<>();
+		int next = 0;
+		int first = 0;
+		// Move the head around the array, then fill it past its capacity
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 10; i++) {
+				testQueue.enqueue(next++);
+			}
+			for (int i = 0; i < 7; i++) {
+				assertEquals(Integer.valueOf(first++), testQueue.dequeue());
+			}
+		}
+		assertEquals(next - first, testQueue.size());
+		int expected = first;
+		for (int element : testQueue) {
+			assertEquals(expected++, element);
+		}
+		List<Integer> elements = new ArrayList<>();
+		testQueue.forEach(elements::add);
+		assertEquals(testQueue.size(), elements.size());
+		assertEquals(Integer.valueOf(first), elements.get(0));
+		while (testQueue.size() > 0) {
+			assertEquals(Integer.valueOf(first++), testQueue.dequeue());
+		}
+	}
+
+	@Test
+	public void testFixedCapacity() {
+		IterableQueue<Integer> testQueue = new RingBufferQueue<>(3);
+		testQueue.enqueue(1);
+		testQueue.enqueue(2);
+		testQueue.enqueue(3);
+		try {
+			testQueue.enqueue(4);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(3, testQueue.size());
+		}
+		assertEquals(Integer.valueOf(1), testQueue.dequeue());
+		testQueue.enqueue(4);
+		List<Integer> elements = new ArrayList<>();
+		testQueue.forEach(elements::add);
+		assertEquals(Arrays.asList(2, 3, 4), elements);
+	}
+
+	@Test
+	public void testRemove() {
+		IterableQueue<Integer> testQueue = new RingBufferQueue<>(4);
+		// Wrap the elements around the end of the array
+		testQueue.enqueue(0);
+		testQueue.enqueue(0);
+		testQueue.dequeue();
+		testQueue.dequeue();
+		for (int i = 1; i <= 4; i++) {
+			testQueue.enqueue(i);
+		}
+		assertTrue(testQueue.remove(3));
+		assertFalse(testQueue.remove(3));
+		Iterator<Integer> it = testQueue.iterator();
+		assertEquals(Integer.valueOf(1), it.next());
+		it.remove();
+		List<Integer> elements = new ArrayList<>();
+		testQueue.forEach(elements::add);
+		assertEquals(Arrays.asList(2, 4), elements);
+		testQueue.enqueue(5);
+		testQueue.enqueue(6);
+		assertEquals(Integer.valueOf(2), testQueue.dequeue());
+		assertEquals(3, testQueue.size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIteratorRemoveBeforeNext() {
+		IterableQueue<Integer> testQueue = new RingBufferQueue<>();
+		testQueue.enqueue(1);
+		testQueue.iterator().remove();
+	}
+
+	@Test
+	public void testDrainTo() {
+		IterableQueue<Integer> testQueue = new RingBufferQueue<>();
+		for (int i = 0; i < 5; i++) {
+			testQueue.enqueue(i);
+		}
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(3, testQueue.drainTo(drained::add, 3));
+		assertEquals(Arrays.asList(0, 1, 2), drained);
+		assertEquals(2, testQueue.drainTo(drained::add, 10));
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4), drained);
+		assertEquals(0, testQueue.drainTo(drained::add, 10));
+		assertEquals(0, testQueue.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDrainToNegative() {
+		new RingBufferQueue<>().drainTo(element -> {}, -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacity() {
+		new RingBufferQueue<>(0);
+	}
+
+	@Test
+	public void testPerformanceAgainstLinkedQueue() {
+		final int elements = 200000;
+		Object element = new Object();
+		for (int round = 0; round < 3; round++) {
+			for (int kind = 0; kind < 2; kind++) {
+				IterableQueue<Object> testQueue = (kind == 0) ? new TraversableQueue<>() : new RingBufferQueue<>();
+				long start = System.nanoTime();
+				// A radar queue that is filled and drained in bursts
+				for (int burst = 0; burst < 10; burst++) {
+					for (int i = 0; i < elements; i++) {
+						testQueue.enqueue(element);
+					}
+					for (int i = 0; i < elements; i++) {
+						testQueue.dequeue();
+					}
+				}
+				long queued = System.nanoTime() - start;
+				for (int i = 0; i < elements; i++) {
+					testQueue.enqueue(element);
+				}
+				int[] count = { 0 };
+				start = System.nanoTime();
+				for (int pass = 0; pass < 10; pass++) {
+					for (Object each : testQueue) {
+						count[0] += (each == element) ? 1 : 0;
+					}
+				}
+				long iterated = System.nanoTime() - start;
+				assertEquals(10 * elements, count[0]);
+				System.out.println(testQueue.getClass().getSimpleName() + ": " + queued / (20L * elements)
+						+ " ns per enqueue or dequeue, " + iterated / (10L * elements) + " ns per element iterated");
+			}
+		}
+	}
+
+}
@@ -85,6 +85,144 @@ public class MyTraversableQueueTest {
 		assertFalse(it.hasNext());	
 	}
 	
+	@Test
+	public void testTransferTo() {
+		TraversableQueue<Object> source = new TraversableQueue<>();
+		TraversableQueue<Object> target = new TraversableQueue<>();
+		source.enqueue(1);
+		source.enqueue(2);
+		source.enqueue(3);
+		target.enqueue(4);
+		assertTrue(source.transferTo(3, target));
+		assertFalse(source.transferTo(3, target));
+		assertTrue(target.contains(3));
+		assertEquals(2, source.size());
+		assertEquals(2, target.size());
+		// The tail of the source must still be valid after moving its last node
+		source.enqueue(5);
+		assertTrue(source.transferTo(1, target));
+		Iterator<Object> it = source.iterator();
+		assertEquals(2, it.next());
+		assertEquals(5, it.next());
+		assertFalse(it.hasNext());
+		assertEquals(4, target.dequeue());
+		assertEquals(3, target.dequeue());
+		assertEquals(1, target.dequeue());
+	}
+	
+	@Test
+	public void testRemoveEvery() {
+		TraversableQueue<Object> queue = new TraversableQueue<>();
+		queue.enqueue(1);
+		queue.enqueue(2);
+		queue.enqueue(1);
+		queue.enqueue(3);
+		queue.enqueue(1);
+		assertEquals(3, queue.removeEvery(1));
+		assertEquals(0, queue.removeEvery(1));
+		assertEquals(2, queue.size());
+		// The tail must still be valid after removing the last node
+		queue.enqueue(4);
+		Iterator<Object> it = queue.iterator();
+		assertEquals(2, it.next());
+		assertEquals(3, it.next());
+		assertEquals(4, it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testRemove() {
+		IterableQueue<Object> queue = new TraversableQueue<>();
+		queue.enqueue(1);
+		queue.enqueue(2);
+		queue.enqueue(1);
+		assertTrue(queue.remove(1));
+		assertFalse(queue.remove(3));
+		assertEquals(2, queue.size());
+		assertEquals(2, queue.dequeue());
+		assertTrue(queue.remove(1));
+		assertFalse(queue.iterator().hasNext());
+		queue.enqueue(4);
+		assertEquals(4, queue.dequeue());
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		TraversableQueue<Object> queue = new TraversableQueue.Pool<>().queue();
+		for (int i = 0; i < 6; i++) {
+			queue.enqueue(i);
+		}
+		// Remove the even elements, including the head, while walking the queue
+		Iterator<Object> it = queue.iterator();
+		while (it.hasNext()) {
+			if ((Integer) it.next() % 2 == 0) {
+				it.remove();
+			}
+		}
+		assertEquals(3, queue.size());
+		it = queue.iterator();
+		assertEquals(1, it.next());
+		assertEquals(3, it.next());
+		assertEquals(5, it.next());
+		it.remove();
+		// The tail is the last remaining node
+		queue.enqueue(7);
+		assertEquals(1, queue.dequeue());
+		assertEquals(3, queue.dequeue());
+		assertEquals(7, queue.dequeue());
+		assertEquals(0, queue.size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIteratorRemoveTwice() {
+		IterableQueue<Object> queue = new TraversableQueue<>();
+		queue.enqueue(1);
+		queue.enqueue(2);
+		Iterator<Object> it = queue.iterator();
+		it.next();
+		it.remove();
+		it.remove();
+	}
+
+	@Test
+	public void testPool() {
+		TraversableQueue.Pool<Object> pool = new TraversableQueue.Pool<>();
+		TraversableQueue<Object> queue = pool.queue();
+		queue.enqueue(1);
+		queue.enqueue(2);
+		queue.removeEvery(1);
+		pool.recycle(queue);
+		assertEquals(0, queue.size());
+		assertFalse(queue.iterator().hasNext());
+		// The queue and its nodes are reused
+		TraversableQueue<Object> reused = pool.queue();
+		assertSame(queue, reused);
+		reused.enqueue(3);
+		reused.enqueue(4);
+		reused.enqueue(5);
+		assertEquals(3, reused.size());
+		assertEquals(3, reused.dequeue());
+		assertNotSame(queue, pool.queue());
+	}
+
+	@Test
+	public void testPooledDequeue() {
+		TraversableQueue.Pool<Object> pool = new TraversableQueue.Pool<>();
+		TraversableQueue<Object> queue = pool.queue();
+		TraversableQueue<Object> other = pool.queue();
+		queue.enqueue(1);
+		queue.enqueue(2);
+		assertEquals(1, queue.dequeue());
+		// The dequeued node is reused by another queue of the pool without changing this one
+		other.enqueue(3);
+		queue.enqueue(4);
+		assertEquals(2, queue.dequeue());
+		assertEquals(4, queue.dequeue());
+		assertEquals(0, queue.size());
+		assertEquals(1, other.size());
+		assertEquals(3, other.dequeue());
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void testMaxLengthExceptions() {
 		IterableQueue<Object> testQueue = new TraversableQueue<>();
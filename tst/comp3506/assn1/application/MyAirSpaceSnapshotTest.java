@@ -0,0 +1,119 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MyAirSpaceSnapshotTest {
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		AirSpace airSpace = new AirSpace(100, 100, 35);
+		airSpace.addAircraft(new Aircraft("BNE10", 1, 2, 3500, 250, 90.5));
+		airSpace.addAircraft(new Aircraft("SYD10", 1, 2, 3999, 230, 180));
+		airSpace.addAircraft(new Aircraft("MEL10", 99, 0, 35000, 270, 359.9));
+		airSpace.addAircraft(new Aircraft("\u00C5RH\u00E91", 50, 50, 10000, 240, 45));
+		Path file = Files.createTempFile("airspace", ".snapshot");
+		try {
+			AirSpaceSnapshot.save(airSpace, file);
+			AirSpace restored = AirSpaceSnapshot.load(file);
+			assertEquals(100, restored.getLength());
+			assertEquals(35, restored.getHeight());
+			Aircraft aircraft = restored.locate("syd10");
+			assertEquals(1, aircraft.getAirSpaceXCoord());
+			assertEquals(2, aircraft.getAirSpaceYCoord());
+			assertEquals(3999, aircraft.getAltitude());
+			assertEquals(230, aircraft.getSpeed());
+			assertEquals(180, aircraft.getCourse(), 0);
+			assertNotNull(restored.locate("MEL10"));
+			assertEquals("\u00C5RH\u00E91", restored.locate("\u00E5rh\u00C91").getId());
+			// Both aircraft share a cell after the restore
+			assertEquals(1, restored.findWithinRadius(aircraft, 1000).size());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testRecoverFromJournal() throws IOException {
+		Path file = Files.createTempFile("airspace", ".snapshot");
+		Path log = Files.createTempFile("airspace", ".journal");
+		try {
+			AirSpace airSpace = new AirSpace(100, 100, 35);
+			airSpace.openJournal(log);
+			airSpace.addAircraft(new Aircraft("BNE10", 1, 2, 3500, 250, 90.5));
+			airSpace.addAircraft(new Aircraft("SYD10", 5, 5, 5000, 230, 180));
+			AirSpaceSnapshot.save(airSpace, file);
+			// Changes after the snapshot are only in the journal
+			airSpace.addAircraft(new Aircraft("BNE10", 2, 2, 3500, 250, 90.5));
+			airSpace.removeAircraft("SYD10");
+			airSpace.addAircraft(new Aircraft("MEL10", 9, 9, 9000, 270, 0));
+			AirTrafficTracker tracker = new AirTrafficTracker(airSpace, 2);
+			tracker.newAircraft(new Aircraft("ADL10", 7, 7, 7000, 240, 10));
+			tracker.newAircraft(new Aircraft("PER10", 8, 8, 8000, 240, 10));
+			tracker.processRadarQueue();
+			tracker.processRadarQueue();
+			// Not committed before the crash
+			airSpace.addAircraft(new Aircraft("CNS10", 3, 3, 3000, 240, 10));
+			
+			AirSpace restored = AirSpaceSnapshot.load(file);
+			restored.openJournal(log);
+			assertEquals(2, restored.locate("BNE10").getAirSpaceXCoord());
+			assertNull(restored.locate("SYD10"));
+			assertNotNull(restored.locate("MEL10"));
+			assertNotNull(restored.locate("ADL10"));
+			assertNotNull(restored.locate("PER10"));
+			assertNull(restored.locate("CNS10"));
+			assertEquals(3, restored.findWithinRadius(restored.locate("MEL10"), 100000).size());
+			restored.closeJournal();
+		} finally {
+			Files.delete(file);
+			Files.delete(log);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadInvalidFile() throws IOException {
+		Path file = Files.createTempFile("airspace", ".snapshot");
+		try {
+			Files.write(file, new byte[] { 1, 2, 3 });
+			AirSpaceSnapshot.load(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testPerformanceSaveAndLoad() throws IOException {
+		final int count = 200000;
+		Random r = new Random();
+		List<Aircraft> aircraft = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			aircraft.add(new Aircraft("BNE" + i, r.nextInt(5321), r.nextInt(3428), r.nextInt(35000), 
+					                  220 + r.nextInt(55), r.nextDouble() * 360));
+		}
+		AirSpace airSpace = new AirSpace(5321, 3428, 35);
+		airSpace.addAllAircraft(aircraft);
+		Path file = Files.createTempFile("airspace", ".snapshot");
+		try {
+			long start = System.nanoTime();
+			AirSpaceSnapshot.save(airSpace, file);
+			long saved = System.nanoTime();
+			AirSpace restored = AirSpaceSnapshot.load(file);
+			long loaded = System.nanoTime();
+			assertNotNull(restored.locate("BNE" + (count - 1)));
+			System.out.println("AirSpaceSnapshot " + count + " aircraft (" + Files.size(file) / 1024 + " KB): save "
+					+ (saved - start) / 1000000 + " ms, load " + (loaded - saved) / 1000000 + " ms");
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,332 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import comp3506.assn1.adts.IterableQueue;
+
+public class MyAirSpaceTest {
+
+	@Test
+	public void testStream() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		airSpace.addAircraft(new Aircraft("QF1", 5, 5, 9000, 800, 90));
+		airSpace.addAircraft(new Aircraft("QF2", 1, 1, 2500, 750, 180));
+		airSpace.addAircraft(new Aircraft("QF3", 1, 1, 2000, 300, 180));
+		// Ordered by altitude layer and then by cell
+		assertArrayEquals(new Object[] { "QF2", "QF3", "QF1" },
+				          airSpace.stream().map(Aircraft::getId).toArray());
+		assertEquals(3, airSpace.parallelStream().count());
+	}
+
+	@Test
+	public void testLocateAndRemove() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		Aircraft qf1 = new Aircraft("QF1", 5, 5, 9000, 800, 90);
+		airSpace.addAircraft(qf1);
+		assertSame(qf1, airSpace.locate("QF1"));
+		assertSame(qf1, airSpace.locate("qf1"));
+		assertNull(airSpace.locate("QF2"));
+		assertSame(qf1, airSpace.removeAircraft("Qf1"));
+		assertNull(airSpace.locate("QF1"));
+		assertNull(airSpace.removeAircraft("QF1"));
+		assertEquals(0, airSpace.stream().count());
+	}
+
+	@Test
+	public void testReplaceSameId() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		airSpace.addAircraft(new Aircraft("X", 5, 5, 9000, 800, 90));
+		Aircraft moved = new Aircraft("x", 6, 5, 9000, 800, 90);
+		assertFalse(airSpace.addAircraft(moved));
+		assertSame(moved, airSpace.locate("X"));
+		assertArrayEquals(new Object[] { moved }, airSpace.stream().toArray());
+		// A new report in the same cell does not conflict with the previous report
+		Aircraft same = new Aircraft("X", 6, 5, 9100, 800, 90);
+		assertFalse(airSpace.addAircraft(same));
+		assertSame(same, airSpace.stream().findFirst().get());
+		assertEquals(1, airSpace.stream().count());
+	}
+
+	@Test
+	public void testAddOutOfBoundsLeavesModel() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		Aircraft qf1 = new Aircraft("QF1", 5, 5, 9000, 800, 90);
+		airSpace.addAircraft(qf1);
+		try {
+			airSpace.addAircraft(new Aircraft("QF1", 101, 5, 9000, 800, 90));
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+		assertSame(qf1, airSpace.locate("QF1"));
+		assertEquals(1, airSpace.stream().count());
+		try {
+			airSpace.addAllAircraft(Arrays.asList(new Aircraft("QF2", 1, 1, 1000, 800, 90), 
+					                              new Aircraft("QF1", 5, 5, 11000, 800, 90)));
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+		assertNull(airSpace.locate("QF2"));
+		assertSame(qf1, airSpace.locate("QF1"));
+		assertArrayEquals(new Object[] { qf1 }, airSpace.stream().toArray());
+	}
+
+	@Test
+	public void testAddAllKeepsLatestReport() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		Aircraft latest = new Aircraft("x", 7, 7, 2000, 800, 90);
+		airSpace.addAllAircraft(Arrays.asList(new Aircraft("X", 5, 5, 9000, 800, 90), 
+				                              new Aircraft("QF1", 1, 1, 1000, 800, 90), latest));
+		assertSame(latest, airSpace.locate("X"));
+		assertEquals(2, airSpace.stream().count());
+		// The earlier report of X is not left in the model
+		assertEquals(1, airSpace.findWithinRadius(latest, 100000).size());
+	}
+
+	@Test(timeout = 60000)
+	public void testQueriesWhileRadarQueueIsProcessed() throws InterruptedException {
+		AirSpace airSpace = AirSpace.withConcurrentQueries(200, 200, 30);
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] readers = new Thread[2];
+		for (int i = 0; i < readers.length; i++) {
+			Random r = new Random(i);
+			readers[i] = new Thread(() -> {
+				try {
+					while (airSpace.locate("DONE") == null) {
+						Aircraft probe = new Aircraft("PROBE", r.nextInt(201), r.nextInt(201), r.nextInt(30000),
+								                      800, 90);
+						airSpace.locate("VH" + r.nextInt(2000));
+						airSpace.forEachNeighbour(probe, aircraft -> assertNotNull(aircraft.getId()));
+						airSpace.findWithinRadius(probe, 3000);
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			readers[i].start();
+		}
+		// Aircraft keep being reported in new positions while the readers query the airspace
+		Random r = new Random(3506);
+		for (int i = 0; i < 20000; i++) {
+			tracker.newAircraft(new Aircraft("VH" + r.nextInt(2000), r.nextInt(201), r.nextInt(201), 
+					                         r.nextInt(30000), 800, 90));
+			tracker.processRadarQueue();
+		}
+		airSpace.addAircraft(new Aircraft("DONE", 0, 0, 0, 0, 0));
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		assertNull(failure.get());
+		assertEquals(airSpace.allAircraft().size(), airSpace.stream().count());
+	}
+
+	@Test
+	public void testForEachNeighbour() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		Aircraft qf1 = new Aircraft("QF1", 5, 5, 9000, 800, 90);
+		airSpace.addAircraft(qf1);
+		airSpace.addAircraft(new Aircraft("QF2", 6, 4, 10500, 750, 180));
+		airSpace.addAircraft(new Aircraft("QF3", 7, 5, 9000, 300, 180));
+		List<String> ids = new ArrayList<>();
+		airSpace.forEachNeighbour(qf1, aircraft -> ids.add(aircraft.getId()));
+		assertEquals(2, ids.size());
+		assertTrue(ids.contains("QF1"));
+		assertTrue(ids.contains("QF2"));
+	}
+
+	@Test
+	public void testFindWithinRadius() {
+		AirSpace airSpace = new AirSpace(100, 100, 20);
+		Aircraft qf1 = new Aircraft("QF1", 5, 5, 9000, 800, 90);
+		airSpace.addAircraft(qf1);
+		airSpace.addAircraft(new Aircraft("QF2", 5, 5, 9500, 750, 180));	// 500 m
+		airSpace.addAircraft(new Aircraft("QF3", 6, 5, 9000, 300, 180));	// 1000 m
+		airSpace.addAircraft(new Aircraft("QF4", 6, 6, 9000, 300, 180));	// 1414 m
+		airSpace.addAircraft(new Aircraft("QF5", 5, 5, 11000, 300, 180));	// 2000 m, two layers up
+		airSpace.addAircraft(new Aircraft("QF6", 8, 5, 9000, 300, 180));	// 3000 m
+		// The aircraft itself is never in the result
+		assertEquals(0, airSpace.findWithinRadius(qf1, 0).size());
+		assertEquals(1, airSpace.findWithinRadius(qf1, 999).size());
+		assertEquals(2, airSpace.findWithinRadius(qf1, 1000).size());
+		assertEquals(3, airSpace.findWithinRadius(qf1, 1500).size());
+		assertEquals(4, airSpace.findWithinRadius(qf1, 2000).size());
+		assertEquals(5, airSpace.findWithinRadius(qf1, 3000).size());
+		// The search box is clipped to the airspace
+		Aircraft corner = new Aircraft("QF7", 0, 0, 0, 300, 180);
+		airSpace.addAircraft(corner);
+		assertEquals(0, airSpace.findWithinRadius(corner, 5000).size());
+		assertEquals(6, airSpace.findWithinRadius(corner, 100000).size());
+	}
+
+	@Test
+	public void testCountByAltitude() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		airSpace.addAircraft(new Aircraft("QF1", 5, 5, 9000, 800, 90));
+		airSpace.addAircraft(new Aircraft("QF2", 1, 1, 2500, 750, 180));
+		airSpace.addAircraft(new Aircraft("QF3", 7, 1, 2000, 300, 180));
+		airSpace.addAircraft(new Aircraft("QF4", 7, 1, 10999, 300, 180));
+		long[] counts = airSpace.countByAltitude();
+		assertEquals(11, counts.length);
+		assertEquals(2, counts[2]);
+		assertEquals(1, counts[9]);
+		assertEquals(1, counts[10]);
+		assertEquals(0, counts[0]);
+	}
+
+	@Test
+	public void testSpeedDistribution() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		airSpace.addAircraft(new Aircraft("QF1", 5, 5, 9000, 800, 90));
+		airSpace.addAircraft(new Aircraft("QF2", 1, 1, 2500, 750, 180));
+		airSpace.addAircraft(new Aircraft("QF3", 7, 1, 2000, 99, 180));
+		airSpace.addAircraft(new Aircraft("QF4", 7, 1, 2000, 100, 180));
+		assertArrayEquals(new long[] { 1, 1, 0, 2 }, airSpace.speedDistribution(100, 4));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSpeedDistributionInvalidBand() {
+		new AirSpace(100, 100, 10).speedDistribution(0, 4);
+	}
+
+	@Test
+	public void testPerformanceReports() {
+		final int aircraft = 200000;
+		Random r = new Random(7505);
+		AirSpace airSpace = new AirSpace(5321, 3428, 35);
+		for (int i = 0; i < aircraft; i++) {
+			airSpace.addAircraft(new Aircraft("A" + i, r.nextInt(5322), r.nextInt(3429), r.nextInt(35000),
+					                          r.nextInt(1000), 0));
+		}
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			long[] altitudes = airSpace.countByAltitude();
+			long[] speeds = airSpace.speedDistribution(50, 20);
+			long elapsed = System.nanoTime() - start;
+			long total = 0;
+			for (long count : altitudes) {
+				total += count;
+			}
+			assertEquals(aircraft, total);
+			total = 0;
+			for (long count : speeds) {
+				total += count;
+			}
+			assertEquals(aircraft, total);
+			System.out.println("AirSpace reports over " + aircraft + " aircraft: " + elapsed / 1000000 + " ms");
+		}
+	}
+
+	@Test
+	public void testSweepConflicts() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		assertTrue(airSpace.sweepConflicts().isClear());
+		Aircraft qf1 = new Aircraft("QF1", 5, 5, 9000, 800, 90);
+		Aircraft qf2 = new Aircraft("QF2", 5, 5, 9500, 750, 180);
+		Aircraft qf3 = new Aircraft("QF3", 6, 4, 10100, 300, 180);
+		Aircraft qf4 = new Aircraft("QF4", 8, 5, 9000, 300, 180);
+		airSpace.addAircraft(qf1);
+		airSpace.addAircraft(qf2);
+		airSpace.addAircraft(qf3);
+		airSpace.addAircraft(qf4);
+		ConflictReport report = airSpace.sweepConflicts();
+		assertFalse(report.isClear());
+		assertEquals(1, report.getSharedCells().size());
+		IterableQueue<Aircraft> cell = report.getSharedCells().iterator().next();
+		assertEquals(qf1, cell.dequeue());
+		assertEquals(qf2, cell.dequeue());
+		// The copy in the report does not change the model
+		assertEquals(2, airSpace.findWithinRadius(qf3, 2000).size());
+		assertEquals(2, report.getProximityPairs().size());
+		for (Aircraft[] pair : report.getProximityPairs()) {
+			assertEquals(qf3, pair[1]);
+		}
+	}
+
+	@Test
+	public void testSweepConflictsAgainstAllPairs() {
+		Random r = new Random(3506);
+		AirSpace airSpace = new AirSpace(60, 60, 2);
+		List<Aircraft> aircraft = new ArrayList<>();
+		for (int i = 0; i < 800; i++) {
+			aircraft.add(new Aircraft("A" + i, r.nextInt(61), r.nextInt(61), r.nextInt(3000), 0, 0));
+		}
+		airSpace.addAllAircraft(aircraft);
+		Set<Long> cells = new HashSet<>();
+		int pairs = 0;
+		for (int i = 0; i < aircraft.size(); i++) {
+			Aircraft each = aircraft.get(i);
+			cells.add((each.getAltitude() / 1000 * 61L + each.getAirSpaceYCoord()) * 61 + each.getAirSpaceXCoord());
+			for (int j = i + 1; j < aircraft.size(); j++) {
+				int dx = Math.abs(aircraft.get(i).getAirSpaceXCoord() - aircraft.get(j).getAirSpaceXCoord());
+				int dy = Math.abs(aircraft.get(i).getAirSpaceYCoord() - aircraft.get(j).getAirSpaceYCoord());
+				int dz = Math.abs(aircraft.get(i).getAltitude() / 1000 - aircraft.get(j).getAltitude() / 1000);
+				if (dx <= 1 && dy <= 1 && dz <= 1 && dx + dy + dz > 0) {
+					pairs++;
+				}
+			}
+		}
+		// Enough threads that the three layers are split into y bands
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			ConflictReport report = airSpace.sweepConflicts(pool);
+			assertEquals(pairs, report.getProximityPairs().size());
+			assertEquals(report.getProximityPairs().size(), airSpace.sweepConflicts().getProximityPairs().size());
+			int shared = 0;
+			for (IterableQueue<Aircraft> cell : report.getSharedCells()) {
+				shared += cell.size();
+			}
+			assertEquals(aircraft.size() - cells.size(), shared - report.getSharedCells().size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testPerformanceSweepConflicts() {
+		final int aircraft = 100000;
+		Random r = new Random(7505);
+		AirSpace airSpace = new AirSpace(5321, 3428, 35);
+		List<Aircraft> all = new ArrayList<>();
+		for (int i = 0; i < aircraft; i++) {
+			// Half of the traffic is around a few busy airports
+			int airport = r.nextInt(8) * 600;
+			boolean busy = i % 2 == 0;
+			all.add(new Aircraft("A" + i, busy ? airport + r.nextInt(100) : r.nextInt(5322),
+					             busy ? airport / 2 + r.nextInt(100) : r.nextInt(3429), r.nextInt(35000), 0, 0));
+		}
+		airSpace.addAllAircraft(all);
+		for (int round = 0; round < 10; round++) {
+			airSpace.sweepConflicts();
+		}
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				long best = Long.MAX_VALUE;
+				ConflictReport report = null;
+				for (int round = 0; round < 5; round++) {
+					long start = System.nanoTime();
+					report = airSpace.sweepConflicts(pool);
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				System.out.println("Conflict sweep of " + aircraft + " aircraft with " + threads + " thread(s): "
+						+ best / 1000000 + " ms, " + report.getSharedCells().size() + " shared cells, "
+						+ report.getProximityPairs().size() + " pairs (" 
+						+ Runtime.getRuntime().availableProcessors() + " cores)");
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,225 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.MpscBoundedQueue.Backpressure;
+
+public class MyAirTrafficTrackerTest {
+
+	@Test
+	public void testRadarThreads() throws InterruptedException {
+		final int sites = 4;
+		final int reports = 2000;
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace, 0, 16, Backpressure.BLOCK);
+		List<Thread> threads = new ArrayList<>();
+		for (int s = 0; s < sites; s++) {
+			Radar radar = new Radar(tracker, "R" + s + "-");
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < reports; i++) {
+					radar.aircraftIdentified();
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		// This thread is the only one that processes the queue
+		int processed = 0;
+		while (processed < sites * reports) {
+			if (tracker.radarQueueIterator().hasNext()) {
+				tracker.processRadarQueue();
+				processed++;
+			} else {
+				Thread.yield();
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertFalse(tracker.radarQueueIterator().hasNext());
+		assertEquals(sites * reports, airSpace.stream().count());
+		assertNotNull(airSpace.locate("R3-" + (10 + reports - 1)));
+	}
+
+	@Test
+	public void testProcessBatch() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+		tracker.newAircraft(new Aircraft("QF1", 50, 50, 5000, 800, 90.0));
+		tracker.newAircraft(new Aircraft("QF2", 10, 10, 1000, 800, 90.0));
+		tracker.newAircraft(new Aircraft("QF1", 20, 30, 2000, 800, 90.0));
+		tracker.newAircraft(new Aircraft("QF3", 0, 0, 0, 800, 90.0));
+		assertEquals(3, tracker.processRadarQueue(3));
+		// The later report of QF1 wins, although its cell comes first
+		assertEquals(20, airSpace.locate("QF1").getAirSpaceXCoord());
+		assertEquals(2, airSpace.stream().count());
+		assertNull(airSpace.locate("QF3"));
+		assertEquals(1, tracker.processRadarQueue(10));
+		assertNotNull(airSpace.locate("QF3"));
+		assertEquals(0, tracker.processRadarQueue(10));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBatch() {
+		new AirTrafficTracker(new AirSpace(100, 100, 10)).processRadarQueue(0);
+	}
+	
+	@Test
+	public void testPerformanceBatchSize() {
+		final int aircraft = 100000;
+		Random random = new Random(3506);
+		List<Aircraft> reports = new ArrayList<>();
+		for (int i = 0; i < aircraft; i++) {
+			reports.add(new Aircraft("VH" + i, random.nextInt(OneSky.AUSTRALIA_WIDTH), 
+					                 random.nextInt(OneSky.AUSTRALIA_LENGTH), 
+					                 random.nextInt(OneSky.FLIGHT_CEILING * 1000), 800, 90.0));
+		}
+		for (int round = 0; round < 2; round++) {
+			for (int batch : new int[] { 1, 16, 256, 4096 }) {
+				for (int kind = 0; kind < 2; kind++) {
+					Cube<Aircraft> cube = (kind == 0) 
+							? new BoundedCube<>(OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH, OneSky.FLIGHT_CEILING)
+							: new HashedCube<>(OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH, OneSky.FLIGHT_CEILING);
+					AirSpace airSpace = new AirSpace(cube, aircraft);
+					AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+					for (Aircraft each : reports) {
+						tracker.newAircraft(each);
+					}
+					long start = System.nanoTime();
+					int processed = 0;
+					while (processed < aircraft) {
+						processed += tracker.processRadarQueue(batch);
+					}
+					long elapsed = System.nanoTime() - start;
+					assertEquals(aircraft, airSpace.allAircraft().size());
+					System.out.println(cube.getClass().getSimpleName() + " batches of " + batch + ": " 
+							+ elapsed / aircraft + " ns per aircraft");
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testFindQueued() {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+		Aircraft first = new Aircraft("QF1", 50, 50, 5000, 800, 90.0);
+		Aircraft second = new Aircraft("QF1", 20, 30, 2000, 800, 90.0);
+		tracker.newAircraft(first);
+		tracker.newAircraft(new Aircraft("QF2", 10, 10, 1000, 800, 90.0));
+		tracker.newAircraft(second);
+		assertSame(second, tracker.findQueued("qf1"));
+		assertNotNull(tracker.findQueued("QF2"));
+		assertNull(tracker.findQueued("QF3"));
+		// QF1 is still queued until its last report is processed
+		tracker.processRadarQueue();
+		assertSame(second, tracker.findQueued("QF1"));
+		tracker.processRadarQueue(2);
+		assertNull(tracker.findQueued("QF1"));
+		assertNull(tracker.findQueued("QF2"));
+		assertSame(second, airSpace.locate("QF1"));
+	}
+	
+	@Test
+	public void testFindQueuedWithBackpressure() {
+		AirTrafficTracker dropping = new AirTrafficTracker(new AirSpace(100, 100, 10), 0, 2, Backpressure.DROP_OLDEST);
+		Radar radar = new Radar(dropping, "BNE");
+		radar.aircraftIdentified();
+		radar.aircraftIdentified();
+		radar.aircraftIdentified();
+		assertNull(dropping.findQueued("BNE10"));
+		assertNotNull(dropping.findQueued("BNE12"));
+		AirTrafficTracker rejecting = new AirTrafficTracker(new AirSpace(100, 100, 10), 0, 1, Backpressure.REJECT);
+		rejecting.newAircraft(new Aircraft("QF1", 1, 1, 1000, 800, 90.0));
+		rejecting.newAircraft(new Aircraft("QF1", 2, 2, 1000, 800, 90.0));
+		try {
+			rejecting.newAircraft(new Aircraft("QF2", 1, 1, 1000, 800, 90.0));
+			fail();
+		} catch (IllegalStateException e) {
+			assertNull(rejecting.findQueued("QF2"));
+		}
+	}
+	
+	@Test
+	public void testRejectedReportIsNotFound() {
+		AirTrafficTracker tracker = new AirTrafficTracker(new AirSpace(100, 100, 10), 0, 2, Backpressure.REJECT);
+		Aircraft queued = new Aircraft("QF1", 1, 1, 1000, 800, 90.0);
+		tracker.newAircraft(queued);
+		tracker.newAircraft(new Aircraft("QF2", 1, 1, 1000, 800, 90.0));
+		try {
+			tracker.newAircraft(new Aircraft("QF1", 50, 1, 1000, 800, 90.0));
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		// The report still in the queue is found, not the one that was rejected
+		assertSame(queued, tracker.findQueued("QF1"));
+		tracker.processRadarQueue();
+		assertNull(tracker.findQueued("QF1"));
+		assertNotNull(tracker.findQueued("QF2"));
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRadarQueueIteratorCannotRemove() {
+		AirTrafficTracker tracker = new AirTrafficTracker(new AirSpace(100, 100, 10));
+		new Radar(tracker, "BNE").aircraftIdentified();
+		Iterator<Aircraft> it = tracker.radarQueueIterator();
+		it.next();
+		it.remove();
+	}
+	
+	@Test
+	public void testPerformanceFindQueued() {
+		final int queued = 100000;
+		final int searches = 1000;
+		AirTrafficTracker tracker = new AirTrafficTracker(new AirSpace(OneSky.AUSTRALIA_WIDTH, 
+				OneSky.AUSTRALIA_LENGTH, OneSky.FLIGHT_CEILING));
+		Radar radar = new Radar(tracker, "SYD");
+		for (int i = 0; i < queued; i++) {
+			radar.aircraftIdentified();
+		}
+		Random random = new Random(3506);
+		long start = System.nanoTime();
+		int found = 0;
+		for (int i = 0; i < searches; i++) {
+			String id = "syd" + (10 + random.nextInt(queued));
+			Iterator<Aircraft> it = tracker.radarQueueIterator();
+			while (it.hasNext()) {
+				if (it.next().getId().equalsIgnoreCase(id)) {
+					found++;
+					break;
+				}
+			}
+		}
+		long walked = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < searches; i++) {
+			if (tracker.findQueued("syd" + (10 + random.nextInt(queued))) != null) {
+				found++;
+			}
+		}
+		long indexed = System.nanoTime() - start;
+		assertEquals(2 * searches, found);
+		System.out.println("Search of " + queued + " queued aircraft: " + walked / searches + " ns walking the queue, " 
+				+ indexed / searches + " ns with the index");
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testRejectWhenFull() {
+		AirTrafficTracker tracker = new AirTrafficTracker(new AirSpace(100, 100, 10), 0, 2, Backpressure.REJECT);
+		Radar radar = new Radar(tracker, "BNE");
+		radar.aircraftIdentified();
+		radar.aircraftIdentified();
+		radar.aircraftIdentified();
+	}
+
+}
@@ -0,0 +1,48 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MyAircraftTest {
+
+	@Test
+	public void testEqualsIgnoresCase() {
+		Aircraft upper = new Aircraft("QF1", 5, 5, 9000, 800, 90);
+		Aircraft lower = new Aircraft("qf1", 6, 6, 1000, 300, 180);
+		assertEquals(upper, lower);
+		assertEquals(upper.hashCode(), lower.hashCode());
+		assertNotEquals(upper, new Aircraft("QF2", 5, 5, 9000, 800, 90));
+		assertNotEquals(upper, "QF1");
+		assertNotEquals(upper, null);
+	}
+
+	@Test
+	public void testHashCodeMatchesEqualsIgnoreCase() {
+		// Characters whose upper and lower cases do not map back to each other
+		String[][] pairs = { { "\u01C5", "\u01C6" }, { "\u017F", "S" }, { "\u0131", "I" }, { "\u03A9", "\u03C9" },
+				             { "\u212A", "k" } };
+		for (String[] pair : pairs) {
+			assertTrue(pair[0].equalsIgnoreCase(pair[1]));
+			Aircraft first = new Aircraft("A" + pair[0], 5, 5, 9000, 800, 90);
+			Aircraft second = new Aircraft("A" + pair[1], 5, 5, 9000, 800, 90);
+			assertEquals(first, second);
+			assertEquals(first.hashCode(), second.hashCode());
+		}
+	}
+
+	@Test
+	public void testIdKey() {
+		assertEquals(Aircraft.idKey("QF1"), Aircraft.idKey("qf1"));
+		assertEquals(Aircraft.idKey("QF1"), Aircraft.idKey("Qf1"));
+		assertNotEquals(Aircraft.idKey("QF1"), Aircraft.idKey("QF2"));
+		// Ids that are already keys are returned as they are
+		String key = Aircraft.idKey("QF1");
+		assertSame(key, Aircraft.idKey(key));
+		String[][] pairs = { { "\u017F", "S" }, { "\u0131", "I" }, { "\u01C5", "\u01C6" }, { "\u212A", "k" } };
+		for (String[] pair : pairs) {
+			assertEquals(Aircraft.idKey(pair[0]), Aircraft.idKey(pair[1]));
+		}
+	}
+
+}
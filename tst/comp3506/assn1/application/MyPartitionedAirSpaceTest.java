@@ -0,0 +1,138 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class MyPartitionedAirSpaceTest {
+
+	@Test
+	public void testConflictAcrossEdge() {
+		// Strips of 25 columns: 0-24, 25-49, 50-74 and 75-99
+		PartitionedAirSpace airSpace = new PartitionedAirSpace(99, 99, 10, 4, 16);
+		Aircraft left = new Aircraft("QF1", 24, 10, 5000, 800, 90.0);
+		Aircraft right = new Aircraft("QF2", 25, 11, 5500, 800, 90.0);
+		airSpace.start();
+		airSpace.newAircraft(left);
+		airSpace.newAircraft(right);
+		airSpace.newAircraft(new Aircraft("QF3", 25, 11, 5000, 800, 90.0));
+		airSpace.newAircraft(new Aircraft("QF4", 60, 60, 5000, 800, 90.0));
+		airSpace.close();
+		assertEquals(4, airSpace.size());
+		assertSame(left, airSpace.locate("qf1"));
+		List<Aircraft> neighbours = new ArrayList<>();
+		airSpace.forEachNeighbour(left, neighbours::add);
+		assertEquals(3, neighbours.size());
+		assertTrue(neighbours.contains(right));
+		ConflictReport report = airSpace.sweepConflicts();
+		assertEquals(1, report.getSharedCells().size());
+		assertEquals(2, report.getProximityPairs().size());
+	}
+
+	@Test
+	public void testMoveAcrossStrips() {
+		PartitionedAirSpace airSpace = new PartitionedAirSpace(99, 99, 10, 4, 16);
+		Aircraft other = new Aircraft("QF2", 25, 10, 5000, 800, 90.0);
+		airSpace.start();
+		airSpace.newAircraft(other);
+		airSpace.newAircraft(new Aircraft("QF1", 24, 10, 5000, 800, 90.0));
+		Aircraft moved = new Aircraft("QF1", 80, 10, 5000, 800, 90.0);
+		airSpace.newAircraft(moved);
+		airSpace.close();
+		assertSame(moved, airSpace.locate("QF1"));
+		// The old report is gone from its strip and from the ghosts of the next strip
+		List<Aircraft> neighbours = new ArrayList<>();
+		airSpace.forEachNeighbour(other, neighbours::add);
+		assertEquals(Arrays.asList(other), neighbours);
+		assertTrue(airSpace.sweepConflicts().isClear());
+	}
+
+	@Test
+	public void testSameConflictsAsSingleAirSpace() {
+		final int length = 199;
+		Random random = new Random(3506);
+		AirSpace single = new AirSpace(length, 50, 5);
+		PartitionedAirSpace partitioned = new PartitionedAirSpace(length, 50, 5, 7, 32);
+		partitioned.start();
+		// Dense traffic, with some aircraft reported again in another place
+		for (int i = 0; i < 5000; i++) {
+			Aircraft aircraft = new Aircraft("VH" + random.nextInt(3000), random.nextInt(length + 1), 
+					                         random.nextInt(51), random.nextInt(6000), 800, 90.0);
+			single.addAircraft(aircraft);
+			partitioned.newAircraft(aircraft);
+		}
+		partitioned.close();
+		assertEquals(single.allAircraft().size(), partitioned.size());
+		for (Aircraft aircraft : single.allAircraft()) {
+			assertSame(aircraft, partitioned.locate(aircraft.getId()));
+		}
+		ConflictReport expected = single.sweepConflicts();
+		ConflictReport actual = partitioned.sweepConflicts();
+		assertEquals(expected.getSharedCells().size(), actual.getSharedCells().size());
+		assertEquals(pairs(expected), pairs(actual));
+	}
+
+	@Test(timeout = 10000)
+	public void testConsumerFailureStopsReports() {
+		PartitionedAirSpace airSpace = new PartitionedAirSpace(99, 99, 10, 4, 4);
+		airSpace.start();
+		// Outside of the airspace, so that the consumer of its strip fails to add it
+		airSpace.newAircraft(new Aircraft("QF1", 10, 200, 5000, 800, 90.0));
+		// Reports to the failed strip are discarded instead of filling its queue for good
+		try {
+			for (int i = 0; ; i++) {
+				airSpace.newAircraft(new Aircraft("VH" + i, 10, 10, 5000, 800, 90.0));
+			}
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof IndexOutOfBoundsException);
+		}
+		try {
+			airSpace.close();
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof IndexOutOfBoundsException);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testCloseWhenInterrupted() {
+		PartitionedAirSpace airSpace = new PartitionedAirSpace(99, 99, 10, 4, 16);
+		airSpace.start();
+		airSpace.newAircraft(new Aircraft("QF1", 10, 10, 5000, 800, 90.0));
+		Thread.currentThread().interrupt();
+		airSpace.close();
+		// The interrupt is kept for the caller, which may close the airspace again
+		assertTrue(Thread.interrupted());
+		airSpace.close();
+		assertEquals(1, airSpace.size());
+		assertNotNull(airSpace.locate("QF1"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooManyPartitions() {
+		new PartitionedAirSpace(9, 9, 9, 11, 16);
+	}
+
+	@Test
+	public void testPerformancePartitions() throws InterruptedException {
+		OneSky.partitioned(4);
+	}
+
+	private static Set<String> pairs(ConflictReport report) {
+		Set<String> pairs = new HashSet<>();
+		for (Aircraft[] pair : report.getProximityPairs()) {
+			String first = pair[0].getId();
+			String second = pair[1].getId();
+			pairs.add((first.compareTo(second) < 0) ? first + "/" + second : second + "/" + first);
+		}
+		return pairs;
+	}
+
+}
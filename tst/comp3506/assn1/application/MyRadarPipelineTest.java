@@ -0,0 +1,80 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MyRadarPipelineTest {
+
+	@Test
+	public void testAllAircraftProcessed() throws InterruptedException {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		RadarPipeline pipeline = new RadarPipeline(airSpace, 4, 2000, 16);
+		pipeline.start();
+		pipeline.awaitCompletion();
+		assertEquals(8000, pipeline.processed());
+		assertEquals(8000, airSpace.stream().count());
+		assertNotNull(airSpace.locate("R3-" + (10 + 1999)));
+		assertNull(pipeline.getTracker().findQueued("R0-10"));
+		assertFalse(pipeline.getTracker().radarQueueIterator().hasNext());
+	}
+
+	@Test
+	public void testCloseStopsRadarSites() throws InterruptedException {
+		AirSpace airSpace = new AirSpace(100, 100, 10);
+		RadarPipeline pipeline = new RadarPipeline(airSpace, 2, Integer.MAX_VALUE, 64);
+		try (RadarPipeline running = pipeline) {
+			running.start();
+			while (running.processed() < 1000) {
+				Thread.sleep(1);
+			}
+		}
+		// Everything identified before the sites stopped has been added
+		assertEquals(pipeline.processed(), airSpace.stream().count());
+		assertFalse(pipeline.getTracker().radarQueueIterator().hasNext());
+	}
+
+	@Test(timeout = 10000)
+	public void testCloseWhenInterrupted() throws InterruptedException {
+		RadarPipeline pipeline = new RadarPipeline(new AirSpace(100, 100, 10), 2, Integer.MAX_VALUE, 64);
+		pipeline.start();
+		Thread.currentThread().interrupt();
+		pipeline.close();
+		assertTrue(Thread.interrupted());
+		// The radar sites have been told to stop, so the pipeline completes
+		pipeline.awaitCompletion();
+		assertFalse(pipeline.getTracker().radarQueueIterator().hasNext());
+	}
+
+	@Test(timeout = 10000)
+	public void testConsumerFailureStopsRadarSites() throws InterruptedException {
+		AirSpace airSpace = new AirSpace(100, 100, 10) {
+			@Override
+			public boolean addAircraft(Aircraft aircraft) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		// The radar sites never finish on their own, and block as soon as the queue is full
+		RadarPipeline pipeline = new RadarPipeline(airSpace, 4, Integer.MAX_VALUE, 16);
+		pipeline.start();
+		try {
+			pipeline.awaitCompletion();
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof UnsupportedOperationException);
+		}
+		assertFalse(pipeline.getTracker().radarQueueIterator().hasNext());
+		assertNull(pipeline.getTracker().findQueued("R0-10"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoRadarSites() {
+		new RadarPipeline(new AirSpace(100, 100, 10), 0, 10, 16);
+	}
+
+	@Test
+	public void testPerformanceRadarSites() throws InterruptedException {
+		OneSky.pipeline(8);
+	}
+
+}